@@ -0,0 +1,164 @@
+package dev.dobicinaitis.feedreader;
+
+import com.apptasticsoftware.rssreader.DateTime;
+import com.apptasticsoftware.rssreader.Enclosure;
+import com.apptasticsoftware.rssreader.Item;
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.PostedMessage;
+import dev.dobicinaitis.feedreader.dto.SyncStatus;
+import dev.dobicinaitis.feedreader.dto.TitleEmoji;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates deterministic, apollo.lv-like feed content for benchmarks.
+ * <p>
+ * A fixed seed is used, so that every run and every commit benchmarks exactly the same input.
+ */
+public final class SyntheticFeed {
+
+    private static final long SEED = 20240101L;
+    private static final ZonedDateTime START = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("Europe/Riga"));
+    private static final String[] TAGS = {"", "", "", "VIDEO ⟩ ", "FOTO ⟩ ", "TIEŠRAIDE ⟩ ", "Horoskopi ⟩ ", "Smieklīgi ⟩ "};
+    private static final String[] CATEGORIES = {"Latvijā", "Pasaulē", "Sports", "Izklaide", "Horoskopi", "Ekonomika", "Tehnoloģijas"};
+    private static final String[] WORDS = {"valdība", "šodien", "Rīgā", "jaunais", "projekts", "(foto)", "#1", "rekords!",
+            "cenas", "pieaug", "2024.", "gads", "_svarīgi_", "zinātnieki", "atklāj", "*ekskluzīvi*", "[video]", "sāk", "darbu"};
+
+    private SyntheticFeed() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Creates RSS items.
+     *
+     * @param count number of items
+     * @return RSS items, newest first like in the real feed
+     */
+    public static List<Item> items(final int count) {
+        final Random random = new Random(SEED);
+        final List<Item> items = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final Item item = new Item(new DateTime());
+            item.setTitle(TAGS[random.nextInt(TAGS.length)] + sentence(random, 8));
+            item.setDescription(sentence(random, 30));
+            item.setLink("https://apollo.tv3.lv/a/" + (1_000_000 + i));
+            item.setGuid("https://apollo.tv3.lv/a/" + (1_000_000 + i));
+            item.setPubDate(START.minusMinutes(i).format(DateTimeFormatter.RFC_1123_DATE_TIME));
+            item.addCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            if (random.nextBoolean()) {
+                item.addCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            }
+            final Enclosure enclosure = new Enclosure();
+            enclosure.setUrl("https://cdn.apollo.lv/images/" + i + ".jpg");
+            enclosure.setType("image/jpeg");
+            enclosure.setLength(0L);
+            item.setEnclosure(enclosure);
+            items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Creates an RSS document with the synthetic items.
+     *
+     * @param count number of items
+     * @return RSS 2.0 XML, the newest item is published at {@link #newestPublicationDate()}
+     */
+    public static String rss(final int count) {
+        final StringBuilder rss = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<rss version=\"2.0\"><channel>")
+                .append("<title>Apollo</title><link>https://www.apollo.lv</link><description>Synthetic feed</description>");
+        for (Item item : items(count)) {
+            rss.append("<item><title>").append(escape(item.getTitle().orElse(""))).append("</title>")
+                    .append("<description>").append(escape(item.getDescription().orElse(""))).append("</description>")
+                    .append("<link>").append(item.getLink().orElse("")).append("</link>")
+                    .append("<guid>").append(item.getGuid().orElse("")).append("</guid>")
+                    .append("<pubDate>").append(item.getPubDate().orElse("")).append("</pubDate>");
+            item.getCategories().forEach(category -> rss.append("<category>").append(escape(category)).append("</category>"));
+            item.getEnclosure().ifPresent(enclosure -> rss.append("<enclosure url=\"").append(enclosure.getUrl())
+                    .append("\" length=\"0\" type=\"").append(enclosure.getType()).append("\"/>"));
+            rss.append("</item>");
+        }
+        return rss.append("</channel></rss>").toString();
+    }
+
+    /**
+     * Returns the publication date of the newest synthetic item.
+     *
+     * @return publication date
+     */
+    public static ZonedDateTime newestPublicationDate() {
+        return START;
+    }
+
+    /**
+     * Creates articles, as if converted from the synthetic RSS items.
+     *
+     * @param count number of articles
+     * @return articles
+     */
+    public static List<Article> articles(final int count) {
+        final Random random = new Random(SEED);
+        final List<Article> articles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final String link = "https://www.apollo.lv/" + (1_000_000 + i);
+            articles.add(Article.builder()
+                    .guid(link)
+                    .title(sentence(random, 8))
+                    .titleEmoji(TitleEmoji.values()[random.nextInt(TitleEmoji.values().length)])
+                    .description(sentence(random, 30))
+                    .link(link)
+                    .imageUrl("https://cdn.apollo.lv/images/" + i + ".jpg")
+                    .categories(List.of(CATEGORIES[random.nextInt(CATEGORIES.length)]))
+                    .publicationDate(START.minusMinutes(i))
+                    .paywalled(random.nextInt(10) == 0)
+                    .build());
+        }
+        return articles;
+    }
+
+    /**
+     * Creates a sync status with a posted message index entry for every synthetic article.
+     *
+     * @param count number of posted messages
+     * @return sync status
+     */
+    public static SyncStatus syncStatus(final int count) {
+        final Random random = new Random(SEED);
+        final SyncStatus syncStatus = SyncStatus.builder()
+                .publicationDateOfLastPostedArticle(START)
+                .titleOfLastPostedArticle(sentence(random, 8))
+                .build();
+        for (int i = 0; i < count; i++) {
+            syncStatus.getPostedMessages().put("https://www.apollo.lv/" + (1_000_000 + i), PostedMessage.builder()
+                    .messageId(i)
+                    .contentHash(Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong()))
+                    .photo(random.nextBoolean())
+                    .postedAt(START.minusMinutes(i).plusSeconds(random.nextInt(600)))
+                    .build());
+        }
+        for (int i = 0; i < 500; i++) {
+            syncStatus.getFreshnessLagSeconds().add((long) random.nextInt(3600));
+        }
+        return syncStatus;
+    }
+
+    private static String escape(final String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+
+    private static String sentence(final Random random, final int words) {
+        final StringBuilder sentence = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            if (i > 0) {
+                sentence.append(' ');
+            }
+            sentence.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return sentence.toString();
+    }
+}
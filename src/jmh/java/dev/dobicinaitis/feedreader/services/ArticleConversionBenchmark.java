@@ -0,0 +1,107 @@
+package dev.dobicinaitis.feedreader.services;
+
+import com.apptasticsoftware.rssreader.Item;
+import dev.dobicinaitis.feedreader.SyntheticFeed;
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.SyncSettings;
+import dev.dobicinaitis.feedreader.dto.TitleEmoji;
+import dev.dobicinaitis.feedreader.misc.ArticleComparator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Benchmarks the conversion of RSS items to articles, the title and category handling it relies on and the sorting
+ * of articles.
+ */
+@State(Scope.Benchmark)
+public class ArticleConversionBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int itemCount;
+
+    private static final int FILTER_RULE_COUNT = 500;
+
+    private SyncService syncService;
+    private SyncService manyRulesSyncService;
+    private List<Item> items;
+    private List<Item> itemsToFilter;
+    private List<Article> articles;
+    private List<Article> articlesToSort;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        syncService = new SyncService(SyncSettings.builder()
+                .rssUrl("http://localhost/rss")
+                .telegramBotToken("bot-token")
+                .telegramChannelId("channel-id")
+                .excludedCategories(List.of("Horoskopi", "Izklaide"))
+                .build());
+        final List<String> filterRules = new ArrayList<>();
+        for (int i = 0; i < FILTER_RULE_COUNT; i++) {
+            filterRules.add(switch (i % 10) {
+                case 0 -> "exclude category:Category " + i;
+                case 1 -> "exclude category:Izklaide && keyword:topic " + i;
+                case 2 -> "exclude regex:\\bword" + i + "\\b";
+                default -> "exclude keyword:topic " + i;
+            });
+        }
+        manyRulesSyncService = new SyncService(SyncSettings.builder()
+                .rssUrl("http://localhost/rss")
+                .telegramBotToken("bot-token")
+                .telegramChannelId("channel-id")
+                .excludedCategories(List.of("Horoskopi", "Izklaide"))
+                .filterRules(filterRules)
+                .build());
+        items = SyntheticFeed.items(itemCount);
+        // newest first like in the feed, so that sorting has to reverse them
+        articles = SyntheticFeed.articles(itemCount);
+    }
+
+    @Setup(Level.Invocation)
+    public void copyItems() {
+        // filtering and sorting work in place, so every invocation needs a fresh copy
+        itemsToFilter = new ArrayList<>(items);
+        articlesToSort = new ArrayList<>(articles);
+    }
+
+    @Benchmark
+    public List<Article> convertRssItemsToArticles() {
+        return syncService.convertRssItemsToArticles(items);
+    }
+
+    @Benchmark
+    public void sanitizeTitleAndPickEmoji(Blackhole blackhole) {
+        for (Item item : items) {
+            final String title = item.getTitle().orElse(null);
+            blackhole.consume(syncService.sanitizeTitle(title));
+            final TitleEmoji emoji = syncService.pickEmoji(title);
+            blackhole.consume(emoji);
+        }
+    }
+
+    @Benchmark
+    public List<Item> removeExcludedCategories() {
+        syncService.removeFilteredItems(itemsToFilter);
+        return itemsToFilter;
+    }
+
+    @Benchmark
+    public List<Item> removeFilteredItemsWithManyRules() {
+        manyRulesSyncService.removeFilteredItems(itemsToFilter);
+        return itemsToFilter;
+    }
+
+    @Benchmark
+    public List<Article> sortArticles() {
+        articlesToSort.sort(ArticleComparator.oldestArticleFirst());
+        return articlesToSort;
+    }
+}
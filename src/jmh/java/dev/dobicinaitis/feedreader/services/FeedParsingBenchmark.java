@@ -0,0 +1,58 @@
+package dev.dobicinaitis.feedreader.services;
+
+import com.apptasticsoftware.rssreader.Item;
+import com.apptasticsoftware.rssreader.RssReader;
+import dev.dobicinaitis.feedreader.SyntheticFeed;
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.SyncSettings;
+import dev.dobicinaitis.feedreader.parser.StaxFeedParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Benchmarks turning a downloaded feed into articles with either parser, including the conversion each of them needs.
+ * Run it with {@code -PjmhProfilers=gc} to compare the memory allocated per item.
+ */
+@State(Scope.Benchmark)
+public class FeedParsingBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int itemCount;
+
+    private SyncService syncService;
+    private StaxFeedParser staxParser;
+    private byte[] feed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        syncService = new SyncService(SyncSettings.builder()
+                .rssUrl("http://localhost/rss")
+                .telegramBotToken("bot-token")
+                .telegramChannelId("channel-id")
+                .build());
+        staxParser = new StaxFeedParser();
+        feed = SyntheticFeed.rss(itemCount).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Article> parseWithRssReader() throws IOException {
+        final List<Item> items = new RssReader().read(new ByteArrayInputStream(feed)).toList();
+        return syncService.convertRssItemsToArticles(items);
+    }
+
+    @Benchmark
+    public List<Article> parseWithStax() throws XMLStreamException {
+        final List<Article> articles = staxParser.parse(new ByteArrayInputStream(feed));
+        return syncService.completeParsedArticles(articles);
+    }
+}
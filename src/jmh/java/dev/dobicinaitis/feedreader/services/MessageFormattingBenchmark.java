@@ -0,0 +1,61 @@
+package dev.dobicinaitis.feedreader.services;
+
+import dev.dobicinaitis.feedreader.SyntheticFeed;
+import dev.dobicinaitis.feedreader.dto.Article;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+
+/**
+ * Benchmarks the preparation of Telegram message content: markdown escaping, captions and keyboards.
+ */
+@State(Scope.Benchmark)
+public class MessageFormattingBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int articleCount;
+
+    private List<Article> articles;
+
+    @Setup
+    public void setUp() {
+        articles = SyntheticFeed.articles(articleCount);
+    }
+
+    @Benchmark
+    public void escapeSpecialCharacters(Blackhole blackhole) {
+        for (Article article : articles) {
+            blackhole.consume(TelegramService.escapeSpecialCharacters(article.getTitle()));
+            blackhole.consume(TelegramService.escapeSpecialCharacters(article.getDescription()));
+        }
+    }
+
+    @Benchmark
+    public void prepareCaption(Blackhole blackhole) {
+        for (Article article : articles) {
+            blackhole.consume(TelegramService.prepareCaption(article));
+        }
+    }
+
+    @Benchmark
+    public void prepareKeyboard(Blackhole blackhole) {
+        for (Article article : articles) {
+            blackhole.consume(TelegramService.prepareKeyboard(article));
+        }
+    }
+
+    @Benchmark
+    public void calculateContentHash(Blackhole blackhole) {
+        for (Article article : articles) {
+            // drops the caption cached by the previous invocation, so that building it is measured along with the hash
+            // as in baselines from before captions were cached, a Level.Invocation setup would dwarf the small feeds
+            article.setTitle(article.getTitle());
+            blackhole.consume(TelegramService.calculateContentHash(article));
+        }
+    }
+}
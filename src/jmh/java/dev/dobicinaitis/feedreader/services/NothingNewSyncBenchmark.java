@@ -0,0 +1,111 @@
+package dev.dobicinaitis.feedreader.services;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.dobicinaitis.feedreader.Application;
+import dev.dobicinaitis.feedreader.SyntheticFeed;
+import dev.dobicinaitis.feedreader.dto.SyncSettings;
+import dev.dobicinaitis.feedreader.dto.SyncStatus;
+import dev.dobicinaitis.feedreader.util.JsonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Benchmarks the most common run, the one that finds nothing new in the feed, including the set-up of the services.
+ * <p>
+ * The feed is served by a local HTTP server and the status file already holds its newest article, so nothing is
+ * posted and no Bot API request is made. Run it with {@code -PjmhProfilers=gc} to see the memory allocated per run.
+ * <p>
+ * The in-process benchmarks only see a warmed-up JVM, while every scheduled run starts a new one. The cold benchmark
+ * runs the application in a fresh JVM per invocation, so class loading, the client set-up and the interpreter are
+ * part of what it measures.
+ */
+@State(Scope.Benchmark)
+public class NothingNewSyncBenchmark {
+
+    private static final int ITEM_COUNT = 50;
+
+    private HttpServer feedServer;
+    private File statusFile;
+    private SyncSettings settings;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        final byte[] feed = SyntheticFeed.rss(ITEM_COUNT).getBytes(StandardCharsets.UTF_8);
+        feedServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        feedServer.createContext("/rss", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/rss+xml");
+            exchange.sendResponseHeaders(200, feed.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(feed);
+            }
+        });
+        feedServer.start();
+
+        statusFile = File.createTempFile("benchmarkStatus", ".json");
+        statusFile.deleteOnExit();
+        final SyncStatus syncStatus = SyncStatus.builder()
+                .publicationDateOfLastPostedArticle(SyntheticFeed.newestPublicationDate())
+                .titleOfLastPostedArticle("Newest article")
+                .build();
+        Files.writeString(statusFile.toPath(), JsonUtils.getGson().toJson(syncStatus));
+
+        settings = SyncSettings.builder()
+                .rssUrl("http://localhost:" + feedServer.getAddress().getPort() + "/rss")
+                .telegramBotToken("bot-token")
+                .telegramChannelId("channel-id")
+                // never called, nothing is posted
+                .telegramApiUrl("http://localhost:1")
+                .statusFile(statusFile)
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        feedServer.stop(0);
+    }
+
+    @Benchmark
+    public SyncService createService() {
+        return new SyncService(settings);
+    }
+
+    @Benchmark
+    public SyncService syncWithNothingNew() {
+        final SyncService syncService = new SyncService(settings);
+        syncService.sync();
+        return syncService;
+    }
+
+    @Benchmark
+    public int coldSyncWithNothingNew() throws IOException, InterruptedException {
+        final Process process = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                Application.class.getName(),
+                "--url", settings.getRssUrl(),
+                "--token", settings.getTelegramBotToken(),
+                "--channel-id", settings.getTelegramChannelId(),
+                "--telegram-api-url", settings.getTelegramApiUrl(),
+                "--status-file", statusFile.getAbsolutePath())
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        final int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Cold run failed with exit code " + exitCode);
+        }
+        return exitCode;
+    }
+}
@@ -0,0 +1,38 @@
+package dev.dobicinaitis.feedreader.util;
+
+import dev.dobicinaitis.feedreader.SyntheticFeed;
+import dev.dobicinaitis.feedreader.dto.SyncStatus;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmarks the JSON (de)serialization of the sync status with a growing posted message index.
+ */
+@State(Scope.Benchmark)
+public class StatusSerializationBenchmark {
+
+    @Param({"10", "1000", "50000"})
+    private int postedMessageCount;
+
+    private SyncStatus syncStatus;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        syncStatus = SyntheticFeed.syncStatus(postedMessageCount);
+        json = JsonUtils.getGson().toJson(syncStatus);
+    }
+
+    @Benchmark
+    public String serialize() {
+        return JsonUtils.getGson().toJson(syncStatus);
+    }
+
+    @Benchmark
+    public SyncStatus deserialize() {
+        return JsonUtils.getGson().fromJson(json, SyncStatus.class);
+    }
+}
@@ -3,8 +3,12 @@ package dev.dobicinaitis.feedreader.cli.commands;
 import dev.dobicinaitis.feedreader.cli.options.CommonOptions;
 import dev.dobicinaitis.feedreader.cli.providers.VersionProvider;
 import dev.dobicinaitis.feedreader.dto.SyncSettings;
+import dev.dobicinaitis.feedreader.filter.ArticleFilter;
+import dev.dobicinaitis.feedreader.http.ReplaySpeed;
 import dev.dobicinaitis.feedreader.misc.LabelHolder;
+import dev.dobicinaitis.feedreader.parser.FeedParser;
 import dev.dobicinaitis.feedreader.services.SyncService;
+import dev.dobicinaitis.feedreader.storage.StatusFormat;
 import dev.dobicinaitis.feedreader.util.UrlUtils;
 import lombok.extern.slf4j.Slf4j;
 import picocli.CommandLine.Command;
@@ -14,6 +18,10 @@ import picocli.CommandLine.ParameterException;
 import picocli.CommandLine.Spec;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -23,7 +31,16 @@ public class MainCommand extends CommonOptions implements Runnable {
 
     private String url;
     private File statusFile;
+    private StatusFormat statusFormat = StatusFormat.JSON;
+    private File archiveDirectory;
+    private File replayDirectory;
+    private ReplaySpeed replaySpeed = ReplaySpeed.FULL;
+    private FeedParser feedParser = FeedParser.RSSREADER;
+    private int maxConcurrency;
+    private int maxConcurrencyPerHost;
     private List<String> excludedCategories = new ArrayList<>();
+    private List<String> includedCategories = new ArrayList<>();
+    private List<String> filterRules = new ArrayList<>();
 
     @Spec
     CommandSpec spec;
@@ -56,6 +73,114 @@ public class MainCommand extends CommonOptions implements Runnable {
         this.statusFile = inputFile;
     }
 
+    @Option(names = {"--status-format"}, paramLabel = "FORMAT", defaultValue = "${FEED_READER_STATUS_FORMAT:-json}",
+            description = "Status file format: json or binary (default: ${DEFAULT-VALUE}).", order = 9)
+    private void setStatusFormat(final String format) {
+        if (format == null || format.isBlank()) {
+            return;
+        }
+        try {
+            this.statusFormat = StatusFormat.valueOf(format.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException(spec.commandLine(), String.format("Invalid status file format: '%s'.", format));
+        }
+    }
+
+    @Option(names = {"--lock-timeout"}, paramLabel = "SECONDS", defaultValue = "${FEED_READER_LOCK_TIMEOUT:-0}",
+            description = "How long to wait for another run using the same status file to finish%n" +
+                    "before skipping this run (default: ${DEFAULT-VALUE}).", order = 10)
+    private long lockTimeoutInSeconds;
+
+    @Option(names = {"--archive-dir"}, paramLabel = "DIR", defaultValue = "${FEED_READER_ARCHIVE_DIR}",
+            description = "Directory for an append-only archive of all posted articles.%n" +
+                    "Also used to prevent posting duplicates.", order = 11)
+    private void setArchiveDirectory(final File directory) {
+        if (directory != null && directory.exists() && !directory.isDirectory()) {
+            throw new ParameterException(spec.commandLine(),
+                    String.format("'%s' is not a directory.", directory.getAbsolutePath()));
+        }
+        this.archiveDirectory = directory;
+    }
+
+    @Option(names = {"--metrics-file"}, paramLabel = "FILE", defaultValue = "${FEED_READER_METRICS_FILE}",
+            description = "File to write Prometheus metrics to at the end of the run,%n" +
+                    "e.g. for the node exporter textfile collector.", order = 12)
+    private File metricsFile;
+
+    @Option(names = {"--metrics-port"}, paramLabel = "PORT", defaultValue = "${FEED_READER_METRICS_PORT}",
+            description = "Serve Prometheus metrics on http://ADDRESS:PORT/metrics while the application is running.", order = 13)
+    private Integer metricsPort;
+
+    @Option(names = {"--metrics-address"}, paramLabel = "ADDRESS", defaultValue = "${FEED_READER_METRICS_ADDRESS:-127.0.0.1}",
+            description = "Address to serve metrics on, e.g. 0.0.0.0 for all interfaces (default: ${DEFAULT-VALUE}).", order = 25)
+    private String metricsAddress;
+
+    @Option(names = {"--profile"}, paramLabel = "FILE", defaultValue = "${FEED_READER_PROFILE}",
+            description = "Record a JDK Flight Recorder profile of the run and save it to a .jfr file.", order = 14)
+    private File profileFile;
+
+    @Option(names = {"--report"}, paramLabel = "FILE", defaultValue = "${FEED_READER_REPORT}",
+            description = "Save a JSON report with stage timings, article outcomes and counters of the run.", order = 15)
+    private File reportFile;
+
+    @Option(names = {"--record"}, paramLabel = "DIR", defaultValue = "${FEED_READER_RECORD}",
+            description = "Record all outbound HTTP requests and responses of the run to a directory.", order = 16)
+    private File recordDirectory;
+
+    @Option(names = {"--replay"}, paramLabel = "DIR", defaultValue = "${FEED_READER_REPLAY}",
+            description = "Serve all outbound HTTP requests from a recording instead of the network.", order = 17)
+    private void setReplayDirectory(final File directory) {
+        if (directory != null && !directory.isDirectory()) {
+            throw new ParameterException(spec.commandLine(),
+                    String.format("Recording directory '%s' does not exist.", directory.getAbsolutePath()));
+        }
+        this.replayDirectory = directory;
+    }
+
+    @Option(names = {"--replay-speed"}, paramLabel = "SPEED", defaultValue = "${FEED_READER_REPLAY_SPEED:-full}",
+            description = "Replay speed: original (keep the recorded response times) or full (default: ${DEFAULT-VALUE}).", order = 18)
+    private void setReplaySpeed(final String speed) {
+        if (speed == null || speed.isBlank()) {
+            return;
+        }
+        try {
+            this.replaySpeed = ReplaySpeed.valueOf(speed.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException(spec.commandLine(), String.format("Invalid replay speed: '%s'.", speed));
+        }
+    }
+
+    @Option(names = {"--concurrency"}, paramLabel = "N", defaultValue = "${FEED_READER_CONCURRENCY:-32}",
+            description = "Maximum number of article link and paywall lookups running at the same time (default: ${DEFAULT-VALUE}).", order = 19)
+    private void setMaxConcurrency(final int concurrency) {
+        this.maxConcurrency = requirePositive(concurrency, "--concurrency");
+    }
+
+    @Option(names = {"--concurrency-per-host"}, paramLabel = "N", defaultValue = "${FEED_READER_CONCURRENCY_PER_HOST:-8}",
+            description = "Upper bound of the adaptive number of lookups running at the same time against the same host (default: ${DEFAULT-VALUE}).", order = 20)
+    private void setMaxConcurrencyPerHost(final int concurrency) {
+        this.maxConcurrencyPerHost = requirePositive(concurrency, "--concurrency-per-host");
+    }
+
+    @Option(names = {"--time-budget"}, paramLabel = "SECONDS", defaultValue = "${FEED_READER_TIME_BUDGET:-0}",
+            description = "Stop starting new network calls and posts after this many seconds and save the progress,%n" +
+                    "0 for no limit (default: ${DEFAULT-VALUE}).", order = 21)
+    private long timeBudgetInSeconds;
+
+    @Option(names = {"--parser"}, paramLabel = "PARSER", defaultValue = "${FEED_READER_PARSER:-rssreader}",
+            description = "RSS feed parser: rssreader or stax, a leaner parser reading only the fields articles use%n" +
+                    "(default: ${DEFAULT-VALUE}).", order = 22)
+    private void setFeedParser(final String parser) {
+        if (parser == null || parser.isBlank()) {
+            return;
+        }
+        try {
+            this.feedParser = FeedParser.valueOf(parser.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException(spec.commandLine(), String.format("Invalid RSS feed parser: '%s'.", parser));
+        }
+    }
+
     @Option(names = {"-r", "--read-button-label"}, paramLabel = "LABEL", defaultValue = "${FEED_READER_READ_BUTTON_LABEL:-Read}",
             description = "Label for the \"Read\" button in Telegram.", order = 5)
     private void setReadButtonLabel(final String label) {
@@ -70,14 +195,54 @@ public class MainCommand extends CommonOptions implements Runnable {
         }
     }
 
+    @Option(names = {"--include-categories"}, paramLabel = "CATEGORY", defaultValue = "${FEED_READER_INCLUDE_CATEGORIES}",
+            split = "\\,", splitSynopsisLabel = ",", description = "List of categories to include, all others are excluded.", order = 23)
+    private void setIncludedCategories(final List<String> includedCategories) {
+        if (includedCategories != null) {
+            this.includedCategories = includedCategories;
+        }
+    }
+
+    @Option(names = {"--filter-file"}, paramLabel = "FILE", defaultValue = "${FEED_READER_FILTER_FILE}",
+            description = "File with include and exclude rules for categories, keywords and regular expressions,%n" +
+                    "one rule per line, e.g. \"exclude category:Sports && keyword:futbol\".", order = 24)
+    private void setFilterFile(final File filterFile) {
+        if (filterFile == null) {
+            return;
+        }
+        final List<String> rules;
+        try {
+            rules = Files.readAllLines(filterFile.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ParameterException(spec.commandLine(),
+                    String.format("Filter file '%s' is not readable.", filterFile.getAbsolutePath()));
+        }
+        try {
+            // compiled here only to report invalid rules before the run starts
+            ArticleFilter.compile(null, null, rules);
+        } catch (IllegalArgumentException e) {
+            throw new ParameterException(spec.commandLine(), e.getMessage());
+        }
+        this.filterRules = rules;
+    }
+
     @Option(names = {"-p", "--exclude-paywalled"}, defaultValue = "${FEED_READER_EXCLUDE_PAYWALLED:-false}",
             description = "Exclude articles that are accessible only to paying subscribers.", order = 7)
     private boolean excludePaywalled;
 
+    @Option(names = {"--edit-changed"}, defaultValue = "${FEED_READER_EDIT_CHANGED:-false}",
+            description = "Edit already posted messages when the article title, description or paywall status changes.%n" +
+                    "Requires a status file.", order = 8)
+    private boolean editChangedArticles;
+
     @Option(names = "--no-sync", hidden = true, defaultValue = "${FEED_NO_SYNC:-false}",
             description = "A hidden parameter used to ease testing.")
     private boolean syncDisabled;
 
+    @Option(names = "--telegram-api-url", hidden = true, defaultValue = "${FEED_READER_TELEGRAM_API_URL}",
+            description = "A hidden parameter for pointing the bot to a local Telegram Bot API stand-in, e.g. in load tests.")
+    private String telegramApiUrl;
+
 
     public void run() {
         log.debug("Application version {}, build {}", VersionProvider.getVersionNumber(), VersionProvider.getBuildNumber());
@@ -88,19 +253,57 @@ public class MainCommand extends CommonOptions implements Runnable {
             return;
         }
 
+        if (recordDirectory != null && replayDirectory != null) {
+            throw new ParameterException(spec.commandLine(), "--record and --replay can't be used together.");
+        }
+
         log.info("Starting feed sync, RSS URL: {}", url);
         final SyncSettings syncSettings = SyncSettings.builder()
                 .rssUrl(url)
                 .telegramBotToken(botToken)
                 .telegramChannelId(channelId)
+                .telegramApiUrl(telegramApiUrl)
                 .statusFile(statusFile)
+                .statusFormat(statusFormat)
+                .feedParser(feedParser)
+                .lockTimeout(Duration.ofSeconds(lockTimeoutInSeconds))
+                .timeBudget(Duration.ofSeconds(timeBudgetInSeconds))
+                .archiveDirectory(archiveDirectory)
+                .metricsFile(metricsFile)
+                .metricsPort(metricsPort)
+                .metricsAddress(metricsAddress)
+                .profileFile(profileFile)
+                .reportFile(reportFile)
+                .recordDirectory(recordDirectory)
+                .replayDirectory(replayDirectory)
+                .replaySpeed(replaySpeed)
+                .maxConcurrency(maxConcurrency)
+                .maxConcurrencyPerHost(maxConcurrencyPerHost)
                 .excludedCategories(excludedCategories)
+                .includedCategories(includedCategories)
+                .filterRules(filterRules)
                 .excludePaywalled(excludePaywalled)
+                .editChangedArticles(editChangedArticles)
                 .build();
         final SyncService syncService = new SyncService(syncSettings);
         syncService.sync();
     }
 
+    /**
+     * Validates a concurrency limit.
+     *
+     * @param value  option value
+     * @param option option name
+     * @return the value if it is positive
+     * @throws ParameterException if the value is not positive
+     */
+    private int requirePositive(final int value, final String option) {
+        if (value < 1) {
+            throw new ParameterException(spec.commandLine(), String.format("%s must be at least 1, got %d.", option, value));
+        }
+        return value;
+    }
+
     /**
      * Validates the status file.
      *
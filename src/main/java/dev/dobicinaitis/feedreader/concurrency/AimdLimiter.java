@@ -0,0 +1,145 @@
+package dev.dobicinaitis.feedreader.concurrency;
+
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.dobicinaitis.feedreader.util.UrlUtils;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Adaptive concurrency limit of a single host, using additive increase and multiplicative decrease (AIMD).
+ * <p>
+ * Every call made by a limited task is reported back with its latency and outcome, to the limiter of the host that
+ * served it. While calls succeed and stay close to the fastest latency of the last {@link #BASELINE_WINDOW} calls,
+ * the limit grows by one. A failure halves the limit and a latency spike shrinks it by a tenth, so that a struggling
+ * site quickly gets fewer concurrent requests. Calls that were already in flight when the limit was decreased don't
+ * decrease it again, so a burst of failures costs a single halving, like a congestion window.
+ */
+@Slf4j
+public class AimdLimiter {
+
+    // host -> limiter, of the executor running the task on the current thread; calls made by the task report to it
+    public static final ScopedValue<Function<String, AimdLimiter>> HOST_LIMITERS = ScopedValue.newInstance();
+
+    public static final double FAILURE_BACKOFF_RATIO = 0.5;
+    public static final double LATENCY_BACKOFF_RATIO = 0.9;
+    // a call slower than this many times the fastest call counts as a latency spike
+    public static final double LATENCY_TOLERANCE = 2.0;
+    // number of recent successful calls the fastest latency is taken from, so that the baseline follows the host
+    public static final int BASELINE_WINDOW = 20;
+    private static final int MIN_LIMIT = 1;
+
+    private final String name;
+    private final int maxLimit;
+    private double limit;
+    @Getter
+    private int inFlight;
+    // latencies of the most recent successful calls, a ring buffer
+    private final long[] recentLatencyNanos = new long[BASELINE_WINDOW];
+    private int recentLatencyCount;
+    private long lastDecreaseNanos = Long.MIN_VALUE;
+
+    /**
+     * Creates a limiter that starts at half of the maximum limit.
+     *
+     * @param name     host name, used in metrics and logs
+     * @param maxLimit upper bound of the limit
+     */
+    public AimdLimiter(final String name, final int maxLimit) {
+        this.name = name;
+        this.maxLimit = Math.max(MIN_LIMIT, maxLimit);
+        this.limit = Math.max(MIN_LIMIT, this.maxLimit / 2);
+        Metrics.setConcurrencyLimit(name, getLimit());
+    }
+
+    /**
+     * Reports a call made by the task running on the current thread, if the task runs in a limiting executor.
+     * The call is charged to the host that served it, which differs from the host of the task when following redirects.
+     *
+     * @param url          URL of the call
+     * @param latencyNanos call duration
+     * @param failed       whether the call failed or the host answered with a server error
+     */
+    public static void recordSample(final String url, final long latencyNanos, final boolean failed) {
+        if (HOST_LIMITERS.isBound()) {
+            final AimdLimiter limiter = HOST_LIMITERS.get().apply(UrlUtils.getHost(url));
+            if (limiter != null) {
+                limiter.onSample(latencyNanos, failed);
+            }
+        }
+    }
+
+    /**
+     * Waits until the number of tasks in flight is below the limit and takes a permit.
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= getLimit()) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * Returns a permit.
+     */
+    public synchronized void release() {
+        inFlight--;
+        notifyAll();
+    }
+
+    /**
+     * Adjusts the limit to the outcome of a call.
+     *
+     * @param latencyNanos call duration
+     * @param failed       whether the call failed
+     */
+    public synchronized void onSample(final long latencyNanos, final boolean failed) {
+        final int previousLimit = getLimit();
+        final long now = System.nanoTime();
+        // a call started before the last decrease didn't see the decreased limit yet
+        final boolean mayDecrease = now - latencyNanos >= lastDecreaseNanos;
+        if (failed) {
+            if (mayDecrease) {
+                limit = Math.max(MIN_LIMIT, limit * FAILURE_BACKOFF_RATIO);
+                lastDecreaseNanos = now;
+            }
+        } else {
+            recentLatencyNanos[recentLatencyCount++ % BASELINE_WINDOW] = latencyNanos;
+            if (latencyNanos > getBaselineLatencyNanos() * LATENCY_TOLERANCE) {
+                if (mayDecrease) {
+                    limit = Math.max(MIN_LIMIT, limit * LATENCY_BACKOFF_RATIO);
+                    lastDecreaseNanos = now;
+                }
+            } else if (inFlight * 2 >= previousLimit) {
+                // only grow a limit that is actually being used
+                limit = Math.min(maxLimit, limit + 1);
+            }
+        }
+        final int newLimit = getLimit();
+        if (newLimit != previousLimit) {
+            log.debug("Concurrency limit for {} changed from {} to {}.", name, previousLimit, newLimit);
+            Metrics.increment(newLimit > previousLimit ? Counter.CONCURRENCY_LIMIT_INCREASES : Counter.CONCURRENCY_LIMIT_DECREASES);
+            Metrics.setConcurrencyLimit(name, newLimit);
+            notifyAll();
+        }
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * Returns the fastest latency of the recent successful calls, the latency a call is expected to take
+     * when the host is not under load.
+     *
+     * @return baseline latency, or {@link Long#MAX_VALUE} before the first successful call
+     */
+    public synchronized long getBaselineLatencyNanos() {
+        return Arrays.stream(recentLatencyNanos, 0, Math.min(recentLatencyCount, BASELINE_WINDOW)).min().orElse(Long.MAX_VALUE);
+    }
+}
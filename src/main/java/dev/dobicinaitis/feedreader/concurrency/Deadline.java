@@ -0,0 +1,97 @@
+package dev.dobicinaitis.feedreader.concurrency;
+
+import dev.dobicinaitis.feedreader.exceptions.DeadlineExceededException;
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Time budget of a whole sync run.
+ * <p>
+ * The deadline of the running sync is kept in a static field, so that network calls deep in the services and
+ * utilities can shorten their timeouts to the time that is left, without passing it through every method.
+ * Once the deadline has passed, no new network calls are started and no new articles are posted,
+ * while the work that has completed is still saved.
+ */
+public class Deadline implements AutoCloseable {
+
+    private static final Duration MIN_TIMEOUT = Duration.ofMillis(1);
+    private static volatile Deadline current;
+
+    @Getter
+    private final Duration budget;
+    private final long deadlineNanos;
+
+    private Deadline(final Duration budget) {
+        this.budget = budget;
+        this.deadlineNanos = System.nanoTime() + budget.toNanos();
+    }
+
+    /**
+     * Starts the deadline of a run.
+     *
+     * @param budget time budget of the run, null or zero for no limit
+     * @return started deadline, or null if the run has no time budget
+     */
+    public static Deadline start(final Duration budget) {
+        if (budget == null || budget.isZero() || budget.isNegative()) {
+            return null;
+        }
+        final Deadline deadline = new Deadline(budget);
+        current = deadline;
+        return deadline;
+    }
+
+    /**
+     * Checks if the time budget of the running sync is used up.
+     *
+     * @return true if the deadline has passed, false if it hasn't or there is none
+     */
+    public static boolean isExpired() {
+        final Deadline deadline = current;
+        return deadline != null && deadline.hasPassed();
+    }
+
+    /**
+     * Shortens a timeout to the time left until the deadline.
+     *
+     * @param timeout regular timeout
+     * @return the shorter of the timeout and the time left, never less than a millisecond,
+     * since a zero timeout means no timeout for most HTTP clients
+     */
+    public static Duration cap(final Duration timeout) {
+        final Deadline deadline = current;
+        if (deadline == null) {
+            return timeout;
+        }
+        final Duration remaining = Duration.ofNanos(deadline.deadlineNanos - System.nanoTime());
+        if (remaining.compareTo(MIN_TIMEOUT) < 0) {
+            return MIN_TIMEOUT;
+        }
+        return remaining.compareTo(timeout) < 0 ? remaining : timeout;
+    }
+
+    /**
+     * Fails if the time budget of the running sync is used up.
+     *
+     * @param action description of the action that would be started, used in the error message
+     * @throws DeadlineExceededException if the deadline has passed
+     */
+    public static void check(final String action) throws DeadlineExceededException {
+        final Deadline deadline = current;
+        if (deadline != null && deadline.hasPassed()) {
+            throw new DeadlineExceededException("Time budget of " + deadline.budget.toSeconds() + " s is used up, won't " + action);
+        }
+    }
+
+    private boolean hasPassed() {
+        return System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    @Override
+    public void close() {
+        if (current == this) {
+            current = null;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package dev.dobicinaitis.feedreader.concurrency;
+
+import dev.dobicinaitis.feedreader.exceptions.FeedReaderRuntimeException;
+import dev.dobicinaitis.feedreader.util.UrlUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs blocking network calls on virtual threads, one thread per task.
+ * <p>
+ * The number of calls in flight is capped globally and per host, so that a large backlog doesn't flood the news site.
+ * The per-host cap adapts to how the host copes, see {@link AimdLimiter}. The caller's MDC logging context is copied to every task. If the caller is interrupted or a task fails,
+ * the remaining tasks of the batch are cancelled.
+ */
+@Slf4j
+public class NetworkTaskExecutor implements AutoCloseable {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("network-", 0).factory());
+    private final Semaphore permits;
+    private final int maxConcurrencyPerHost;
+    private final Map<String, AimdLimiter> hostLimiters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an executor.
+     *
+     * @param maxConcurrency        maximum number of tasks running at the same time
+     * @param maxConcurrencyPerHost upper bound of the adaptive number of tasks running at the same time against the same host
+     */
+    public NetworkTaskExecutor(final int maxConcurrency, final int maxConcurrencyPerHost) {
+        if (maxConcurrency < 1 || maxConcurrencyPerHost < 1) {
+            throw new IllegalArgumentException("Concurrency limits must be positive.");
+        }
+        this.permits = new Semaphore(maxConcurrency);
+        this.maxConcurrencyPerHost = maxConcurrencyPerHost;
+    }
+
+    /**
+     * Runs the action for every item and waits for all of them to complete.
+     *
+     * @param items  items to process
+     * @param urlOf  returns the URL the action will call for an item, used for the per-host limit
+     * @param action action to run, expected to handle its own network errors
+     * @param <T>    item type
+     */
+    public <T> void forEach(final Collection<T> items, final Function<T, String> urlOf, final Consumer<T> action) {
+        final Map<String, String> context = MDC.getCopyOfContextMap();
+        final CompletionService<Void> completionService = new ExecutorCompletionService<>(executor);
+        final List<Future<Void>> futures = new ArrayList<>(items.size());
+        try {
+            for (T item : items) {
+                final String host = UrlUtils.getHost(urlOf.apply(item));
+                futures.add(completionService.submit(() -> {
+                    runLimited(host, () -> action.accept(item), context);
+                    return null;
+                }));
+            }
+            // wait in completion order, so that the first failure cancels the batch right away
+            for (int i = 0; i < futures.size(); i++) {
+                completionService.take().get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new FeedReaderRuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new FeedReaderRuntimeException(e.getCause());
+        } finally {
+            // no-op for completed tasks, stops the rest when the batch is abandoned
+            futures.forEach(future -> future.cancel(true));
+        }
+    }
+
+    /**
+     * Runs a task once both a host and a global permit are available. The host permit is taken first,
+     * so that tasks queued behind a busy host don't hold back tasks for other hosts. Calls made by the task
+     * report their latency to the limiter of the host they call.
+     *
+     * @param host    host the task calls
+     * @param task    task to run
+     * @param context MDC logging context of the caller
+     * @throws InterruptedException if the task was cancelled while waiting for a permit
+     */
+    private void runLimited(final String host, final Runnable task, final Map<String, String> context) throws InterruptedException {
+        final AimdLimiter hostLimiter = getHostLimiter(host);
+        hostLimiter.acquire();
+        try {
+            permits.acquire();
+            try {
+                if (context != null) {
+                    MDC.setContextMap(context);
+                }
+                ScopedValue.where(AimdLimiter.HOST_LIMITERS, this::getHostLimiter).run(task);
+            } finally {
+                MDC.clear();
+                permits.release();
+            }
+        } finally {
+            hostLimiter.release();
+        }
+    }
+
+    private AimdLimiter getHostLimiter(final String host) {
+        return hostLimiters.computeIfAbsent(host, h -> new AimdLimiter(h, maxConcurrencyPerHost));
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,89 @@
+package dev.dobicinaitis.feedreader.concurrency;
+
+import dev.dobicinaitis.feedreader.exceptions.FeedReaderRuntimeException;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Coalesces concurrent calls for the same key into a single call.
+ * <p>
+ * The first caller of a key runs the call, callers that arrive while it is in flight wait for it and get the same
+ * result or failure. Nothing is kept once the call completes, so a later caller runs the call again.
+ *
+ * @param <K> key type
+ * @param <V> result type
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs the call, or waits for the call of the same key that is already in flight.
+     *
+     * @param key  key identifying the call
+     * @param call call to run
+     * @return result of the call
+     * @throws IOException if the call failed
+     */
+    public V execute(final K key, final Call<V> call) throws IOException {
+        final CompletableFuture<V> ownCall = new CompletableFuture<>();
+        final CompletableFuture<V> sharedCall = inFlight.putIfAbsent(key, ownCall);
+        if (sharedCall != null) {
+            Metrics.increment(Counter.COALESCED_CALLS);
+            return await(key, sharedCall);
+        }
+        try {
+            final V result = call.execute();
+            ownCall.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // waiting callers must never be left hanging, whatever the failure
+            ownCall.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, ownCall);
+        }
+    }
+
+    /**
+     * Returns the number of calls in flight.
+     *
+     * @return number of distinct keys being called
+     */
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    private V await(final K key, final CompletableFuture<V> sharedCall) throws IOException {
+        try {
+            return sharedCall.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the call of " + key);
+        } catch (ExecutionException e) {
+            switch (e.getCause()) {
+                case IOException ioException -> throw ioException;
+                case RuntimeException runtimeException -> throw runtimeException;
+                case Error error -> throw error;
+                default -> throw new FeedReaderRuntimeException(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * A call whose result can be shared.
+     *
+     * @param <V> result type
+     */
+    @FunctionalInterface
+    public interface Call<V> {
+        V execute() throws IOException;
+    }
+}
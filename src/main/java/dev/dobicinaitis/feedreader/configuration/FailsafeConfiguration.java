@@ -1,5 +1,10 @@
 package dev.dobicinaitis.feedreader.configuration;
 
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
+import dev.dobicinaitis.feedreader.exceptions.HostUnavailableException;
+import dev.dobicinaitis.feedreader.exceptions.UnconfirmedDeliveryException;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
 import dev.failsafe.RetryPolicy;
 import lombok.extern.slf4j.Slf4j;
 
@@ -20,8 +25,17 @@ public class FailsafeConfiguration {
         RETRY_POLICY = RetryPolicy.builder()
                 .withMaxRetries(MAX_RETRY_COUNT)
                 .withDelay(Duration.ofSeconds(DELAY_IN_SECONDS))
+                // a retry can't finish once the time budget of the run is used up
+                .abortIf((result, failure) -> Deadline.isExpired())
+                // retrying a host with an open circuit breaker would only fail again
+                .abortOn(HostUnavailableException.class)
+                // the upstream may already have acted on the request, repeating it could post a duplicate
+                .abortOn(UnconfirmedDeliveryException::isCauseOf)
                 .onFailedAttempt(e -> log.error("Action failed, reason: {}", e.getLastException().getMessage()))
-                .onRetry(e -> log.info("Retrying, attempt {} of " + MAX_RETRY_COUNT + ".", e.getAttemptCount()))
+                .onRetry(e -> {
+                    Metrics.increment(Counter.RETRIES);
+                    log.info("Retrying, attempt {} of " + MAX_RETRY_COUNT + ".", e.getAttemptCount());
+                })
                 .onAbort(e -> log.error("Final retry failed, reason: ", e.getException()))
                 .build();
     }
@@ -0,0 +1,17 @@
+package dev.dobicinaitis.feedreader.configuration;
+
+import java.time.Duration;
+
+/**
+ * Timeouts shared by all outbound HTTP requests. Together with the retry policy they bound the worst-case
+ * duration of a single request to (MAX_RETRY_COUNT + 1) * (CONNECT_TIMEOUT + READ_TIMEOUT) + MAX_RETRY_COUNT * DELAY.
+ */
+public class HttpConfiguration {
+
+    public static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(10);
+    public static final Duration READ_TIMEOUT = Duration.ofSeconds(10);
+
+    private HttpConfiguration() {
+        throw new IllegalStateException("Utility class");
+    }
+}
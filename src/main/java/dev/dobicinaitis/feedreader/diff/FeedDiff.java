@@ -0,0 +1,176 @@
+package dev.dobicinaitis.feedreader.diff;
+
+import com.apptasticsoftware.rssreader.Enclosure;
+import com.apptasticsoftware.rssreader.Item;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import dev.dobicinaitis.feedreader.dto.Article;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compares the items of a feed fetch with the snapshot of the previous one, so that only added and changed items
+ * are converted, filtered and enriched.
+ * <p>
+ * The snapshot keeps a 64-bit hash of every item by its GUID. An item is added if its GUID is not in the snapshot,
+ * changed if its hash differs and removed if its GUID is no longer in the feed. Items without a GUID can't be
+ * compared and are always processed. Not thread-safe.
+ */
+public class FeedDiff {
+
+    private final Map<String, Long> previousHashes;
+    // GUID -> hash of every item in the feed
+    private final Map<String, Long> currentHashes = new HashMap<>();
+    // GUIDs of processed items that have to be processed again by the next run
+    private final Map<String, Long> retriedHashes = new HashMap<>();
+    @Getter
+    private int added;
+    @Getter
+    private int changed;
+    @Getter
+    private int unchanged;
+
+    /**
+     * Starts a diff against the previous snapshot.
+     *
+     * @param previousHashes GUID -> item hash of the previous feed fetch, null or empty on the first run
+     */
+    public FeedDiff(final Map<String, Long> previousHashes) {
+        this.previousHashes = previousHashes != null ? previousHashes : Map.of();
+    }
+
+    /**
+     * Adds a feed item to the diff.
+     *
+     * @param guid item GUID
+     * @param hash item hash, see {@link #hash(Item)} and {@link #hash(Article)}
+     * @return true if the item is added or changed and has to be processed
+     */
+    public boolean offer(final String guid, final long hash) {
+        if (guid == null || guid.isEmpty()) {
+            added++;
+            return true;
+        }
+        currentHashes.put(guid, hash);
+        final Long previousHash = previousHashes.get(guid);
+        if (previousHash == null) {
+            added++;
+            return true;
+        }
+        if (previousHash != hash) {
+            changed++;
+            return true;
+        }
+        unchanged++;
+        return false;
+    }
+
+    /**
+     * Marks a processed item that the next run has to process again, e.g. because its posting or editing didn't go
+     * through or the filter rules left it out, so that the next run sees it as added or changed instead of skipping it.
+     *
+     * @param guid item GUID
+     */
+    public void retry(final String guid) {
+        if (guid != null && currentHashes.containsKey(guid)) {
+            retriedHashes.put(guid, previousHashes.get(guid));
+        }
+    }
+
+    /**
+     * Returns the number of items of the previous snapshot that are no longer in the feed.
+     *
+     * @return number of removed items
+     */
+    public int getRemoved() {
+        int removed = 0;
+        for (String guid : previousHashes.keySet()) {
+            if (!currentHashes.containsKey(guid)) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Returns the GUIDs of all items in the feed, including the unchanged ones.
+     *
+     * @return feed GUIDs
+     */
+    public Set<String> getFeedGuids() {
+        return Collections.unmodifiableSet(currentHashes.keySet());
+    }
+
+    /**
+     * Builds the snapshot to compare the next feed fetch with. Items marked for a retry keep their previous hash,
+     * or are left out if they were added by this fetch.
+     *
+     * @return GUID -> item hash
+     */
+    public Map<String, Long> getSnapshot() {
+        final Map<String, Long> snapshot = new HashMap<>(currentHashes);
+        retriedHashes.forEach((guid, previousHash) -> {
+            if (previousHash != null) {
+                snapshot.put(guid, previousHash);
+            } else {
+                snapshot.remove(guid);
+            }
+        });
+        return snapshot;
+    }
+
+    /**
+     * Hashes the fields of an RSS item that articles are built from.
+     *
+     * @param item RSS item
+     * @return item hash
+     */
+    public static long hash(final Item item) {
+        return hash(item.getTitle().orElse(null), item.getDescription().orElse(null), item.getLink().orElse(null),
+                item.getEnclosure().map(Enclosure::getUrl).orElse(null), item.getCategories(), item.getPubDate().orElse(null));
+    }
+
+    /**
+     * Hashes the fields of an article parsed by the StAX parser, before its title is sanitized.
+     *
+     * @param article parsed article
+     * @return item hash
+     */
+    public static long hash(final Article article) {
+        return hash(article.getTitle(), article.getDescription(), article.getLink(), article.getImageUrl(),
+                article.getCategories(), article.getPublicationDate() != null ? String.valueOf(article.getPublicationEpochMillis()) : null);
+    }
+
+    @SuppressWarnings("UnstableApiUsage")
+    private static long hash(final String title, final String description, final String link, final String imageUrl,
+                             final List<String> categories, final String publicationDate) {
+        final Hasher hasher = Hashing.murmur3_128().newHasher();
+        putString(hasher, title);
+        putString(hasher, description);
+        putString(hasher, link);
+        putString(hasher, imageUrl);
+        putString(hasher, publicationDate);
+        if (categories != null) {
+            for (String category : categories) {
+                putString(hasher, category);
+            }
+        }
+        return hasher.hash().asLong();
+    }
+
+    // length-prefixed, so that moving text from one field to the next changes the hash
+    private static void putString(final Hasher hasher, final String value) {
+        if (value == null) {
+            hasher.putInt(-1);
+            return;
+        }
+        hasher.putInt(value.length());
+        hasher.putString(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,29 @@
+package dev.dobicinaitis.feedreader.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedArticle {
+    private String guid;
+    private String link;
+    private String title;
+    private List<String> categories;
+    private Instant publishedAt;
+    private Instant postedAt;
+    // time the message was edited to show this record, null for the record of the posting itself
+    private Instant editedAt;
+    private Integer messageId;
+    private boolean paywalled;
+    private boolean photo;
+    // hash of the message content, null in records written before it was archived
+    private String contentHash;
+}
@@ -1,21 +1,80 @@
 package dev.dobicinaitis.feedreader.dto;
 
 import dev.dobicinaitis.feedreader.misc.ArticleComparator;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Setter;
+import lombok.ToString;
+import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 @Data
-@Builder
 public class Article implements Comparable<Article> {
+    private String guid;
     private String title;
     private TitleEmoji titleEmoji;
     private String description;
     private String link;
     private String imageUrl;
+    private List<String> categories;
     private ZonedDateTime publicationDate;
+    // sort key, kept in sync with the publication date, 0 (the epoch) if there is none
+    @Setter(AccessLevel.NONE)
+    private long publicationEpochMillis;
     private boolean paywalled;
+    // Telegram message content, built on first use and dropped when the fields it is built from change
+    @ToString.Exclude
+    private transient String caption;
+    @ToString.Exclude
+    private transient InlineKeyboardMarkup keyboard;
+
+    @Builder
+    public Article(final String guid, final String title, final TitleEmoji titleEmoji, final String description,
+                   final String link, final String imageUrl, final List<String> categories,
+                   final ZonedDateTime publicationDate, final boolean paywalled) {
+        this.guid = guid;
+        this.title = title;
+        this.titleEmoji = titleEmoji;
+        this.description = description;
+        this.link = link;
+        this.imageUrl = imageUrl;
+        this.categories = categories;
+        this.paywalled = paywalled;
+        setPublicationDate(publicationDate);
+    }
+
+    public void setTitle(final String title) {
+        this.title = title;
+        this.caption = null;
+    }
+
+    public void setTitleEmoji(final TitleEmoji titleEmoji) {
+        this.titleEmoji = titleEmoji;
+        this.caption = null;
+    }
+
+    public void setDescription(final String description) {
+        this.description = description;
+        this.caption = null;
+    }
+
+    public void setPaywalled(final boolean paywalled) {
+        this.paywalled = paywalled;
+        this.caption = null;
+    }
+
+    public void setLink(final String link) {
+        this.link = link;
+        this.keyboard = null;
+    }
+
+    public void setPublicationDate(final ZonedDateTime publicationDate) {
+        this.publicationDate = publicationDate;
+        this.publicationEpochMillis = publicationDate != null ? publicationDate.toInstant().toEpochMilli() : 0;
+    }
 
     @Override
     public int compareTo(Article other) {
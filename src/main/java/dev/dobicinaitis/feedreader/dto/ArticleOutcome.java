@@ -0,0 +1,11 @@
+package dev.dobicinaitis.feedreader.dto;
+
+public enum ArticleOutcome {
+    POSTED,
+    FAILED,
+    SKIPPED,
+    DEFERRED,
+    EXCLUDED_PAYWALLED,
+    EDITED,
+    EDIT_FAILED
+}
@@ -0,0 +1,17 @@
+package dev.dobicinaitis.feedreader.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ArticleReport {
+    private String guid;
+    private String title;
+    private ArticleOutcome outcome;
+    private Integer messageId;
+    // time spent waiting for the Telegram rate limiter
+    private double rateLimitWaitSeconds;
+    // time spent downloading the image and sending the message, including retries
+    private double sendSeconds;
+}
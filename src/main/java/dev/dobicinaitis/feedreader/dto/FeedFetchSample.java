@@ -0,0 +1,17 @@
+package dev.dobicinaitis.feedreader.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeedFetchSample {
+    // time until the first response arrived
+    private long latencyMillis;
+    // whether a hedged request was sent
+    private boolean hedged;
+}
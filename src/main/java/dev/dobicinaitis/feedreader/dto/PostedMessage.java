@@ -0,0 +1,19 @@
+package dev.dobicinaitis.feedreader.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostedMessage {
+    private Integer messageId;
+    private String contentHash;
+    private boolean photo;
+    private ZonedDateTime postedAt;
+}
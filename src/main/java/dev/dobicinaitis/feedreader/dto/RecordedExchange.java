@@ -0,0 +1,28 @@
+package dev.dobicinaitis.feedreader.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordedExchange {
+    private long sequence;
+    private String method;
+    private String url;
+    private int statusCode;
+    private Map<String, List<String>> headers;
+    // response body file, relative to the recording directory
+    private String bodyFile;
+    // set instead of a response when the request failed, e.g. on a connection timeout
+    private String error;
+    // time since the start of the recording when the request was sent
+    private long offsetNanos;
+    private long durationNanos;
+}
@@ -0,0 +1,39 @@
+package dev.dobicinaitis.feedreader.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+public class RunReport {
+    private String status;
+    private ZonedDateTime startedAt;
+    private ZonedDateTime finishedAt;
+    private double durationSeconds;
+    // time from JVM start to the first posted article, null if nothing was posted, used to compare cold starts
+    private Double timeToFirstPostSeconds;
+    private int itemsReceived;
+    private int newArticles;
+    // feed items added, changed and removed since the previous feed fetch, all items are added without a status file
+    private int itemsAdded;
+    private int itemsChanged;
+    private int itemsRemoved;
+    // stage label -> timings of that stage
+    private Map<String, StageReport> stages;
+    // counter name -> value, e.g. retries and posted articles
+    private Map<String, Long> counters;
+    private long bytesTransferred;
+    private double rateLimitWaitSeconds;
+    // cache label -> share of lookups that were hits, null if there were no lookups
+    private Map<String, Double> cacheHitRatios;
+    private StageReport freshnessLag;
+    // filter rule -> number of feed items it matched, null if there are no filter rules
+    private Map<String, Long> filterRuleHits;
+    // articles posted within the last 24 hours by this and earlier runs according to the archive, null without one
+    private Integer articlesPostedLastDay;
+    private List<ArticleReport> articles;
+}
@@ -0,0 +1,16 @@
+package dev.dobicinaitis.feedreader.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class StageReport {
+    private long count;
+    private double totalSeconds;
+    private double p50Seconds;
+    private double p95Seconds;
+    private double p99Seconds;
+    private double maxSeconds;
+    private long bytes;
+}
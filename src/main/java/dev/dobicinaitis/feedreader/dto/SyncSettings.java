@@ -1,9 +1,14 @@
 package dev.dobicinaitis.feedreader.dto;
 
+import dev.dobicinaitis.feedreader.http.ReplaySpeed;
+import dev.dobicinaitis.feedreader.metrics.MetricsExporter;
+import dev.dobicinaitis.feedreader.parser.FeedParser;
+import dev.dobicinaitis.feedreader.storage.StatusFormat;
 import lombok.Builder;
 import lombok.Data;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.List;
 
 @Data
@@ -12,7 +17,39 @@ public class SyncSettings {
     private String rssUrl;
     private String telegramBotToken;
     private String telegramChannelId;
+    // Telegram Bot API base URL, null for the official one
+    private String telegramApiUrl;
     private File statusFile;
+    @Builder.Default
+    private StatusFormat statusFormat = StatusFormat.JSON;
+    @Builder.Default
+    private FeedParser feedParser = FeedParser.RSSREADER;
+    @Builder.Default
+    private Duration lockTimeout = Duration.ZERO;
+    // zero for no limit
+    @Builder.Default
+    private Duration timeBudget = Duration.ZERO;
+    private File archiveDirectory;
+    private File metricsFile;
+    private Integer metricsPort;
+    // loopback unless another address is asked for, the endpoint has no authentication
+    @Builder.Default
+    private String metricsAddress = MetricsExporter.DEFAULT_ADDRESS;
+    private File profileFile;
+    private File reportFile;
+    private File recordDirectory;
+    private File replayDirectory;
+    @Builder.Default
+    private ReplaySpeed replaySpeed = ReplaySpeed.FULL;
+    // limits for link and paywall lookups that run in parallel
+    @Builder.Default
+    private int maxConcurrency = 32;
+    @Builder.Default
+    private int maxConcurrencyPerHost = 8;
     private List<String> excludedCategories;
+    private List<String> includedCategories;
+    // lines of the filter file, see ArticleFilter for the rule syntax
+    private List<String> filterRules;
     private boolean excludePaywalled;
+    private boolean editChangedArticles;
 }
@@ -1,13 +1,39 @@
 package dev.dobicinaitis.feedreader.dto;
 
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class SyncStatus {
     private ZonedDateTime publicationDateOfLastPostedArticle;
     private String titleOfLastPostedArticle;
+    // article GUID -> Telegram message, used for editing already posted articles
+    @Builder.Default
+    private Map<String, PostedMessage> postedMessages = new HashMap<>();
+    // publication-to-post lag in seconds of the most recently posted articles, oldest first
+    @Builder.Default
+    private List<Long> freshnessLagSeconds = new ArrayList<>();
+    // host -> epoch milliseconds until which its circuit breaker stays open, only hosts with a tripped breaker
+    @Builder.Default
+    private Map<String, Long> trippedHosts = new HashMap<>();
+    // most recent RSS feed fetches, oldest first, used to decide when to hedge
+    @Builder.Default
+    private List<FeedFetchSample> feedFetchSamples = new ArrayList<>();
+    // scheme and authority of the article and image hosts of the last posting run, connected to while the feed loads
+    @Builder.Default
+    private List<String> knownOrigins = new ArrayList<>();
+    // item GUID -> hash of the item as of the last feed fetch, only added and changed items are processed again
+    @Builder.Default
+    private Map<String, Long> itemHashes = new HashMap<>();
 }
@@ -0,0 +1,13 @@
+package dev.dobicinaitis.feedreader.exceptions;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Thrown instead of starting a network call once the time budget of the run is used up.
+ */
+public class DeadlineExceededException extends InterruptedIOException {
+
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
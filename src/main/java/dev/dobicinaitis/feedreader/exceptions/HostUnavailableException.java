@@ -0,0 +1,13 @@
+package dev.dobicinaitis.feedreader.exceptions;
+
+import java.io.IOException;
+
+/**
+ * Thrown instead of calling a host whose circuit breaker is open or whose bulkhead is full.
+ */
+public class HostUnavailableException extends IOException {
+
+    public HostUnavailableException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,32 @@
+package dev.dobicinaitis.feedreader.exceptions;
+
+import com.google.common.base.Throwables;
+
+import java.io.InterruptedIOException;
+
+/**
+ * Thrown when a request was sent in full, but its response timed out. The upstream may have acted on the request,
+ * so repeating it could, for example, post the same message twice.
+ */
+public class UnconfirmedDeliveryException extends InterruptedIOException {
+
+    public UnconfirmedDeliveryException(String message) {
+        super(message);
+    }
+
+    public UnconfirmedDeliveryException(String message, Throwable cause) {
+        super(message);
+        initCause(cause);
+    }
+
+    /**
+     * Checks whether a failure was caused by an unconfirmed delivery, the exception is usually wrapped by the
+     * HTTP client and the retry policy.
+     *
+     * @param failure failure to check
+     * @return true if an {@link UnconfirmedDeliveryException} is in the causal chain
+     */
+    public static boolean isCauseOf(final Throwable failure) {
+        return failure != null && Throwables.getCausalChain(failure).stream().anyMatch(UnconfirmedDeliveryException.class::isInstance);
+    }
+}
@@ -0,0 +1,246 @@
+package dev.dobicinaitis.feedreader.filter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Decides which articles to keep, based on rules compiled once before the feed is loaded.
+ * <p>
+ * A rule includes or excludes the articles that meet all of its conditions. An article is kept if it meets no
+ * exclude rule and, when there are include rules, at least one of them. Conditions are:
+ * <ul>
+ *     <li>{@code category:<name>} - the article is in the category, case-insensitive</li>
+ *     <li>{@code keyword:<text>} - the title or description contains the text, case-insensitive</li>
+ *     <li>{@code regex:<pattern>} - the pattern is found in the title or description</li>
+ * </ul>
+ * Rules are written one per line as {@code include|exclude <condition> [&& <condition>...]}, e.g.
+ * {@code exclude category:Sports && keyword:futbol}. Empty lines and lines starting with # are ignored.
+ * <p>
+ * Every distinct condition is evaluated once per article: categories are looked up in a hash set, all keywords are
+ * found in a single pass of an Aho-Corasick automaton, and only regular expressions are matched one by one. Rules are
+ * then checked against the set of met conditions, so adding rules adds next to nothing to the cost of filtering.
+ * <p>
+ * Counts how many articles every rule matched. Not thread-safe.
+ */
+public class ArticleFilter {
+
+    private static final String INCLUDE = "include";
+    private static final String EXCLUDE = "exclude";
+    private static final String CATEGORY = "category:";
+    private static final String KEYWORD = "keyword:";
+    private static final String REGEX = "regex:";
+    private static final String CONDITION_SEPARATOR = "&&";
+
+    private final List<Rule> rules;
+    private final boolean hasIncludeRules;
+    // lowercase category -> condition ID
+    private final Map<String, Integer> categoryConditions;
+    private final KeywordAutomaton keywordConditions;
+    private final List<Pattern> regexConditions;
+    private final int[] regexConditionIds;
+    private final long[] hitCounts;
+    // reused for every article
+    private final BitSet metConditions = new BitSet();
+
+    private ArticleFilter(final Builder builder) {
+        this.rules = builder.rules;
+        this.hasIncludeRules = builder.rules.stream().anyMatch(Rule::include);
+        this.categoryConditions = builder.categoryConditions;
+        this.keywordConditions = KeywordAutomaton.build(builder.keywordConditions);
+        this.regexConditions = builder.regexConditions;
+        this.regexConditionIds = builder.regexConditionIds.stream().mapToInt(Integer::intValue).toArray();
+        this.hitCounts = new long[builder.rules.size()];
+    }
+
+    /**
+     * Compiles the filter rules.
+     *
+     * @param excludedCategories categories to exclude, one rule per category
+     * @param includedCategories categories to include, one rule per category
+     * @param rules              rule lines, e.g. from a filter file
+     * @return compiled filter
+     * @throws IllegalArgumentException if a rule is invalid
+     */
+    public static ArticleFilter compile(final List<String> excludedCategories, final List<String> includedCategories,
+                                        final List<String> rules) {
+        final Builder builder = new Builder();
+        if (excludedCategories != null) {
+            excludedCategories.forEach(category -> builder.addRule(EXCLUDE + " " + CATEGORY + category));
+        }
+        if (includedCategories != null) {
+            includedCategories.forEach(category -> builder.addRule(INCLUDE + " " + CATEGORY + category));
+        }
+        if (rules != null) {
+            rules.stream()
+                    .map(String::strip)
+                    .filter(rule -> !rule.isEmpty() && !rule.startsWith("#"))
+                    .forEach(builder::addRule);
+        }
+        return new ArticleFilter(builder);
+    }
+
+    /**
+     * Checks if there are any rules.
+     *
+     * @return true if every article is kept
+     */
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Decides if an article is kept and counts the rules it matched.
+     *
+     * @param categories  article categories
+     * @param title       article title
+     * @param description article description
+     * @return true if the article is kept
+     */
+    public boolean accepts(final List<String> categories, final String title, final String description) {
+        if (rules.isEmpty()) {
+            return true;
+        }
+        metConditions.clear();
+        if (categories != null && !categoryConditions.isEmpty()) {
+            for (String category : categories) {
+                final Integer condition = categoryConditions.get(category.toLowerCase(Locale.ROOT));
+                if (condition != null) {
+                    metConditions.set(condition);
+                }
+            }
+        }
+        keywordConditions.match(title, metConditions);
+        keywordConditions.match(description, metConditions);
+        for (int i = 0; i < regexConditionIds.length; i++) {
+            final Pattern pattern = regexConditions.get(i);
+            if ((title != null && pattern.matcher(title).find()) || (description != null && pattern.matcher(description).find())) {
+                metConditions.set(regexConditionIds[i]);
+            }
+        }
+
+        boolean included = !hasIncludeRules;
+        boolean excluded = false;
+        for (int i = 0; i < rules.size(); i++) {
+            final Rule rule = rules.get(i);
+            if (rule.isMetBy(metConditions)) {
+                hitCounts[i]++;
+                if (rule.include()) {
+                    included = true;
+                } else {
+                    excluded = true;
+                }
+            }
+        }
+        return included && !excluded;
+    }
+
+    /**
+     * Returns how many articles every rule matched.
+     *
+     * @return rule -> number of matched articles, in the order the rules were given
+     */
+    public Map<String, Long> getHitCounts() {
+        final Map<String, Long> hits = new LinkedHashMap<>();
+        for (int i = 0; i < rules.size(); i++) {
+            hits.merge(rules.get(i).text(), hitCounts[i], Long::sum);
+        }
+        return hits;
+    }
+
+    /**
+     * Resets the hit counts, e.g. before the items of another feed fetch are filtered.
+     */
+    public void resetHitCounts() {
+        Arrays.fill(hitCounts, 0);
+    }
+
+    /**
+     * A rule that includes or excludes the articles meeting all of its conditions.
+     *
+     * @param text       rule as written
+     * @param include    true for an include rule
+     * @param conditions IDs of the conditions
+     */
+    private record Rule(String text, boolean include, int[] conditions) {
+
+        boolean isMetBy(final BitSet metConditions) {
+            for (int condition : conditions) {
+                if (!metConditions.get(condition)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Parses rules and assigns an ID to every distinct condition.
+     */
+    private static class Builder {
+
+        private final List<Rule> rules = new ArrayList<>();
+        private final Map<String, Integer> categoryConditions = new HashMap<>();
+        private final Map<String, Integer> keywordConditions = new HashMap<>();
+        private final Map<String, Integer> regexConditionsByPattern = new HashMap<>();
+        private final List<Pattern> regexConditions = new ArrayList<>();
+        private final List<Integer> regexConditionIds = new ArrayList<>();
+        private int conditionCount;
+
+        private void addRule(final String rule) {
+            final String[] actionAndConditions = rule.strip().split("\\s+", 2);
+            final String action = actionAndConditions[0].toLowerCase(Locale.ROOT);
+            if (!INCLUDE.equals(action) && !EXCLUDE.equals(action)) {
+                throw new IllegalArgumentException(String.format("Filter rule '%s' must start with include or exclude.", rule));
+            }
+            if (actionAndConditions.length < 2) {
+                throw new IllegalArgumentException(String.format("Filter rule '%s' has no conditions.", rule));
+            }
+            final String[] conditions = actionAndConditions[1].split(Pattern.quote(CONDITION_SEPARATOR));
+            final int[] conditionIds = new int[conditions.length];
+            for (int i = 0; i < conditions.length; i++) {
+                conditionIds[i] = addCondition(rule, conditions[i].strip());
+            }
+            rules.add(new Rule(rule.strip(), INCLUDE.equals(action), conditionIds));
+        }
+
+        private int addCondition(final String rule, final String condition) {
+            if (condition.startsWith(CATEGORY)) {
+                final String category = requireValue(rule, condition.substring(CATEGORY.length()));
+                return categoryConditions.computeIfAbsent(category.toLowerCase(Locale.ROOT), key -> conditionCount++);
+            }
+            if (condition.startsWith(KEYWORD)) {
+                final String keyword = requireValue(rule, condition.substring(KEYWORD.length()));
+                return keywordConditions.computeIfAbsent(KeywordAutomaton.normalize(keyword), key -> conditionCount++);
+            }
+            if (condition.startsWith(REGEX)) {
+                final String regex = requireValue(rule, condition.substring(REGEX.length()));
+                return regexConditionsByPattern.computeIfAbsent(regex, key -> {
+                    try {
+                        regexConditions.add(Pattern.compile(regex));
+                    } catch (PatternSyntaxException e) {
+                        throw new IllegalArgumentException(String.format("Filter rule '%s' has an invalid regex: %s", rule, e.getDescription()), e);
+                    }
+                    regexConditionIds.add(conditionCount);
+                    return conditionCount++;
+                });
+            }
+            throw new IllegalArgumentException(String.format(
+                    "Filter rule '%s' has an unknown condition '%s', use category:, keyword: or regex:.", rule, condition));
+        }
+
+        private static String requireValue(final String rule, final String value) {
+            if (value.isBlank()) {
+                throw new IllegalArgumentException(String.format("Filter rule '%s' has a condition without a value.", rule));
+            }
+            return value.strip();
+        }
+    }
+}
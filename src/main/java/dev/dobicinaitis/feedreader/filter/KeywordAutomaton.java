@@ -0,0 +1,151 @@
+package dev.dobicinaitis.feedreader.filter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+
+/**
+ * Aho-Corasick automaton finding all keywords that occur in a text in a single pass, case-insensitively.
+ * <p>
+ * The cost of a match depends on the length of the text, not on the number of keywords. Transitions are kept in
+ * sorted arrays, so that matching neither boxes characters nor allocates.
+ */
+class KeywordAutomaton {
+
+    private static final int ROOT = 0;
+
+    // per state: sorted characters leading out of it and the states they lead to
+    private final char[][] transitionCharacters;
+    private final int[][] transitionTargets;
+    private final int[] failureLinks;
+    // per state: IDs of the keywords that end in it, including the ones reached through failure links
+    private final int[][] outputs;
+
+    private KeywordAutomaton(final char[][] transitionCharacters, final int[][] transitionTargets,
+                             final int[] failureLinks, final int[][] outputs) {
+        this.transitionCharacters = transitionCharacters;
+        this.transitionTargets = transitionTargets;
+        this.failureLinks = failureLinks;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Builds the automaton.
+     *
+     * @param keywords keyword, lowercased with {@link #normalize(String)} -> ID reported when it is found
+     * @return automaton
+     */
+    static KeywordAutomaton build(final Map<String, Integer> keywords) {
+        final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        final List<List<Integer>> keywordEnds = new ArrayList<>();
+        trie.add(new TreeMap<>());
+        keywordEnds.add(new ArrayList<>());
+        keywords.forEach((keyword, id) -> {
+            int state = ROOT;
+            for (int i = 0; i < keyword.length(); i++) {
+                final char character = keyword.charAt(i);
+                Integer next = trie.get(state).get(character);
+                if (next == null) {
+                    next = trie.size();
+                    trie.add(new TreeMap<>());
+                    keywordEnds.add(new ArrayList<>());
+                    trie.get(state).put(character, next);
+                }
+                state = next;
+            }
+            keywordEnds.get(state).add(id);
+        });
+
+        final int stateCount = trie.size();
+        final char[][] characters = new char[stateCount][];
+        final int[][] targets = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            final TreeMap<Character, Integer> transitions = trie.get(state);
+            characters[state] = new char[transitions.size()];
+            targets[state] = new int[transitions.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> transition : transitions.entrySet()) {
+                characters[state][i] = transition.getKey();
+                targets[state][i] = transition.getValue();
+                i++;
+            }
+        }
+
+        // breadth-first, so that the failure link of a state is known before the states below it
+        final int[] failureLinks = new int[stateCount];
+        final Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[ROOT]) {
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            final int state = queue.remove();
+            keywordEnds.get(state).addAll(keywordEnds.get(failureLinks[state]));
+            for (int i = 0; i < characters[state].length; i++) {
+                final int child = targets[state][i];
+                int fallback = failureLinks[state];
+                int next = step(characters, targets, fallback, characters[state][i]);
+                while (next < 0 && fallback != ROOT) {
+                    fallback = failureLinks[fallback];
+                    next = step(characters, targets, fallback, characters[state][i]);
+                }
+                failureLinks[child] = next < 0 ? ROOT : next;
+                queue.add(child);
+            }
+        }
+
+        final int[][] outputs = new int[stateCount][];
+        for (int state = 0; state < stateCount; state++) {
+            outputs[state] = keywordEnds.get(state).stream().mapToInt(Integer::intValue).distinct().toArray();
+        }
+        return new KeywordAutomaton(characters, targets, failureLinks, outputs);
+    }
+
+    /**
+     * Finds the keywords that occur in a text.
+     *
+     * @param text    text to search, may be null
+     * @param matches set to add the IDs of the found keywords to
+     */
+    void match(final String text, final BitSet matches) {
+        if (text == null) {
+            return;
+        }
+        int state = ROOT;
+        for (int i = 0; i < text.length(); i++) {
+            final char character = Character.toLowerCase(text.charAt(i));
+            int next = step(transitionCharacters, transitionTargets, state, character);
+            while (next < 0 && state != ROOT) {
+                state = failureLinks[state];
+                next = step(transitionCharacters, transitionTargets, state, character);
+            }
+            state = next < 0 ? ROOT : next;
+            for (int id : outputs[state]) {
+                matches.set(id);
+            }
+        }
+    }
+
+    /**
+     * Lowercases a keyword the same way the text is lowercased while matching, character by character.
+     *
+     * @param keyword keyword
+     * @return lowercase keyword
+     */
+    static String normalize(final String keyword) {
+        final char[] characters = keyword.toCharArray();
+        for (int i = 0; i < characters.length; i++) {
+            characters[i] = Character.toLowerCase(characters[i]);
+        }
+        return new String(characters);
+    }
+
+    private static int step(final char[][] characters, final int[][] targets, final int state, final char character) {
+        final int index = Arrays.binarySearch(characters[state], character);
+        return index >= 0 ? targets[state][index] : -1;
+    }
+}
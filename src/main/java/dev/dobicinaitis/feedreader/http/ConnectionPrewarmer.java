@@ -0,0 +1,163 @@
+package dev.dobicinaitis.feedreader.http;
+
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.CONNECT_TIMEOUT;
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.READ_TIMEOUT;
+
+/**
+ * Resolves and connects to the hosts a run is about to call, in parallel and off the critical path.
+ * <p>
+ * For every origin the host name is resolved, which fills the JVM DNS cache, and for HTTPS origins a TLS handshake
+ * is completed, which leaves a session in the default SSL context, so that the later connections of the JDK clients
+ * resume it instead of doing a full handshake. Clients with a connection pool of their own, like the Telegram client,
+ * are warmed up by the tasks passed in. Failures are only logged, the actual requests will report them properly.
+ */
+@Slf4j
+public class ConnectionPrewarmer implements AutoCloseable {
+
+    private static final int DEFAULT_HTTPS_PORT = 443;
+    private static final String TLS_1_3 = "TLSv1.3";
+    private static final Duration SESSION_TICKET_WAIT = Duration.ofMillis(200);
+
+    private final ExecutorService executor;
+
+    private ConnectionPrewarmer(final ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Starts warming up connections in the background.
+     *
+     * @param origins scheme and authority of the hosts to connect to, e.g. https://www.apollo.lv
+     * @param warmUps tasks warming up clients with their own connection pool
+     * @return running pre-warmer, close it to stop the warm-ups that are still running, or null while replaying
+     */
+    public static ConnectionPrewarmer start(final Collection<String> origins, final Runnable... warmUps) {
+        // no request leaves the process during a replay
+        if (HttpTraffic.isReplaying()) {
+            return null;
+        }
+        final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("prewarm-", 0).factory());
+        final Set<String> distinctOrigins = new LinkedHashSet<>(origins);
+        log.debug("Pre-warming connections to {}.", distinctOrigins);
+        distinctOrigins.forEach(origin -> executor.execute(() -> prewarm(origin)));
+        for (Runnable warmUp : warmUps) {
+            executor.execute(warmUp);
+        }
+        return new ConnectionPrewarmer(executor);
+    }
+
+    /**
+     * Starts another warm-up in the background, e.g. of a client that has only just been found to be needed.
+     *
+     * @param warmUp task warming up a client with its own connection pool
+     */
+    public void warmUp(final Runnable warmUp) {
+        executor.execute(warmUp);
+    }
+
+    /**
+     * Returns the origin of a URL.
+     *
+     * @param url URL
+     * @return scheme and authority, e.g. https://www.apollo.lv, or null if the URL is not an absolute HTTP(S) URL
+     */
+    public static String getOrigin(final String url) {
+        if (url == null) {
+            return null;
+        }
+        try {
+            final URI uri = URI.create(url);
+            if (uri.getAuthority() == null || !("http".equalsIgnoreCase(uri.getScheme()) || "https".equalsIgnoreCase(uri.getScheme()))) {
+                return null;
+            }
+            return uri.getScheme().toLowerCase() + "://" + uri.getAuthority().toLowerCase();
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Resolves the host of an origin and completes a TLS handshake with it if it uses HTTPS.
+     *
+     * @param origin scheme and authority
+     */
+    private static void prewarm(final String origin) {
+        final long startTime = System.nanoTime();
+        try {
+            final URI uri = URI.create(origin);
+            final InetAddress address = InetAddress.getByName(uri.getHost());
+            if ("https".equals(uri.getScheme())) {
+                handshake(uri.getHost(), address, uri.getPort() != -1 ? uri.getPort() : DEFAULT_HTTPS_PORT);
+            }
+            log.debug("Pre-warmed {} in {} ms.", origin, (System.nanoTime() - startTime) / 1_000_000);
+        } catch (IOException | IllegalArgumentException e) {
+            log.debug("Failed to pre-warm {}: {}", origin, e.getMessage());
+        }
+    }
+
+    private static void handshake(final String host, final InetAddress address, final int port) throws IOException {
+        final Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress(address, port), (int) Deadline.cap(CONNECT_TIMEOUT).toMillis());
+            socket.setSoTimeout((int) Deadline.cap(READ_TIMEOUT).toMillis());
+            // layered over the connected socket, so that the host name is still sent for SNI
+            try (SSLSocket sslSocket = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                    .createSocket(socket, host, port, true)) {
+                // sessions are only resumed by clients that verify the host name the same way
+                final SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setEndpointIdentificationAlgorithm("HTTPS");
+                sslSocket.setSSLParameters(parameters);
+                sslSocket.startHandshake();
+                awaitSessionTicket(sslSocket);
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    /**
+     * Waits briefly for a TLS 1.3 session ticket. Servers send it after the handshake and the JDK only processes it
+     * while reading, so without a read the session could not be resumed.
+     *
+     * @param sslSocket socket with a completed handshake
+     * @throws IOException if the connection failed
+     */
+    private static void awaitSessionTicket(final SSLSocket sslSocket) throws IOException {
+        if (!TLS_1_3.equals(sslSocket.getSession().getProtocol())) {
+            return;
+        }
+        sslSocket.setSoTimeout((int) SESSION_TICKET_WAIT.toMillis());
+        try {
+            sslSocket.getInputStream().read();
+        } catch (SocketTimeoutException e) {
+            // expected, the server has nothing else to say before a request
+        }
+    }
+
+    /**
+     * Stops the warm-ups that are still running.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,41 @@
+package dev.dobicinaitis.feedreader.http;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Status, headers and the complete body of an HTTP response, independent of the client that fetched it.
+ */
+@Getter
+@AllArgsConstructor
+public class FetchedResponse {
+
+    private final int statusCode;
+    private final Map<String, List<String>> headers;
+    private final byte[] body;
+
+    /**
+     * Returns the first value of a header.
+     *
+     * @param name header name, case-insensitive
+     * @return header value, or null if the header is not present
+     */
+    public String getHeader(final String name) {
+        return headers.entrySet().stream()
+                .filter(header -> header.getKey() != null && header.getKey().equalsIgnoreCase(name))
+                .flatMap(header -> header.getValue().stream())
+                .findFirst()
+                .orElse(null);
+    }
+
+    public boolean isSuccessful() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    public boolean isRedirect() {
+        return statusCode >= 300 && statusCode < 400;
+    }
+}
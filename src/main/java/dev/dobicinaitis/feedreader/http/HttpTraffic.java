@@ -0,0 +1,284 @@
+package dev.dobicinaitis.feedreader.http;
+
+import com.google.gson.Gson;
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
+import dev.dobicinaitis.feedreader.concurrency.SingleFlight;
+import dev.dobicinaitis.feedreader.dto.RecordedExchange;
+import dev.dobicinaitis.feedreader.exceptions.UnconfirmedDeliveryException;
+import dev.dobicinaitis.feedreader.util.UrlUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * Records all outbound HTTP traffic to a directory or serves it back from an earlier recording.
+ * <p>
+ * Every outbound request goes through {@link #exchange(String, String, LiveExchange)}. Without an active session
+ * the request is simply executed. While recording, the request is executed and its response or error is written
+ * to {@code exchanges.jsonl} with the body in {@code bodies/}. While replaying, no request leaves the process:
+ * responses to the same method and URL are served in the order they were recorded.
+ * <p>
+ * Lookups that only read a resource go through {@link #exchangeShared(String, String, LiveExchange)} instead,
+ * so that concurrent requests for the same URL share a single exchange and its response. Requests are not shared
+ * while recording or replaying, as whether two lookups overlap depends on timing, and a replay has to serve
+ * the same number of exchanges as were recorded.
+ */
+@Slf4j
+public final class HttpTraffic implements Closeable {
+
+    private static final String INDEX_FILE = "exchanges.jsonl";
+    private static final String BODY_DIRECTORY = "bodies";
+    // bot tokens are part of Bot API URLs and must not end up in recordings
+    private static final Pattern BOT_TOKEN = Pattern.compile("/bot[^/]+/");
+    private static final String REDACTED_BOT_TOKEN = "/bot<token>/";
+    private static final Gson GSON = new Gson();
+    private static final SingleFlight<String, FetchedResponse> IN_FLIGHT = new SingleFlight<>();
+
+    private static volatile HttpTraffic active;
+
+    private final Path directory;
+    private final BufferedWriter index;
+    private final Map<String, Deque<RecordedExchange>> recordings;
+    private final ReplaySpeed replaySpeed;
+    private final AtomicLong sequence = new AtomicLong();
+    private final long startNanoTime = System.nanoTime();
+
+    private HttpTraffic(Path directory, BufferedWriter index, Map<String, Deque<RecordedExchange>> recordings, ReplaySpeed replaySpeed) {
+        this.directory = directory;
+        this.index = index;
+        this.recordings = recordings;
+        this.replaySpeed = replaySpeed;
+    }
+
+    /**
+     * Starts recording outbound HTTP traffic, replacing any earlier recording in the directory.
+     *
+     * @param directory recording directory
+     * @return recording session, close it to stop recording
+     * @throws IOException if the directory could not be prepared
+     */
+    public static HttpTraffic record(final Path directory) throws IOException {
+        Files.createDirectories(directory.resolve(BODY_DIRECTORY));
+        final BufferedWriter index = Files.newBufferedWriter(directory.resolve(INDEX_FILE), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        log.info("Recording outbound HTTP traffic to {}", directory.toAbsolutePath());
+        return activate(new HttpTraffic(directory, index, null, null));
+    }
+
+    /**
+     * Starts serving outbound HTTP traffic from a recording.
+     *
+     * @param directory   recording directory
+     * @param replaySpeed whether to reproduce the original response times
+     * @return replay session, close it to go back to live traffic
+     * @throws IOException if the recording could not be loaded
+     */
+    public static HttpTraffic replay(final Path directory, final ReplaySpeed replaySpeed) throws IOException {
+        final Map<String, Deque<RecordedExchange>> recordings = new HashMap<>();
+        final List<String> lines = Files.readAllLines(directory.resolve(INDEX_FILE), StandardCharsets.UTF_8);
+        for (String line : lines) {
+            if (line.isBlank()) {
+                continue;
+            }
+            final RecordedExchange exchange = GSON.fromJson(line, RecordedExchange.class);
+            recordings.computeIfAbsent(key(exchange.getMethod(), exchange.getUrl()), key -> new ArrayDeque<>()).add(exchange);
+        }
+        log.info("Replaying {} recorded HTTP exchanges from {} at {} speed.", lines.size(), directory.toAbsolutePath(),
+                replaySpeed.name().toLowerCase());
+        return activate(new HttpTraffic(directory, null, recordings, replaySpeed));
+    }
+
+    /**
+     * Returns true if requests are currently being recorded or served from a recording.
+     *
+     * @return true while recording or replaying
+     */
+    public static boolean isActive() {
+        return active != null;
+    }
+
+    /**
+     * Returns true if responses are currently served from a recording.
+     *
+     * @return true while replaying
+     */
+    public static boolean isReplaying() {
+        final HttpTraffic traffic = active;
+        return traffic != null && traffic.recordings != null;
+    }
+
+    /**
+     * Returns the speed of the active replay.
+     *
+     * @return replay speed, or null if not replaying
+     */
+    public static ReplaySpeed getReplaySpeed() {
+        final HttpTraffic traffic = active;
+        return traffic != null ? traffic.replaySpeed : null;
+    }
+
+    /**
+     * Executes an outbound HTTP request, recording it or serving it from a recording if a session is active.
+     *
+     * @param method request method
+     * @param url    request URL
+     * @param live   executes the request over the network
+     * @return response
+     * @throws IOException if the request failed, or if it was not recorded while replaying
+     */
+    public static FetchedResponse exchange(final String method, final String url, final LiveExchange live) throws IOException {
+        Deadline.check("send " + method + " " + UrlUtils.getHost(url));
+        final LiveExchange guarded = () -> UpstreamGuard.execute(url, live);
+        final HttpTraffic traffic = active;
+        if (traffic == null) {
+            return guarded.execute();
+        }
+        final String redactedUrl = url != null ? BOT_TOKEN.matcher(url).replaceAll(REDACTED_BOT_TOKEN) : null;
+        return traffic.recordings != null ? traffic.serve(method, redactedUrl) : traffic.capture(method, redactedUrl, guarded);
+    }
+
+    /**
+     * Executes an outbound HTTP request like {@link #exchange(String, String, LiveExchange)}, unless the same request
+     * is already in flight, in which case its response is shared. Only use it for requests without side effects
+     * whose response body is not modified by the caller. While recording or replaying every call is an exchange
+     * of its own.
+     *
+     * @param method request method
+     * @param url    request URL
+     * @param live   executes the request over the network
+     * @return response, possibly shared with other callers
+     * @throws IOException if the request failed, or if it was not recorded while replaying
+     */
+    public static FetchedResponse exchangeShared(final String method, final String url, final LiveExchange live) throws IOException {
+        if (isActive()) {
+            return exchange(method, url, live);
+        }
+        return IN_FLIGHT.execute(key(method, url), () -> exchange(method, url, live));
+    }
+
+    private FetchedResponse capture(final String method, final String url, final LiveExchange live) throws IOException {
+        final long sequenceNumber = sequence.incrementAndGet();
+        final long startTime = System.nanoTime();
+        final RecordedExchange.RecordedExchangeBuilder exchange = RecordedExchange.builder()
+                .sequence(sequenceNumber)
+                .method(method)
+                .url(url)
+                .offsetNanos(startTime - startNanoTime);
+        try {
+            final FetchedResponse response = live.execute();
+            final String bodyFile = BODY_DIRECTORY + "/%06d.bin".formatted(sequenceNumber);
+            Files.write(directory.resolve(bodyFile), response.getBody());
+            append(exchange
+                    .statusCode(response.getStatusCode())
+                    .headers(withoutStatusLine(response.getHeaders()))
+                    .bodyFile(bodyFile)
+                    .durationNanos(System.nanoTime() - startTime)
+                    .build());
+            return response;
+        } catch (IOException e) {
+            append(exchange
+                    .error(e.getClass().getSimpleName() + ": " + e.getMessage())
+                    .durationNanos(System.nanoTime() - startTime)
+                    .build());
+            throw e;
+        }
+    }
+
+    private FetchedResponse serve(final String method, final String url) throws IOException {
+        final RecordedExchange exchange;
+        synchronized (recordings) {
+            final Deque<RecordedExchange> queue = recordings.get(key(method, url));
+            exchange = queue != null ? queue.poll() : null;
+        }
+        if (exchange == null) {
+            throw new IOException("No recorded response left for " + method + " " + url);
+        }
+        if (replaySpeed == ReplaySpeed.ORIGINAL) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(exchange.getDurationNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Replay of " + method + " " + url + " was interrupted");
+            }
+        }
+        if (exchange.getError() != null) {
+            // replayed as the same kind of failure, so that the run doesn't retry where the recorded one stopped
+            if (exchange.getError().startsWith(UnconfirmedDeliveryException.class.getSimpleName() + ":")) {
+                throw new UnconfirmedDeliveryException("Replayed failure: " + exchange.getError());
+            }
+            throw new IOException("Replayed failure: " + exchange.getError());
+        }
+        final byte[] body = exchange.getBodyFile() != null ? Files.readAllBytes(directory.resolve(exchange.getBodyFile())) : new byte[0];
+        return new FetchedResponse(exchange.getStatusCode(), exchange.getHeaders() != null ? exchange.getHeaders() : Map.of(), body);
+    }
+
+    private void append(final RecordedExchange exchange) throws IOException {
+        synchronized (index) {
+            index.write(GSON.toJson(exchange));
+            index.newLine();
+            index.flush();
+        }
+    }
+
+    /**
+     * Stops recording or replaying, subsequent requests are executed live again.
+     *
+     * @throws IOException if the recording could not be flushed
+     */
+    @Override
+    public void close() throws IOException {
+        if (active == this) {
+            active = null;
+        }
+        if (index != null) {
+            index.close();
+            log.info("Recorded {} HTTP exchanges to {}", sequence.get(), directory.toAbsolutePath());
+        }
+    }
+
+    private static synchronized HttpTraffic activate(final HttpTraffic traffic) {
+        if (active != null) {
+            throw new IllegalStateException("HTTP traffic is already being recorded or replayed.");
+        }
+        active = traffic;
+        return traffic;
+    }
+
+    private static String key(final String method, final String url) {
+        return method + " " + url;
+    }
+
+    private static Map<String, List<String>> withoutStatusLine(final Map<String, List<String>> headers) {
+        // HttpURLConnection reports the status line as a header with a null name
+        final Map<String, List<String>> filtered = new HashMap<>();
+        headers.forEach((name, values) -> {
+            if (name != null) {
+                filtered.put(name, values);
+            }
+        });
+        return filtered;
+    }
+
+    /**
+     * Executes a request over the network.
+     */
+    @FunctionalInterface
+    public interface LiveExchange {
+        FetchedResponse execute() throws IOException;
+    }
+}
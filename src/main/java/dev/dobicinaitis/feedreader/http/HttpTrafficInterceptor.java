@@ -0,0 +1,46 @@
+package dev.dobicinaitis.feedreader.http;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Routes the OkHttp requests of the Telegram client through {@link HttpTraffic}, so that Bot API calls are
+ * recorded and replayed together with the rest of the outbound traffic.
+ */
+public class HttpTrafficInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        final Request request = chain.request();
+        final FetchedResponse response = HttpTraffic.exchange(request.method(), request.url().toString(), () -> {
+            try (Response liveResponse = chain.proceed(request)) {
+                final ResponseBody body = liveResponse.body();
+                return new FetchedResponse(liveResponse.code(), liveResponse.headers().toMultimap(),
+                        body != null ? body.bytes() : new byte[0]);
+            }
+        });
+
+        final Headers.Builder headers = new Headers.Builder();
+        for (Map.Entry<String, List<String>> header : response.getHeaders().entrySet()) {
+            header.getValue().forEach(value -> headers.add(header.getKey(), value));
+        }
+        final String contentType = response.getHeader("Content-Type");
+        return new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_1_1)
+                .code(response.getStatusCode())
+                .message("")
+                .headers(headers.build())
+                .body(ResponseBody.create(response.getBody(), contentType != null ? MediaType.parse(contentType) : null))
+                .build();
+    }
+}
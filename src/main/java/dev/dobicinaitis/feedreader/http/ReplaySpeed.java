@@ -0,0 +1,8 @@
+package dev.dobicinaitis.feedreader.http;
+
+public enum ReplaySpeed {
+    // every response is delayed by the time the original request took
+    ORIGINAL,
+    // responses are served immediately and the Telegram rate limit is lifted
+    FULL
+}
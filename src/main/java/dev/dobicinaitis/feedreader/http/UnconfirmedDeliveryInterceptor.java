@@ -0,0 +1,77 @@
+package dev.dobicinaitis.feedreader.http;
+
+import dev.dobicinaitis.feedreader.exceptions.UnconfirmedDeliveryException;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okio.BufferedSink;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tells a response timeout apart from a failure to send the request, so that requests with side effects are not
+ * repeated once the upstream may already have acted on them. Has to be added as a network interceptor.
+ * <p>
+ * A read timeout after the request body was written in full is rethrown as an {@link UnconfirmedDeliveryException}.
+ * Connect timeouts and timeouts while writing the request are rethrown unchanged and can be retried safely.
+ */
+public class UnconfirmedDeliveryInterceptor implements Interceptor {
+
+    @Override
+    public Response intercept(final Chain chain) throws IOException {
+        final Request request = chain.request();
+        final AtomicBoolean sent = new AtomicBoolean(request.body() == null);
+        final Request trackedRequest = request.body() == null ? request
+                : request.newBuilder().method(request.method(), new TrackedBody(request.body(), sent)).build();
+        try {
+            return chain.proceed(trackedRequest);
+        } catch (SocketTimeoutException e) {
+            if (!sent.get()) {
+                throw e;
+            }
+            // the last path segment only, Bot API paths carry the bot token
+            throw new UnconfirmedDeliveryException(request.method() + " " + request.url().pathSegments().getLast()
+                    + " was sent to " + request.url().host() + ", but no response came within the read timeout", e);
+        }
+    }
+
+    /**
+     * Request body that remembers whether it was written in full.
+     */
+    private static class TrackedBody extends RequestBody {
+
+        private final RequestBody body;
+        private final AtomicBoolean sent;
+
+        TrackedBody(final RequestBody body, final AtomicBoolean sent) {
+            this.body = body;
+            this.sent = sent;
+        }
+
+        @Override
+        public MediaType contentType() {
+            return body.contentType();
+        }
+
+        @Override
+        public long contentLength() throws IOException {
+            return body.contentLength();
+        }
+
+        @Override
+        public boolean isOneShot() {
+            return body.isOneShot();
+        }
+
+        @Override
+        public void writeTo(final BufferedSink sink) throws IOException {
+            body.writeTo(sink);
+            sink.flush();
+            sent.set(true);
+        }
+    }
+}
@@ -0,0 +1,299 @@
+package dev.dobicinaitis.feedreader.http;
+
+import dev.dobicinaitis.feedreader.concurrency.AimdLimiter;
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
+import dev.dobicinaitis.feedreader.exceptions.HostUnavailableException;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.failsafe.Bulkhead;
+import dev.failsafe.BulkheadFullException;
+import dev.failsafe.CircuitBreaker;
+import dev.failsafe.CircuitBreakerOpenException;
+import dev.failsafe.Failsafe;
+import dev.failsafe.FailsafeException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.CONNECT_TIMEOUT;
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.READ_TIMEOUT;
+
+/**
+ * Per-host circuit breakers and bulkheads around all outbound calls.
+ * <p>
+ * After {@link #FAILURE_THRESHOLD} failures in a row, i.e. I/O errors before the time budget is used up or 5xx
+ * responses, the breaker of a host opens and calls to the host fail right away with a {@link HostUnavailableException},
+ * so that callers fall back to their defaults instead of waiting for timeouts and retries. After {@link #OPEN_DELAY} a single trial call is let through,
+ * the calls that arrive meanwhile wait for its outcome. The bulkhead caps the number of concurrent calls to a host.
+ * <p>
+ * Breakers that are still open at the end of a run are saved to the status file and restored by the next run,
+ * see {@link #getTrippedHosts()} and {@link #restore(Map)}.
+ */
+@Slf4j
+public class UpstreamGuard {
+
+    public static final int FAILURE_THRESHOLD = 5;
+    public static final Duration OPEN_DELAY = Duration.ofMinutes(2);
+    private static final int DEFAULT_MAX_CONCURRENCY_PER_HOST = 8;
+
+    private static final Map<String, Guard> GUARDS = new ConcurrentHashMap<>();
+    // host -> epoch milliseconds until which a breaker restored from a previous run stays open; the breaker itself
+    // can only be opened for the full delay, so the rest of the open period is enforced here
+    private static final Map<String, Long> RESTORED_OPEN_UNTIL = new ConcurrentHashMap<>();
+    private static volatile int maxConcurrencyPerHost = DEFAULT_MAX_CONCURRENCY_PER_HOST;
+
+    private UpstreamGuard() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Forgets all breaker states and sets the bulkhead size, used at the start of every run.
+     *
+     * @param maxConcurrency maximum number of concurrent calls to the same host
+     */
+    public static void reset(final int maxConcurrency) {
+        GUARDS.clear();
+        RESTORED_OPEN_UNTIL.clear();
+        maxConcurrencyPerHost = maxConcurrency;
+    }
+
+    /**
+     * Executes a call through the circuit breaker and the bulkhead of its host.
+     *
+     * @param url  URL to call
+     * @param call the call
+     * @return response
+     * @throws HostUnavailableException if the breaker is open or no bulkhead permit became available in time
+     * @throws IOException              if the call failed
+     */
+    public static FetchedResponse execute(final String url, final HttpTraffic.LiveExchange call) throws IOException {
+        final String host = getHostKey(url);
+        final Guard guard = GUARDS.computeIfAbsent(host, UpstreamGuard::createGuard);
+        checkRestoredOpenPeriod(host);
+        if (isTrialDue(guard.breaker())) {
+            return executeDuringTrial(url, host, guard, call);
+        }
+        return executeGuarded(url, host, guard, call);
+    }
+
+    /**
+     * Executes a call while its host is due for a trial call. The half-open breaker lets a single call through and
+     * would reject the others, although the host may well be back. So the calls take turns: the first one is the trial
+     * call, the others wait for its outcome and go ahead once it closed the breaker, or are rejected if it opened the
+     * breaker again.
+     *
+     * @param url   URL to call
+     * @param host  host key
+     * @param guard breaker and bulkhead of the host
+     * @param call  the call
+     * @return response
+     * @throws HostUnavailableException if the breaker is open again or the trial call took too long
+     * @throws IOException              if the call failed
+     */
+    private static FetchedResponse executeDuringTrial(final String url, final String host, final Guard guard,
+                                                      final HttpTraffic.LiveExchange call) throws IOException {
+        try {
+            // a trial call takes at most a connect and a read timeout
+            if (!guard.trial().tryAcquire(Deadline.cap(CONNECT_TIMEOUT.plus(READ_TIMEOUT)).toNanos(), TimeUnit.NANOSECONDS)) {
+                Metrics.increment(Counter.UPSTREAM_REJECTIONS);
+                throw new HostUnavailableException("Trial call to " + host + " is still running", null);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the trial call to " + host);
+        }
+        if (!isTrialDue(guard.breaker())) {
+            // the trial call is over, the breaker is closed or open again
+            guard.trial().release();
+            return executeGuarded(url, host, guard, call);
+        }
+        try {
+            return executeGuarded(url, host, guard, call);
+        } finally {
+            guard.trial().release();
+        }
+    }
+
+    /**
+     * Executes a call through the circuit breaker and the bulkhead of its host.
+     *
+     * @param url   URL to call
+     * @param host  host key
+     * @param guard breaker and bulkhead of the host
+     * @param call  the call
+     * @return response
+     * @throws HostUnavailableException if the breaker is open or no bulkhead permit became available in time
+     * @throws IOException              if the call failed
+     */
+    private static FetchedResponse executeGuarded(final String url, final String host, final Guard guard,
+                                                  final HttpTraffic.LiveExchange call) throws IOException {
+        try {
+            return Failsafe.with(guard.breaker(), guard.bulkhead()).get(() -> executeSampled(url, call));
+        } catch (CircuitBreakerOpenException e) {
+            Metrics.increment(Counter.UPSTREAM_REJECTIONS);
+            throw new HostUnavailableException("Circuit breaker for " + host + " is open", e);
+        } catch (BulkheadFullException e) {
+            Metrics.increment(Counter.UPSTREAM_REJECTIONS);
+            throw new HostUnavailableException("Too many concurrent calls to " + host, e);
+        } catch (FailsafeException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Executes a call that got past the breaker and the bulkhead, and reports its latency to the concurrency limiter,
+     * see {@link AimdLimiter}. Rejected calls, failures past the time budget and the time spent waiting for the bulkhead
+     * are not reported, as they say nothing about how the host copes.
+     *
+     * @param url  URL to call
+     * @param call the call
+     * @return response
+     * @throws IOException if the call failed
+     */
+    private static FetchedResponse executeSampled(final String url, final HttpTraffic.LiveExchange call) throws IOException {
+        final long startTime = System.nanoTime();
+        final FetchedResponse response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            if (isHostFailure(e)) {
+                AimdLimiter.recordSample(url, System.nanoTime() - startTime, true);
+            }
+            throw e;
+        }
+        AimdLimiter.recordSample(url, System.nanoTime() - startTime, response.getStatusCode() >= 500);
+        return response;
+    }
+
+    /**
+     * Returns true if a failed call counts against its host. One that fails once the time budget is used up doesn't:
+     * its timeouts were shortened to the rest of the budget, so they only fire once it has run out, and every call
+     * still in flight fails along with it.
+     *
+     * @param failure failure of the call
+     * @return true if the failure counts against the host
+     */
+    private static boolean isHostFailure(final Throwable failure) {
+        return failure instanceof IOException && !Deadline.isExpired();
+    }
+
+    /**
+     * Returns true if the next call to a host is a trial call: its breaker is half-open, or open with the delay over,
+     * which turns it half-open on the next call.
+     *
+     * @param breaker circuit breaker of the host
+     * @return true if a trial call is due
+     */
+    private static boolean isTrialDue(final CircuitBreaker<FetchedResponse> breaker) {
+        return breaker.isHalfOpen() || (breaker.isOpen() && breaker.getRemainingDelay().isZero());
+    }
+
+    /**
+     * Returns the hosts whose circuit breaker is open. Half-open breakers are left out, their open period is over
+     * and a trial call decides about them, which the next run can do as well.
+     *
+     * @return host -> epoch milliseconds until which the breaker stays open
+     */
+    public static Map<String, Long> getTrippedHosts() {
+        final Map<String, Long> trippedHosts = new HashMap<>();
+        final long now = System.currentTimeMillis();
+        GUARDS.forEach((host, guard) -> {
+            final Long restoredOpenUntil = RESTORED_OPEN_UNTIL.get(host);
+            if (restoredOpenUntil != null && restoredOpenUntil > now) {
+                trippedHosts.put(host, restoredOpenUntil);
+            } else if (guard.breaker().isOpen() && !guard.breaker().getRemainingDelay().isZero()) {
+                trippedHosts.put(host, now + guard.breaker().getRemainingDelay().toMillis());
+            }
+        });
+        return trippedHosts;
+    }
+
+    /**
+     * Restores the breakers that were tripped in a previous run. Breakers stay open only for the rest of the open
+     * period of the previous run, not for a full {@link #OPEN_DELAY}. Once it is over they are half-open, so that
+     * a single failed call opens them again. Breakers whose open period is already over are not restored.
+     *
+     * @param trippedHosts host -> epoch milliseconds until which the breaker stays open
+     */
+    public static void restore(final Map<String, Long> trippedHosts) {
+        if (trippedHosts == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        trippedHosts.forEach((host, openUntil) -> {
+            if (openUntil == null || openUntil <= now) {
+                return;
+            }
+            GUARDS.computeIfAbsent(host, UpstreamGuard::createGuard).breaker().halfOpen();
+            log.info("Circuit breaker for {} was opened by a previous run, keeping it open for {} s.",
+                    host, Duration.ofMillis(openUntil - now).toSeconds());
+            RESTORED_OPEN_UNTIL.put(host, openUntil);
+        });
+    }
+
+    /**
+     * Rejects calls to a host while the open period restored from a previous run lasts.
+     *
+     * @param host host key
+     * @throws HostUnavailableException if the restored open period is not over yet
+     */
+    private static void checkRestoredOpenPeriod(final String host) throws HostUnavailableException {
+        final Long openUntil = RESTORED_OPEN_UNTIL.get(host);
+        if (openUntil == null) {
+            return;
+        }
+        if (System.currentTimeMillis() < openUntil) {
+            Metrics.increment(Counter.UPSTREAM_REJECTIONS);
+            throw new HostUnavailableException("Circuit breaker for " + host + " is open", null);
+        }
+        // the breaker is half-open, the next call is its trial call
+        RESTORED_OPEN_UNTIL.remove(host, openUntil);
+    }
+
+    /**
+     * Returns the host and port of a URL, so that services on the same host but different ports are guarded separately.
+     *
+     * @param url URL
+     * @return host key, or an empty string if the URL is invalid
+     */
+    protected static String getHostKey(final String url) {
+        try {
+            return new URL(url).getAuthority();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
+    private static Guard createGuard(final String host) {
+        final CircuitBreaker<FetchedResponse> breaker = CircuitBreaker.<FetchedResponse>builder()
+                .handleIf(UpstreamGuard::isHostFailure)
+                .handleResultIf(response -> response.getStatusCode() >= 500)
+                .withFailureThreshold(FAILURE_THRESHOLD)
+                // a single trial call decides whether a half-open breaker closes or opens again
+                .withSuccessThreshold(1)
+                .withDelay(OPEN_DELAY)
+                .onOpen(e -> log.warn("Circuit breaker for {} opened, calls to it will fail fast.", host))
+                .onClose(e -> log.info("Circuit breaker for {} closed.", host))
+                .build();
+        final Bulkhead<FetchedResponse> bulkhead = Bulkhead.<FetchedResponse>builder(maxConcurrencyPerHost)
+                .withMaxWaitTime(READ_TIMEOUT)
+                .build();
+        return new Guard(breaker, bulkhead, new Semaphore(1));
+    }
+
+    // trial is held by the call that decides whether a half-open breaker closes
+    private record Guard(CircuitBreaker<FetchedResponse> breaker, Bulkhead<FetchedResponse> bulkhead, Semaphore trial) {
+    }
+}
@@ -0,0 +1,15 @@
+package dev.dobicinaitis.feedreader.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Lookup caches and indexes of the sync pipeline whose hit ratio is tracked.
+ */
+@AllArgsConstructor
+@Getter
+public enum Cache {
+    ARCHIVE("archive");
+
+    private final String label;
+}
@@ -0,0 +1,24 @@
+package dev.dobicinaitis.feedreader.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Event counters of the sync pipeline.
+ */
+@AllArgsConstructor
+@Getter
+public enum Counter {
+    RETRIES("feedreader_retries_total", "Number of retried actions."),
+    ARTICLES_POSTED("feedreader_articles_posted_total", "Number of articles posted to Telegram."),
+    ARTICLES_FAILED("feedreader_articles_failed_total", "Number of articles that could not be posted to Telegram."),
+    ARTICLES_EDITED("feedreader_articles_edited_total", "Number of edited Telegram messages."),
+    FEED_HEDGED_REQUESTS("feedreader_feed_hedged_requests_total", "Number of hedged RSS feed requests."),
+    CONCURRENCY_LIMIT_INCREASES("feedreader_concurrency_limit_increases_total", "Number of times a per-host concurrency limit was raised."),
+    CONCURRENCY_LIMIT_DECREASES("feedreader_concurrency_limit_decreases_total", "Number of times a per-host concurrency limit was cut."),
+    COALESCED_CALLS("feedreader_coalesced_calls_total", "Number of calls that waited for an identical call already in flight instead of making their own."),
+    UPSTREAM_REJECTIONS("feedreader_upstream_rejections_total", "Number of outbound calls rejected by an open circuit breaker or a full bulkhead.");
+
+    private final String metricName;
+    private final String description;
+}
@@ -0,0 +1,237 @@
+package dev.dobicinaitis.feedreader.metrics;
+
+import lombok.Getter;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide registry of stage timers and event counters.
+ * <p>
+ * Stage latencies are kept in HDR histograms with microsecond resolution and three significant digits,
+ * so percentiles stay accurate for both sub-millisecond parsing and multi-second network calls.
+ */
+public final class Metrics {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+    private static final Map<Stage, StageTimer> TIMERS = new EnumMap<>(Stage.class);
+    private static final Map<Counter, LongAdder> COUNTERS = new EnumMap<>(Counter.class);
+    private static final StageTimer FRESHNESS_LAG = new StageTimer();
+    private static final Map<Cache, LongAdder> CACHE_HITS = new EnumMap<>(Cache.class);
+    private static final Map<Cache, LongAdder> CACHE_MISSES = new EnumMap<>(Cache.class);
+    private static final Map<String, Integer> CONCURRENCY_LIMITS = new ConcurrentHashMap<>();
+
+    static {
+        for (Stage stage : Stage.values()) {
+            TIMERS.put(stage, new StageTimer());
+        }
+        for (Counter counter : Counter.values()) {
+            COUNTERS.put(counter, new LongAdder());
+        }
+        for (Cache cache : Cache.values()) {
+            CACHE_HITS.put(cache, new LongAdder());
+            CACHE_MISSES.put(cache, new LongAdder());
+        }
+    }
+
+    private Metrics() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Records the duration of a stage that started at the given {@link System#nanoTime()} value.
+     *
+     * @param stage          stage
+     * @param startNanoTime  stage start time
+     */
+    public static void record(final Stage stage, final long startNanoTime) {
+        recordNanos(stage, System.nanoTime() - startNanoTime);
+    }
+
+    /**
+     * Records the duration of a stage.
+     *
+     * @param stage stage
+     * @param nanos stage duration in nanoseconds
+     */
+    public static void recordNanos(final Stage stage, final long nanos) {
+        TIMERS.get(stage).record(Math.max(0, nanos));
+    }
+
+    /**
+     * Records the number of bytes transferred by a stage.
+     *
+     * @param stage stage
+     * @param bytes transferred bytes
+     */
+    public static void recordBytes(final Stage stage, final long bytes) {
+        TIMERS.get(stage).getBytes().add(bytes);
+    }
+
+    /**
+     * Increments a counter by one.
+     *
+     * @param counter counter
+     */
+    public static void increment(final Counter counter) {
+        COUNTERS.get(counter).increment();
+    }
+
+    /**
+     * Returns the timer of a stage.
+     *
+     * @param stage stage
+     * @return stage timer
+     */
+    public static StageTimer getTimer(final Stage stage) {
+        return TIMERS.get(stage);
+    }
+
+    /**
+     * Returns the current value of a counter.
+     *
+     * @param counter counter
+     * @return counter value
+     */
+    public static long getCount(final Counter counter) {
+        return COUNTERS.get(counter).sum();
+    }
+
+    /**
+     * Records a cache lookup.
+     *
+     * @param cache cache
+     * @param hit   whether the looked up value was found
+     */
+    public static void recordCacheLookup(final Cache cache, final boolean hit) {
+        (hit ? CACHE_HITS : CACHE_MISSES).get(cache).increment();
+    }
+
+    /**
+     * Returns the number of cache lookups with the given result.
+     *
+     * @param cache cache
+     * @param hit   true for hits, false for misses
+     * @return lookup count
+     */
+    public static long getCacheLookups(final Cache cache, final boolean hit) {
+        return (hit ? CACHE_HITS : CACHE_MISSES).get(cache).sum();
+    }
+
+    /**
+     * Returns the share of cache lookups that were hits.
+     *
+     * @param cache cache
+     * @return hit ratio between 0 and 1, or null if the cache was not used
+     */
+    public static Double getCacheHitRatio(final Cache cache) {
+        final long hits = getCacheLookups(cache, true);
+        final long total = hits + getCacheLookups(cache, false);
+        return total == 0 ? null : (double) hits / total;
+    }
+
+    /**
+     * Replaces the publication-to-post lag summary with the given samples.
+     *
+     * @param lagSeconds lag of recently posted articles in seconds
+     */
+    public static synchronized void setFreshnessLag(final Collection<Long> lagSeconds) {
+        FRESHNESS_LAG.reset();
+        lagSeconds.forEach(seconds -> FRESHNESS_LAG.record(TimeUnit.SECONDS.toNanos(seconds)));
+    }
+
+    /**
+     * Returns the publication-to-post lag summary of recently posted articles.
+     *
+     * @return lag summary
+     */
+    public static StageTimer getFreshnessLag() {
+        return FRESHNESS_LAG;
+    }
+
+    /**
+     * Sets the current concurrency limit of a host.
+     *
+     * @param host  host name
+     * @param limit number of requests allowed in flight
+     */
+    public static void setConcurrencyLimit(final String host, final int limit) {
+        CONCURRENCY_LIMITS.put(host, limit);
+    }
+
+    /**
+     * Returns the current concurrency limits.
+     *
+     * @return host name -> number of requests allowed in flight, sorted by host name
+     */
+    public static Map<String, Integer> getConcurrencyLimits() {
+        return new TreeMap<>(CONCURRENCY_LIMITS);
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public static void reset() {
+        TIMERS.values().forEach(StageTimer::reset);
+        COUNTERS.values().forEach(LongAdder::reset);
+        FRESHNESS_LAG.reset();
+        CACHE_HITS.values().forEach(LongAdder::reset);
+        CACHE_MISSES.values().forEach(LongAdder::reset);
+        CONCURRENCY_LIMITS.clear();
+    }
+
+    /**
+     * Latency histogram, total duration and transferred bytes of a single stage.
+     */
+    public static class StageTimer {
+
+        private final Histogram histogram = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+        private final LongAdder totalNanos = new LongAdder();
+        @Getter
+        private final LongAdder bytes = new LongAdder();
+
+        void record(long nanos) {
+            histogram.recordValue(TimeUnit.NANOSECONDS.toMicros(nanos));
+            totalNanos.add(nanos);
+        }
+
+        void reset() {
+            histogram.reset();
+            totalNanos.reset();
+            bytes.reset();
+        }
+
+        public long getCount() {
+            return histogram.getTotalCount();
+        }
+
+        public double getTotalSeconds() {
+            return totalNanos.sum() / 1e9;
+        }
+
+        public double getMaxSeconds() {
+            return histogram.getTotalCount() == 0 ? 0 : histogram.getMaxValue() / 1e6;
+        }
+
+        /**
+         * Returns the duration at the given percentile.
+         *
+         * @param percentile percentile, e.g. 99.0
+         * @return duration in seconds
+         */
+        public double getPercentileSeconds(double percentile) {
+            return histogram.getValueAtPercentile(percentile) / 1e6;
+        }
+
+        public long getBytesTotal() {
+            return bytes.sum();
+        }
+    }
+}
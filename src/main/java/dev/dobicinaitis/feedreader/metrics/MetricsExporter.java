@@ -0,0 +1,83 @@
+package dev.dobicinaitis.feedreader.metrics;
+
+import com.sun.net.httpserver.HttpServer;
+import dev.dobicinaitis.feedreader.util.FileUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Exports metrics in the Prometheus text format, either to a file for the node exporter textfile collector,
+ * or via an HTTP endpoint that is available for as long as the application is running.
+ */
+@Slf4j
+public class MetricsExporter implements AutoCloseable {
+
+    public static final String DEFAULT_ADDRESS = "127.0.0.1";
+    private static final String METRICS_PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final File textFile;
+    private final HttpServer server;
+
+    private MetricsExporter(File textFile, HttpServer server) {
+        this.textFile = textFile;
+        this.server = server;
+    }
+
+    /**
+     * Starts exporting metrics.
+     *
+     * @param textFile file to write metrics to when the exporter is closed, or null
+     * @param address  address to serve metrics on, null for loopback
+     * @param port     port to serve metrics on, or null
+     * @return metrics exporter
+     * @throws IOException if the HTTP endpoint could not be started
+     */
+    public static MetricsExporter start(final File textFile, final String address, final Integer port) throws IOException {
+        HttpServer server = null;
+        if (port != null) {
+            server = HttpServer.create(new InetSocketAddress(address != null ? address : DEFAULT_ADDRESS, port), 0);
+            server.createContext(METRICS_PATH, exchange -> {
+                final byte[] body = PrometheusFormatter.format().getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream responseBody = exchange.getResponseBody()) {
+                    responseBody.write(body);
+                }
+            });
+            server.start();
+            final InetSocketAddress boundAddress = server.getAddress();
+            log.info("Serving metrics on http://{}:{}{}", boundAddress.getAddress().getHostAddress(), boundAddress.getPort(), METRICS_PATH);
+        }
+        return new MetricsExporter(textFile, server);
+    }
+
+    /**
+     * Writes the current metrics to the configured text file.
+     */
+    public void writeTextFile() {
+        if (textFile == null) {
+            return;
+        }
+        try {
+            // the textfile collector may read at any time, so the file must be replaced atomically
+            FileUtils.writeAtomically(textFile.toPath(), PrometheusFormatter.format().getBytes(StandardCharsets.UTF_8));
+            log.debug("Metrics written to {}", textFile.getAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to write metrics to file {}", textFile.getAbsolutePath(), e);
+        }
+    }
+
+    @Override
+    public void close() {
+        writeTextFile();
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+}
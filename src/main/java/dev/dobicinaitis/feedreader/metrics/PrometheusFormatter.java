@@ -0,0 +1,96 @@
+package dev.dobicinaitis.feedreader.metrics;
+
+import java.util.Locale;
+
+/**
+ * Renders the metrics registry in the Prometheus text exposition format.
+ */
+public final class PrometheusFormatter {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final String DURATION_METRIC = "feedreader_stage_duration_seconds";
+    private static final String DURATION_MAX_METRIC = "feedreader_stage_duration_max_seconds";
+    private static final String BYTES_METRIC = "feedreader_stage_bytes_total";
+    private static final double[] FRESHNESS_LAG_QUANTILES = {0.5, 0.95};
+    private static final String FRESHNESS_LAG_METRIC = "feedreader_freshness_lag_seconds";
+    private static final String FRESHNESS_LAG_MAX_METRIC = "feedreader_freshness_lag_max_seconds";
+    private static final String CACHE_LOOKUPS_METRIC = "feedreader_cache_lookups_total";
+    private static final String CONCURRENCY_LIMIT_METRIC = "feedreader_concurrency_limit";
+
+    private PrometheusFormatter() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Formats all metrics.
+     *
+     * @return metrics in the Prometheus text format
+     */
+    public static String format() {
+        final StringBuilder output = new StringBuilder();
+
+        header(output, DURATION_METRIC, "summary", "Duration of sync pipeline stages.");
+        for (Stage stage : Stage.values()) {
+            final Metrics.StageTimer timer = Metrics.getTimer(stage);
+            for (double quantile : QUANTILES) {
+                sample(output, DURATION_METRIC, "stage=\"%s\",quantile=\"%s\"".formatted(stage.getLabel(), quantile),
+                        timer.getPercentileSeconds(quantile * 100));
+            }
+            sample(output, DURATION_METRIC + "_sum", stageLabel(stage), timer.getTotalSeconds());
+            sample(output, DURATION_METRIC + "_count", stageLabel(stage), timer.getCount());
+        }
+
+        header(output, DURATION_MAX_METRIC, "gauge", "Longest observed duration of sync pipeline stages.");
+        for (Stage stage : Stage.values()) {
+            sample(output, DURATION_MAX_METRIC, stageLabel(stage), Metrics.getTimer(stage).getMaxSeconds());
+        }
+
+        header(output, BYTES_METRIC, "counter", "Bytes transferred by sync pipeline stages.");
+        for (Stage stage : Stage.values()) {
+            sample(output, BYTES_METRIC, stageLabel(stage), Metrics.getTimer(stage).getBytesTotal());
+        }
+
+        final Metrics.StageTimer freshnessLag = Metrics.getFreshnessLag();
+        header(output, FRESHNESS_LAG_METRIC, "summary", "Time from publication in the RSS feed to posting in Telegram, over recently posted articles.");
+        for (double quantile : FRESHNESS_LAG_QUANTILES) {
+            sample(output, FRESHNESS_LAG_METRIC, "quantile=\"%s\"".formatted(quantile), freshnessLag.getPercentileSeconds(quantile * 100));
+        }
+        sample(output, FRESHNESS_LAG_METRIC + "_sum", null, freshnessLag.getTotalSeconds());
+        sample(output, FRESHNESS_LAG_METRIC + "_count", null, freshnessLag.getCount());
+        header(output, FRESHNESS_LAG_MAX_METRIC, "gauge", "Longest time from publication to posting over recently posted articles.");
+        sample(output, FRESHNESS_LAG_MAX_METRIC, null, freshnessLag.getMaxSeconds());
+
+        header(output, CACHE_LOOKUPS_METRIC, "counter", "Cache and index lookups by result.");
+        for (Cache cache : Cache.values()) {
+            sample(output, CACHE_LOOKUPS_METRIC, "cache=\"%s\",result=\"hit\"".formatted(cache.getLabel()), Metrics.getCacheLookups(cache, true));
+            sample(output, CACHE_LOOKUPS_METRIC, "cache=\"%s\",result=\"miss\"".formatted(cache.getLabel()), Metrics.getCacheLookups(cache, false));
+        }
+
+        header(output, CONCURRENCY_LIMIT_METRIC, "gauge", "Adaptive number of concurrent requests allowed per host.");
+        Metrics.getConcurrencyLimits().forEach((host, limit) ->
+                sample(output, CONCURRENCY_LIMIT_METRIC, "host=\"%s\"".formatted(host), limit));
+
+        for (Counter counter : Counter.values()) {
+            header(output, counter.getMetricName(), "counter", counter.getDescription());
+            sample(output, counter.getMetricName(), null, Metrics.getCount(counter));
+        }
+        return output.toString();
+    }
+
+    private static String stageLabel(Stage stage) {
+        return "stage=\"" + stage.getLabel() + "\"";
+    }
+
+    private static void header(StringBuilder output, String name, String type, String help) {
+        output.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        output.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder output, String name, String labels, double value) {
+        output.append(name);
+        if (labels != null) {
+            output.append('{').append(labels).append('}');
+        }
+        output.append(' ').append(String.format(Locale.ROOT, "%s", value)).append('\n');
+    }
+}
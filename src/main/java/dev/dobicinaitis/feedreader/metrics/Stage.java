@@ -0,0 +1,24 @@
+package dev.dobicinaitis.feedreader.metrics;
+
+/**
+ * Timed stages of the sync pipeline.
+ */
+public enum Stage {
+    FEED_FETCH,
+    FEED_PARSE,
+    ITEM_CONVERSION,
+    REDIRECT_RESOLUTION,
+    PAYWALL_CHECK,
+    IMAGE_DOWNLOAD,
+    TELEGRAM_SEND,
+    RATE_LIMIT_WAIT;
+
+    /**
+     * Returns the stage name used in metric labels.
+     *
+     * @return lowercase stage name
+     */
+    public String getLabel() {
+        return name().toLowerCase();
+    }
+}
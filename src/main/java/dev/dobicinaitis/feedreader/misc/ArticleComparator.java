@@ -2,7 +2,6 @@ package dev.dobicinaitis.feedreader.misc;
 
 import dev.dobicinaitis.feedreader.dto.Article;
 
-import java.time.Instant;
 import java.util.Comparator;
 
 /**
@@ -15,20 +14,27 @@ public final class ArticleComparator {
     }
 
     /**
-     * Comparator for sorting Articles on publication date in ascending order (oldest first)
+     * Comparator for sorting Articles on publication date in ascending order (oldest first),
+     * articles without a publication date are sorted as if published at the epoch
      * @param <I> any class that extend Article
      * @return comparator
      */
     public static <I extends Article> Comparator<I> oldestArticleFirst() {
-        return Comparator.comparing((I i) -> i == null ? Instant.EPOCH : i.getPublicationDate().toInstant());
+        return Comparator.comparingLong((I i) -> getSortKey(i));
     }
 
     /**
-     * Comparator for sorting Articles on publication date in descending order (newest first)
+     * Comparator for sorting Articles on publication date in descending order (newest first),
+     * articles without a publication date are sorted as if published at the epoch
      * @param <I> any class that extend Article
      * @return comparator
      */
     public static <I extends Article> Comparator<I> newestArticleFirst() {
-        return Comparator.comparing((I i) -> i == null ? Instant.EPOCH : i.getPublicationDate().toInstant()).reversed();
+        return Comparator.comparingLong((I i) -> getSortKey(i)).reversed();
     }
-}
\ No newline at end of file
+
+    private static long getSortKey(final Article article) {
+        // pre-computed, so that sorting doesn't convert dates on every comparison
+        return article == null ? 0 : article.getPublicationEpochMillis();
+    }
+}
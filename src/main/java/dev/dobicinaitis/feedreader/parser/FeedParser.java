@@ -0,0 +1,11 @@
+package dev.dobicinaitis.feedreader.parser;
+
+/**
+ * Supported RSS feed parsers.
+ */
+public enum FeedParser {
+    // rssreader library, reads every element of an item
+    RSSREADER,
+    // in-house streaming parser, reads only the elements articles are made of
+    STAX
+}
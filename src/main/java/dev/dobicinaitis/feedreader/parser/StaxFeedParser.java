@@ -0,0 +1,216 @@
+package dev.dobicinaitis.feedreader.parser;
+
+import com.apptasticsoftware.rssreader.DateTime;
+import com.apptasticsoftware.rssreader.Item;
+import dev.dobicinaitis.feedreader.dto.Article;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming RSS 2.0 parser that reads only the item elements articles are made of: title, description, link, guid,
+ * publication date, categories and the image enclosure.
+ * <p>
+ * Every other element is skipped without its text being copied, and the text of the elements that are read is
+ * collected in a single reused buffer, so that one string is created per field. Values are trimmed and an item
+ * without a guid gets its link as guid, like the rssreader based conversion does. Element names are matched with
+ * their prefix, e.g. media:title is not a title.
+ * <p>
+ * Not thread-safe, every thread needs a parser of its own.
+ */
+@Slf4j
+public class StaxFeedParser {
+
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+    // parses the dates the fast path doesn't understand, the same way rssreader does
+    private static final DateTime DATE_TIME = new DateTime();
+
+    private final StringBuilder text = new StringBuilder(1024);
+
+    /**
+     * Parses the items of an RSS feed.
+     *
+     * @param feed RSS feed content
+     * @return modifiable list of articles in feed order, with the raw title, which is null if the item has none
+     * @throws XMLStreamException if the feed is not well-formed XML
+     */
+    public List<Article> parse(final InputStream feed) throws XMLStreamException {
+        final XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(feed);
+        try {
+            final List<Article> articles = new ArrayList<>();
+            while (reader.hasNext()) {
+                if (reader.next() == XMLStreamConstants.START_ELEMENT && "item".equals(reader.getLocalName())) {
+                    articles.add(readItem(reader));
+                }
+            }
+            return articles;
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Reads an item, the reader is positioned at its start tag and is left at its end tag.
+     *
+     * @param reader XML reader
+     * @return article
+     * @throws XMLStreamException if the item is not well-formed
+     */
+    private Article readItem(final XMLStreamReader reader) throws XMLStreamException {
+        String title = null;
+        String description = "";
+        String link = "";
+        String guid = null;
+        String imageUrl = "";
+        ZonedDateTime publicationDate = null;
+        boolean enclosureRead = false;
+        final List<String> categories = new ArrayList<>();
+        while (reader.next() != XMLStreamConstants.END_ELEMENT) {
+            if (reader.getEventType() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (reader.getLocalName()) {
+                case "title" -> title = readText(reader, title);
+                case "description" -> description = readText(reader, description);
+                case "link" -> link = readText(reader, link);
+                case "guid" -> guid = readText(reader, guid);
+                case "pubDate" -> publicationDate = parseDate(readText(reader, null), publicationDate);
+                case "category" -> {
+                    final String category = readText(reader, null);
+                    if (category != null) {
+                        categories.add(category);
+                    }
+                }
+                case "enclosure" -> {
+                    // only the first enclosure is considered, like in the rssreader based conversion
+                    if (!enclosureRead) {
+                        enclosureRead = true;
+                        imageUrl = readImageUrl(reader);
+                    }
+                    skipElement(reader);
+                }
+                default -> skipElement(reader);
+            }
+        }
+        return Article.builder()
+                .guid(guid != null ? guid : link)
+                .title(title)
+                .description(description)
+                .link(link)
+                .imageUrl(imageUrl)
+                .categories(categories)
+                .publicationDate(publicationDate)
+                .build();
+    }
+
+    /**
+     * Reads the text of an element, including the text of nested elements, and leaves the reader at its end tag.
+     *
+     * @param reader       XML reader positioned at the start tag
+     * @param defaultValue value to return if the element has no text
+     * @return trimmed text
+     * @throws XMLStreamException if the element is not well-formed
+     */
+    private String readText(final XMLStreamReader reader, final String defaultValue) throws XMLStreamException {
+        text.setLength(0);
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                // copied straight from the reader's buffer, without a string per event
+                case XMLStreamConstants.CHARACTERS, XMLStreamConstants.CDATA, XMLStreamConstants.SPACE ->
+                        text.append(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                default -> {
+                    // comments and processing instructions are not part of the text
+                }
+            }
+        }
+        int start = 0;
+        int end = text.length();
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return start == end ? defaultValue : text.substring(start, end);
+    }
+
+    /**
+     * Skips an element with everything in it and leaves the reader at its end tag.
+     *
+     * @param reader XML reader positioned at the start tag
+     * @throws XMLStreamException if the element is not well-formed
+     */
+    private static void skipElement(final XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT -> depth++;
+                case XMLStreamConstants.END_ELEMENT -> depth--;
+                default -> {
+                    // text of skipped elements is never copied
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the URL of an image enclosure.
+     *
+     * @param reader XML reader positioned at the enclosure start tag
+     * @return image URL, or an empty string if the enclosure is not an image
+     */
+    private static String readImageUrl(final XMLStreamReader reader) {
+        final String type = reader.getAttributeValue(null, "type");
+        final String url = reader.getAttributeValue(null, "url");
+        return type != null && type.contains("image") && url != null ? url : "";
+    }
+
+    /**
+     * Parses a publication date, RFC 1123 dates as used by RSS 2.0 directly and other formats with rssreader.
+     *
+     * @param value        date text
+     * @param defaultValue value to return if there is no date or it can't be parsed
+     * @return publication date
+     */
+    private static ZonedDateTime parseDate(final String value, final ZonedDateTime defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            final Item item = new Item(DATE_TIME);
+            item.setPubDate(value);
+            final ZonedDateTime publicationDate = item.getPubDateZonedDateTime().orElse(null);
+            if (publicationDate == null) {
+                log.debug("Could not parse publication date '{}'.", value);
+                return defaultValue;
+            }
+            return publicationDate;
+        }
+    }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        final XMLInputFactory factory = XMLInputFactory.newFactory();
+        // element names are matched with their prefix, like rssreader does, so namespaces needn't be resolved
+        factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+        // text is collected in the parser's own buffer, coalescing would only copy it once more
+        factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        // a feed has no business with a DTD or external entities
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+}
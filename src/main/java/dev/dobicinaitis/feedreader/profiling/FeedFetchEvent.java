@@ -0,0 +1,27 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("dev.dobicinaitis.feedreader.FeedFetch")
+@Label("Feed Fetch")
+@Description("Download of the RSS feed.")
+@Setter
+public class FeedFetchEvent extends SyncEvent {
+
+    @Label("Host")
+    private String host;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Status Code")
+    private int statusCode;
+
+    @Label("Hedged")
+    private boolean hedged;
+}
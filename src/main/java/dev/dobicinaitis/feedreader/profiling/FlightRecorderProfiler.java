@@ -0,0 +1,65 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.text.ParseException;
+
+/**
+ * Records a JDK Flight Recorder profile of a sync run, including the custom sync pipeline events.
+ * The recording is written to the given file when the profiler is closed.
+ */
+@Slf4j
+public class FlightRecorderProfiler implements AutoCloseable {
+
+    private static final String CONFIGURATION = "profile";
+
+    private final File outputFile;
+    private final Recording recording;
+
+    private FlightRecorderProfiler(File outputFile, Recording recording) {
+        this.outputFile = outputFile;
+        this.recording = recording;
+    }
+
+    /**
+     * Starts a recording.
+     *
+     * @param outputFile file to dump the recording to, or null to not record anything
+     * @return profiler
+     */
+    public static FlightRecorderProfiler start(final File outputFile) {
+        if (outputFile == null) {
+            return new FlightRecorderProfiler(null, null);
+        }
+        try {
+            final Recording recording = new Recording(Configuration.getConfiguration(CONFIGURATION));
+            recording.setName("apollo-lv-to-telegram sync");
+            recording.start();
+            log.info("Started Flight Recorder profiling, the recording will be saved to {}", outputFile.getAbsolutePath());
+            return new FlightRecorderProfiler(outputFile, recording);
+        } catch (IOException | ParseException | IllegalStateException | SecurityException e) {
+            log.error("Failed to start Flight Recorder profiling: {}", e.getMessage());
+            return new FlightRecorderProfiler(null, null);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (recording == null) {
+            return;
+        }
+        try {
+            recording.stop();
+            recording.dump(outputFile.toPath());
+            log.info("Flight Recorder profile saved to {}", outputFile.getAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to save Flight Recorder profile to {}", outputFile.getAbsolutePath(), e);
+        } finally {
+            recording.close();
+        }
+    }
+}
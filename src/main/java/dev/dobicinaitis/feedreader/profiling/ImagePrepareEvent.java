@@ -0,0 +1,21 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("dev.dobicinaitis.feedreader.ImagePrepare")
+@Label("Image Prepare")
+@Description("Download of an article image before it is sent to Telegram.")
+@Setter
+public class ImagePrepareEvent extends SyncEvent {
+
+    @Label("Host")
+    private String host;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+}
@@ -0,0 +1,19 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("dev.dobicinaitis.feedreader.ItemConversion")
+@Label("Item Conversion")
+@Description("Conversion of RSS items to articles.")
+@Setter
+public class ItemConversionEvent extends SyncEvent {
+
+    @Label("Items")
+    private int items;
+
+    @Label("Articles")
+    private int articles;
+}
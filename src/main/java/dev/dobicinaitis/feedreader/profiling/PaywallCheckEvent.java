@@ -0,0 +1,24 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("dev.dobicinaitis.feedreader.PaywallCheck")
+@Label("Paywall Check")
+@Description("Download and parsing of an article page to look for a paywall label.")
+@Setter
+public class PaywallCheckEvent extends SyncEvent {
+
+    @Label("Host")
+    private String host;
+
+    @Label("Bytes")
+    @DataAmount
+    private long bytes;
+
+    @Label("Paywalled")
+    private boolean paywalled;
+}
@@ -0,0 +1,16 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("dev.dobicinaitis.feedreader.RateLimitWait")
+@Label("Rate Limit Wait")
+@Description("Time spent waiting for a Telegram rate limiter permit.")
+@Setter
+public class RateLimitWaitEvent extends SyncEvent {
+
+    @Label("Limiter")
+    private String limiter;
+}
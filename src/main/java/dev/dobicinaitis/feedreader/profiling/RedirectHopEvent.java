@@ -0,0 +1,19 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("dev.dobicinaitis.feedreader.RedirectHop")
+@Label("Redirect Hop")
+@Description("A single request made while resolving the post-redirect URL of an article.")
+@Setter
+public class RedirectHopEvent extends SyncEvent {
+
+    @Label("Host")
+    private String host;
+
+    @Label("Status Code")
+    private int statusCode;
+}
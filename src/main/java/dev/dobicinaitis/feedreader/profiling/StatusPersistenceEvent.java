@@ -0,0 +1,19 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("dev.dobicinaitis.feedreader.StatusPersistence")
+@Label("Status Persistence")
+@Description("Reading or writing the sync status file.")
+@Setter
+public class StatusPersistenceEvent extends SyncEvent {
+
+    @Label("Operation")
+    private String operation;
+
+    @Label("Format")
+    private String format;
+}
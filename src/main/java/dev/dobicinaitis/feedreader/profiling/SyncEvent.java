@@ -0,0 +1,27 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import lombok.Setter;
+
+/**
+ * Base class of the JDK Flight Recorder events emitted by the sync pipeline.
+ */
+@Category({"Apollo.lv to Telegram", "Sync"})
+@Setter
+public abstract class SyncEvent extends Event {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+
+    @Label("Outcome")
+    protected String outcome = SUCCESS;
+
+    /**
+     * Marks the event as failed.
+     */
+    public void failed() {
+        this.outcome = FAILURE;
+    }
+}
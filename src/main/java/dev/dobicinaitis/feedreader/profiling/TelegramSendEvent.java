@@ -0,0 +1,16 @@
+package dev.dobicinaitis.feedreader.profiling;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import lombok.Setter;
+
+@Name("dev.dobicinaitis.feedreader.TelegramSend")
+@Label("Telegram Send")
+@Description("A Telegram Bot API request.")
+@Setter
+public class TelegramSendEvent extends SyncEvent {
+
+    @Label("Method")
+    private String method;
+}
@@ -0,0 +1,188 @@
+package dev.dobicinaitis.feedreader.report;
+
+import dev.dobicinaitis.feedreader.dto.ArticleOutcome;
+import dev.dobicinaitis.feedreader.dto.ArticleReport;
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.RunReport;
+import dev.dobicinaitis.feedreader.dto.StageReport;
+import dev.dobicinaitis.feedreader.metrics.Cache;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.dobicinaitis.feedreader.metrics.Stage;
+import dev.dobicinaitis.feedreader.util.FileUtils;
+import dev.dobicinaitis.feedreader.util.JsonUtils;
+import lombok.Setter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the outcome of a single sync run and renders it as a machine-readable report.
+ * <p>
+ * Stage timings, counters and cache statistics are taken from the {@link Metrics} registry when the report
+ * is built, per-article outcomes are recorded by the services while the run is in progress.
+ */
+public class RunReporter {
+
+    public static final String SUCCESS = "success";
+    public static final String FAILURE = "failure";
+    public static final String SKIPPED = "skipped";
+    // the time budget ran out, the articles that were left are posted by the next run
+    public static final String PARTIAL = "partial";
+
+    private final ZonedDateTime startedAt = ZonedDateTime.now();
+    private final List<ArticleReport> articles = Collections.synchronizedList(new ArrayList<>());
+    @Setter
+    private volatile String status = SUCCESS;
+    @Setter
+    private volatile int itemsReceived;
+    @Setter
+    private volatile int newArticles;
+    @Setter
+    private volatile int itemsAdded;
+    @Setter
+    private volatile int itemsChanged;
+    @Setter
+    private volatile int itemsRemoved;
+    private volatile Instant firstPostedAt;
+    @Setter
+    private volatile Map<String, Long> filterRuleHits;
+    @Setter
+    private volatile Integer articlesPostedLastDay;
+
+    /**
+     * Records the outcome of an article.
+     *
+     * @param article              article
+     * @param outcome              what happened to the article
+     * @param messageId            Telegram message ID, or null if there is none
+     * @param rateLimitWaitSeconds time spent waiting for the rate limiter
+     * @param sendNanos            time spent sending the article
+     */
+    public void recordArticle(final Article article, final ArticleOutcome outcome, final Integer messageId,
+                              final double rateLimitWaitSeconds, final long sendNanos) {
+        if (outcome == ArticleOutcome.POSTED && firstPostedAt == null) {
+            firstPostedAt = Instant.now();
+        }
+        articles.add(ArticleReport.builder()
+                .guid(article != null ? article.getGuid() : null)
+                .title(article != null ? article.getTitle() : null)
+                .outcome(outcome)
+                .messageId(messageId)
+                .rateLimitWaitSeconds(rateLimitWaitSeconds)
+                .sendSeconds(sendNanos / 1e9)
+                .build());
+    }
+
+    /**
+     * Records an article that never reached Telegram.
+     *
+     * @param article article
+     * @param outcome why the article was not posted
+     */
+    public void recordArticle(final Article article, final ArticleOutcome outcome) {
+        recordArticle(article, outcome, null, 0, 0);
+    }
+
+    /**
+     * Builds the report from the recorded outcomes and the current state of the metrics registry.
+     *
+     * @return run report
+     */
+    public RunReport build() {
+        final ZonedDateTime finishedAt = ZonedDateTime.now();
+
+        final Map<String, StageReport> stages = new LinkedHashMap<>();
+        long bytesTransferred = 0;
+        for (Stage stage : Stage.values()) {
+            final Metrics.StageTimer timer = Metrics.getTimer(stage);
+            stages.put(stage.getLabel(), toStageReport(timer));
+            bytesTransferred += timer.getBytesTotal();
+        }
+
+        final Map<String, Long> counters = new LinkedHashMap<>();
+        for (Counter counter : Counter.values()) {
+            counters.put(counter.getMetricName(), Metrics.getCount(counter));
+        }
+
+        final Map<String, Double> cacheHitRatios = new LinkedHashMap<>();
+        for (Cache cache : Cache.values()) {
+            cacheHitRatios.put(cache.getLabel(), Metrics.getCacheHitRatio(cache));
+        }
+
+        final List<ArticleReport> articleReports;
+        synchronized (articles) {
+            articleReports = new ArrayList<>(articles);
+        }
+
+        return RunReport.builder()
+                .status(status)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .durationSeconds(Duration.between(startedAt, finishedAt).toNanos() / 1e9)
+                .timeToFirstPostSeconds(getTimeToFirstPostSeconds())
+                .itemsReceived(itemsReceived)
+                .newArticles(newArticles)
+                .itemsAdded(itemsAdded)
+                .itemsChanged(itemsChanged)
+                .itemsRemoved(itemsRemoved)
+                .stages(stages)
+                .counters(counters)
+                .bytesTransferred(bytesTransferred)
+                .rateLimitWaitSeconds(Metrics.getTimer(Stage.RATE_LIMIT_WAIT).getTotalSeconds())
+                .cacheHitRatios(cacheHitRatios)
+                .freshnessLag(toStageReport(Metrics.getFreshnessLag()))
+                .filterRuleHits(filterRuleHits)
+                .articlesPostedLastDay(articlesPostedLastDay)
+                .articles(articleReports)
+                .build();
+    }
+
+    /**
+     * Builds the report and writes it to a JSON file, replacing the previous report atomically.
+     *
+     * @param file report file
+     * @throws IOException if the report could not be written
+     */
+    public void write(final File file) throws IOException {
+        final String json = JsonUtils.getGson().toJson(build());
+        FileUtils.writeAtomically(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the time from the start of the JVM to the first posted article, which includes the JVM and application
+     * start-up that a report started in the sync service can't see otherwise.
+     *
+     * @return seconds, or null if nothing was posted or the start time of the process is unknown
+     */
+    private Double getTimeToFirstPostSeconds() {
+        final Instant postedAt = firstPostedAt;
+        if (postedAt == null) {
+            return null;
+        }
+        return ProcessHandle.current().info().startInstant()
+                .map(jvmStartedAt -> Duration.between(jvmStartedAt, postedAt).toNanos() / 1e9)
+                .orElse(null);
+    }
+
+    private static StageReport toStageReport(final Metrics.StageTimer timer) {
+        return StageReport.builder()
+                .count(timer.getCount())
+                .totalSeconds(timer.getTotalSeconds())
+                .p50Seconds(timer.getPercentileSeconds(50))
+                .p95Seconds(timer.getPercentileSeconds(95))
+                .p99Seconds(timer.getPercentileSeconds(99))
+                .maxSeconds(timer.getMaxSeconds())
+                .bytes(timer.getBytesTotal())
+                .build();
+    }
+}
@@ -3,32 +3,101 @@ package dev.dobicinaitis.feedreader.services;
 import com.apptasticsoftware.rssreader.Item;
 import com.apptasticsoftware.rssreader.RssReader;
 import com.apptasticsoftware.rssreader.util.ItemComparator;
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.FeedFetchSample;
 import dev.dobicinaitis.feedreader.exceptions.FeedReaderRuntimeException;
+import dev.dobicinaitis.feedreader.http.FetchedResponse;
+import dev.dobicinaitis.feedreader.http.HttpTraffic;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.dobicinaitis.feedreader.metrics.Stage;
+import dev.dobicinaitis.feedreader.misc.ArticleComparator;
+import dev.dobicinaitis.feedreader.parser.StaxFeedParser;
+import dev.dobicinaitis.feedreader.profiling.FeedFetchEvent;
+import dev.dobicinaitis.feedreader.util.UrlUtils;
 import dev.failsafe.Failsafe;
-import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.net.ssl.SSLContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import static dev.dobicinaitis.feedreader.configuration.FailsafeConfiguration.RETRY_POLICY;
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.READ_TIMEOUT;
 
 @Slf4j
-@AllArgsConstructor
 public class FeedReaderService {
 
+    public static final int MIN_HEDGE_SAMPLES = 10;
+    public static final double HEDGE_PERCENTILE = 95;
+    // share of recent fetches that may be hedged, so that a slow feed doesn't get twice the load
+    public static final double MAX_HEDGE_RATE = 0.1;
+    private static final Duration MIN_HEDGE_DELAY = Duration.ofMillis(100);
     private static final int CONNECTION_TIMEOUT_IN_SECONDS = 10;
 
     private final String url;
     private final HttpClient httpClient;
+    // delay after which a second request is sent if the first one hasn't answered, null to never hedge
+    @Setter
+    private Duration hedgeDelay;
+    private boolean hedgeSent;
+    @Getter
+    private FeedFetchSample lastFetch;
+    private final StaxFeedParser staxParser = new StaxFeedParser();
 
     public FeedReaderService(String url) {
+        this(url, createHttpClient(CONNECTION_TIMEOUT_IN_SECONDS));
+    }
+
+    public FeedReaderService(String url, HttpClient httpClient) {
         this.url = url;
-        this.httpClient = createHttpClient(CONNECTION_TIMEOUT_IN_SECONDS);
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Calculates the hedge delay from the feed fetches of recent runs.
+     *
+     * @param history recent feed fetches
+     * @return delay after which to send a hedged request, or null if there isn't enough history
+     * or too many recent fetches were hedged already
+     */
+    public static Duration calculateHedgeDelay(final List<FeedFetchSample> history) {
+        if (history == null || history.size() < MIN_HEDGE_SAMPLES) {
+            return null;
+        }
+        final long hedgedCount = history.stream().filter(FeedFetchSample::isHedged).count();
+        if (hedgedCount >= MAX_HEDGE_RATE * history.size()) {
+            log.debug("{} of the last {} feed fetches were hedged, won't hedge this one.", hedgedCount, history.size());
+            return null;
+        }
+        final long[] latencies = history.stream().mapToLong(FeedFetchSample::getLatencyMillis).sorted().toArray();
+        final int index = (int) Math.ceil(HEDGE_PERCENTILE / 100 * latencies.length) - 1;
+        final Duration delay = Duration.ofMillis(latencies[Math.max(index, 0)]);
+        if (delay.compareTo(MIN_HEDGE_DELAY) < 0) {
+            return MIN_HEDGE_DELAY;
+        }
+        return delay.compareTo(READ_TIMEOUT) > 0 ? READ_TIMEOUT : delay;
     }
 
 
@@ -43,21 +112,165 @@ public class FeedReaderService {
                 .toList();
     }
 
+    /**
+     * Returns the RSS feed items parsed straight into articles by the in-house StAX parser, sorted by their
+     * publication date, with the oldest articles listed first.
+     *
+     * @return articles with the raw item title, which is null if the item has none
+     */
+    public List<Article> getArticles() {
+        return loadArticles().stream()
+                .sorted(ArticleComparator.oldestArticleFirst())
+                .toList();
+    }
+
     /**
      * Loads items from the RSS feed URL.
      *
      * @return list of RSS feed items
      */
     protected List<Item> loadItems() {
+        return loadFeed(feed -> new RssReader().read(new ByteArrayInputStream(feed)).toList());
+    }
+
+    /**
+     * Loads items from the RSS feed URL as articles.
+     *
+     * @return articles in feed order
+     */
+    protected List<Article> loadArticles() {
+        return loadFeed(feed -> staxParser.parse(new ByteArrayInputStream(feed)));
+    }
+
+    /**
+     * Downloads and parses the RSS feed.
+     *
+     * @param parser feed parser
+     * @param <T>    type of the parsed items
+     * @return parsed items
+     */
+    private <T> List<T> loadFeed(final Parser<T> parser) {
         try {
-            return Failsafe.with(RETRY_POLICY)
-                    .get(() -> new RssReader(httpClient).read(url).toList());
+            final byte[] feed = Failsafe.with(RETRY_POLICY).get(this::fetchFeed);
+            final long parseStartTime = System.nanoTime();
+            try {
+                return parser.parse(feed);
+            } finally {
+                Metrics.record(Stage.FEED_PARSE, parseStartTime);
+            }
         } catch (Exception e) {
             log.error("Could not load the RSS feed, reason: {}", e.getMessage());
             throw new FeedReaderRuntimeException(e);
         }
     }
 
+    /**
+     * Downloads the RSS feed, so that download and parsing can be measured separately.
+     *
+     * @return RSS feed content
+     * @throws IOException if the feed could not be downloaded
+     */
+    protected byte[] fetchFeed() throws IOException {
+        final long startTime = System.nanoTime();
+        final FeedFetchEvent event = new FeedFetchEvent();
+        event.begin();
+        event.setHost(UrlUtils.getHost(url));
+        try {
+            final boolean hedgeAvailable = !hedgeSent;
+            final FetchedResponse response = hedgeAvailable ? sendHedgedFeedRequest() : sendTrackedFeedRequest();
+            event.setStatusCode(response.getStatusCode());
+            event.setHedged(hedgeAvailable && hedgeSent);
+            if (!response.isSuccessful()) {
+                throw new IOException("Response code " + response.getStatusCode() + " for URL " + url);
+            }
+            lastFetch = new FeedFetchSample((System.nanoTime() - startTime) / 1_000_000, hedgeAvailable && hedgeSent);
+            event.setBytes(response.getBody().length);
+            Metrics.recordBytes(Stage.FEED_FETCH, response.getBody().length);
+            if ("gzip".equalsIgnoreCase(response.getHeader("Content-Encoding"))) {
+                try (InputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response.getBody()))) {
+                    return inputStream.readAllBytes();
+                }
+            }
+            return response.getBody();
+        } catch (IOException e) {
+            event.failed();
+            throw e;
+        } finally {
+            event.commit();
+            Metrics.record(Stage.FEED_FETCH, startTime);
+        }
+    }
+
+    /**
+     * Sends the feed request, and a second one if the first hasn't answered within the hedge delay.
+     * The first response to arrive wins, the other request is cancelled. At most one hedged request is sent per run.
+     *
+     * @return the first response
+     * @throws IOException if both requests failed
+     */
+    private FetchedResponse sendHedgedFeedRequest() throws IOException {
+        final Duration delay = hedgeDelay;
+        // a replay serves recorded responses in order, a hedge would consume the next one
+        if (delay == null || HttpTraffic.isReplaying()) {
+            return sendTrackedFeedRequest();
+        }
+        final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            final CompletionService<FetchedResponse> requests = new ExecutorCompletionService<>(executor);
+            requests.submit(this::sendTrackedFeedRequest);
+            final Future<FetchedResponse> primary = requests.poll(Deadline.cap(delay).toNanos(), TimeUnit.NANOSECONDS);
+            if (primary != null) {
+                return getResponse(primary);
+            }
+            log.info("Feed has not answered within {} ms, sending a hedged request.", delay.toMillis());
+            hedgeSent = true;
+            Metrics.increment(Counter.FEED_HEDGED_REQUESTS);
+            requests.submit(this::sendTrackedFeedRequest);
+            try {
+                return getResponse(requests.take());
+            } catch (IOException e) {
+                log.debug("First feed response was a failure, waiting for the other request: {}", e.getMessage());
+                return getResponse(requests.take());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Feed download was interrupted");
+        } finally {
+            // interrupts the request that lost the race
+            executor.shutdownNow();
+        }
+    }
+
+    private static FetchedResponse getResponse(final Future<FetchedResponse> request) throws IOException, InterruptedException {
+        try {
+            return request.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private FetchedResponse sendTrackedFeedRequest() throws IOException {
+        return HttpTraffic.exchange("GET", url, this::sendFeedRequest);
+    }
+
+    private FetchedResponse sendFeedRequest() throws IOException {
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Accept-Encoding", "gzip")
+                .timeout(Deadline.cap(READ_TIMEOUT))
+                .GET()
+                .build();
+        try {
+            final HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            return new FetchedResponse(response.statusCode(), response.headers().map(), response.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Feed download was interrupted");
+        }
+    }
+
     /**
      * Creates a new HTTP client with a custom connection timeout.
      *
@@ -81,4 +294,9 @@ public class FeedReaderService {
         }
         return client;
     }
+
+    @FunctionalInterface
+    private interface Parser<T> {
+        List<T> parse(byte[] feed) throws Exception;
+    }
 }
@@ -2,105 +2,519 @@ package dev.dobicinaitis.feedreader.services;
 
 import com.apptasticsoftware.rssreader.Enclosure;
 import com.apptasticsoftware.rssreader.Item;
+import com.google.common.base.Suppliers;
+import com.google.gson.JsonParseException;
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
+import dev.dobicinaitis.feedreader.concurrency.NetworkTaskExecutor;
+import dev.dobicinaitis.feedreader.concurrency.SingleFlight;
+import dev.dobicinaitis.feedreader.diff.FeedDiff;
+import dev.dobicinaitis.feedreader.dto.ArchivedArticle;
 import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.ArticleOutcome;
+import dev.dobicinaitis.feedreader.dto.FeedFetchSample;
+import dev.dobicinaitis.feedreader.dto.PostedMessage;
 import dev.dobicinaitis.feedreader.dto.SyncSettings;
 import dev.dobicinaitis.feedreader.dto.SyncStatus;
 import dev.dobicinaitis.feedreader.dto.TitleEmoji;
 import dev.dobicinaitis.feedreader.exceptions.FeedReaderRuntimeException;
+import dev.dobicinaitis.feedreader.exceptions.HostUnavailableException;
+import dev.dobicinaitis.feedreader.filter.ArticleFilter;
+import dev.dobicinaitis.feedreader.http.ConnectionPrewarmer;
+import dev.dobicinaitis.feedreader.http.FetchedResponse;
+import dev.dobicinaitis.feedreader.http.HttpTraffic;
+import dev.dobicinaitis.feedreader.http.ReplaySpeed;
+import dev.dobicinaitis.feedreader.http.UpstreamGuard;
+import dev.dobicinaitis.feedreader.metrics.Cache;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.dobicinaitis.feedreader.metrics.MetricsExporter;
+import dev.dobicinaitis.feedreader.metrics.Stage;
 import dev.dobicinaitis.feedreader.misc.ArticleComparator;
-import dev.dobicinaitis.feedreader.util.JsonUtils;
+import dev.dobicinaitis.feedreader.parser.FeedParser;
+import dev.dobicinaitis.feedreader.profiling.FlightRecorderProfiler;
+import dev.dobicinaitis.feedreader.profiling.ItemConversionEvent;
+import dev.dobicinaitis.feedreader.profiling.PaywallCheckEvent;
+import dev.dobicinaitis.feedreader.profiling.StatusPersistenceEvent;
+import dev.dobicinaitis.feedreader.report.RunReporter;
+import dev.dobicinaitis.feedreader.storage.PostedArticleArchive;
+import dev.dobicinaitis.feedreader.storage.StatusFileLock;
+import dev.dobicinaitis.feedreader.storage.StatusFormat;
+import dev.dobicinaitis.feedreader.storage.StatusStore;
 import dev.dobicinaitis.feedreader.util.UrlUtils;
-import io.micronaut.core.util.CollectionUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.jsoup.Connection;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.Reader;
-import java.nio.file.Files;
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.CONNECT_TIMEOUT;
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.READ_TIMEOUT;
 
 @Slf4j
 public class SyncService {
 
     public static final String TITLE_TAG_SEPARATOR = "⟩";
     public static final String PAYWALL_CSS_SELECTOR = "li:containsOwn(ABONENTIEM), li:contains(ABONENTIEM)";
+    public static final int MAX_FRESHNESS_LAG_SAMPLES = 500;
+    public static final int MAX_FEED_FETCH_SAMPLES = 100;
+    public static final int MAX_KNOWN_ORIGINS = 10;
+    // an unchanged feed item doesn't show a paywall switched on or off on the article page, so with --edit-changed
+    // the articles posted within this period are looked up again, at most this many per run
+    public static final Duration PAYWALL_RECHECK_PERIOD = Duration.ofHours(24);
+    public static final int MAX_PAYWALL_RECHECKS = 10;
+    private static final int REPLAY_MESSAGES_PER_MINUTE = 1_000_000;
 
-    private final TelegramService telegram;
+    // created on first use, most runs have nothing to post and never need the Bot API client
+    private final Supplier<TelegramService> telegram;
     private final FeedReaderService feedReader;
     private final SyncSettings settings;
+    private StatusStore statusStore;
+    private RunReporter reporter = new RunReporter();
+    private final SingleFlight<String, Boolean> paywallChecks = new SingleFlight<>();
+    // compiled on first use, so that it sees the final settings
+    private final Supplier<ArticleFilter> articleFilter;
 
     public SyncService(final SyncSettings settings) {
         this.settings = settings;
-        this.telegram = new TelegramService(settings.getTelegramBotToken(), settings.getTelegramChannelId());
+        this.statusStore = createStatusStore(settings);
+        this.telegram = Suppliers.memoize(() ->
+                new TelegramService(settings.getTelegramBotToken(), settings.getTelegramChannelId(), settings.getTelegramApiUrl()));
         this.feedReader = new FeedReaderService(settings.getRssUrl());
+        this.articleFilter = Suppliers.memoize(() ->
+                ArticleFilter.compile(settings.getExcludedCategories(), settings.getIncludedCategories(), settings.getFilterRules()));
     }
 
     /**
      * Posts new articles from the RSS feed to Telegram.
      */
     public void sync() {
+        reporter = new RunReporter();
+        UpstreamGuard.reset(settings.getMaxConcurrencyPerHost());
+        final double messagesPerMinute = TelegramService.getMessagesPerMinute();
+        try (Deadline ignoredDeadline = Deadline.start(settings.getTimeBudget());
+             FlightRecorderProfiler ignoredProfiler = FlightRecorderProfiler.start(settings.getProfileFile());
+             MetricsExporter ignoredExporter = MetricsExporter.start(settings.getMetricsFile(), settings.getMetricsAddress(), settings.getMetricsPort());
+             HttpTraffic ignoredTraffic = startHttpTraffic()) {
+            syncWithLock();
+        } catch (IOException e) {
+            reporter.setStatus(RunReporter.FAILURE);
+            log.error("Failed to set up the run: {}", e.getMessage(), e);
+            throw new FeedReaderRuntimeException(e);
+        } catch (RuntimeException e) {
+            reporter.setStatus(RunReporter.FAILURE);
+            throw e;
+        } finally {
+            // a full-speed replay lifts the rate limit, later runs in the same JVM must not inherit that
+            TelegramService.setMessagesPerMinute(messagesPerMinute);
+            writeReport();
+        }
+    }
+
+    /**
+     * Starts recording or replaying outbound HTTP traffic if requested.
+     *
+     * @return recording or replay session, null if all traffic is live
+     * @throws IOException if the recording directory could not be used
+     */
+    private HttpTraffic startHttpTraffic() throws IOException {
+        if (settings.getRecordDirectory() != null) {
+            return HttpTraffic.record(settings.getRecordDirectory().toPath());
+        }
+        if (settings.getReplayDirectory() != null) {
+            if (settings.getReplaySpeed() == ReplaySpeed.FULL) {
+                // nothing is sent to Telegram, so there is no rate limit to respect
+                TelegramService.setMessagesPerMinute(REPLAY_MESSAGES_PER_MINUTE);
+            }
+            return HttpTraffic.replay(settings.getReplayDirectory().toPath(), settings.getReplaySpeed());
+        }
+        return null;
+    }
+
+    /**
+     * Writes the run report if one was requested. A failure to write the report does not fail the run.
+     */
+    private void writeReport() {
+        if (settings.getReportFile() == null) {
+            return;
+        }
+        try {
+            reporter.write(settings.getReportFile());
+            log.info("Run report saved to {}", settings.getReportFile().getAbsolutePath());
+        } catch (IOException e) {
+            log.error("Failed to write run report to {}", settings.getReportFile().getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Locks the status file if one is used and posts new articles from the RSS feed to Telegram.
+     */
+    private void syncWithLock() {
+        if (!isStatusFileUsed()) {
+            syncArticles();
+            return;
+        }
+
+        // hold an exclusive lock for the whole run, so that overlapping runs don't post the same articles
+        try (StatusFileLock lock = StatusFileLock.acquire(settings.getStatusFile(), settings.getLockTimeout())) {
+            if (lock == null) {
+                reporter.setStatus(RunReporter.SKIPPED);
+                log.warn("Status file {} is locked by another run. Skipping this sync.", settings.getStatusFile().getAbsolutePath());
+                return;
+            }
+            syncArticles();
+        } catch (IOException e) {
+            log.error("Failed to lock status file {}", settings.getStatusFile().getAbsolutePath(), e);
+            throw new FeedReaderRuntimeException(e);
+        }
+    }
+
+    /**
+     * Opens the posted article archive if one is used and posts new articles from the RSS feed to Telegram.
+     */
+    private void syncArticles() {
+        if (settings.getArchiveDirectory() == null) {
+            syncArticles(null);
+            return;
+        }
+
+        // the archive has its own lock, so that runs without a status file don't interleave their writes either
+        try (PostedArticleArchive archive = PostedArticleArchive.open(settings.getArchiveDirectory().toPath(), settings.getLockTimeout())) {
+            if (archive == null) {
+                reporter.setStatus(RunReporter.SKIPPED);
+                log.warn("Posted article archive {} is locked by another run. Skipping this sync.",
+                        settings.getArchiveDirectory().getAbsolutePath());
+                return;
+            }
+            syncArticles(archive);
+            reportArchivedPostings(archive);
+        } catch (IOException e) {
+            log.error("Failed to access posted article archive {}", settings.getArchiveDirectory().getAbsolutePath(), e);
+            throw new FeedReaderRuntimeException(e);
+        }
+    }
+
+    /**
+     * Posts new articles from the RSS feed to Telegram, expects the status file to be locked if one is used.
+     *
+     * @param archive posted article archive, or null if none is used
+     */
+    private void syncArticles(final PostedArticleArchive archive) {
         log.info("Starting sync.");
         SyncStatus syncStatus = null;
 
-        log.info("Loading RSS feed items.");
-        final List<Item> items = new ArrayList<>(feedReader.getItems());
-        log.info("Received {} items.", items.size());
-        removeExcludedCategories(items);
-        final List<Article> articles = convertRssItemsToArticles(items);
-
+        // read before the feed is loaded, the feed fetch uses the breaker states and latencies of previous runs
         if (isStatusFileUsed()) {
-            log.info("Status file is used. Will remove previously processed items.");
             syncStatus = readSyncStatusFromFile();
             log.debug("Last sync status data: {}", syncStatus);
+            UpstreamGuard.restore(syncStatus.getTrippedHosts());
+            feedReader.setHedgeDelay(FeedReaderService.calculateHedgeDelay(syncStatus.getFeedFetchSamples()));
+        }
+
+        // DNS lookups and TLS handshakes of the hosts called later on are done while the feed downloads
+        try (ConnectionPrewarmer prewarmer = ConnectionPrewarmer.start(getPrewarmOrigins(syncStatus))) {
+            syncArticles(archive, syncStatus, prewarmer);
+        }
+    }
+
+    /**
+     * Loads the RSS feed, posts new articles to Telegram and saves the sync status.
+     *
+     * @param archive    posted article archive, or null if none is used
+     * @param syncStatus last sync status, or null if no status file is used
+     * @param prewarmer  running connection pre-warmer, or null while replaying
+     */
+    private void syncArticles(final PostedArticleArchive archive, final SyncStatus syncStatus, final ConnectionPrewarmer prewarmer) {
+        List<Article> editCandidates = new ArrayList<>();
+
+        log.info("Loading RSS feed items.");
+        // unchanged items were fully processed by an earlier run, only the added and changed ones are loaded,
+        // and the recently posted ones whose paywall may have changed since
+        final FeedDiff diff = new FeedDiff(syncStatus != null ? syncStatus.getItemHashes() : null);
+        final Set<String> paywallRechecks = settings.isEditChangedArticles() && syncStatus != null
+                ? selectPaywallRechecks(syncStatus.getPostedMessages(), ZonedDateTime.now()) : Set.of();
+        final List<Article> articles = loadArticles(diff, paywallRechecks);
+        final Set<String> feedGuids = diff.getFeedGuids();
+
+        if (syncStatus != null) {
+            log.info("Status file is used. Will remove previously processed items.");
+            if (settings.isEditChangedArticles()) {
+                editCandidates = findPostedArticles(articles, syncStatus);
+            }
             removeProcessedArticles(articles, syncStatus);
         }
 
-        if (articles.isEmpty()) {
+        if (archive != null) {
+            removeArchivedArticles(articles, archive);
+        }
+
+        reporter.setNewArticles(articles.size());
+
+        if (articles.isEmpty() && editCandidates.isEmpty()) {
             log.info("No new articles to post.");
+            // none of the article and image hosts will be called, the handshakes still running would be wasted
+            if (prewarmer != null) {
+                prewarmer.close();
+            }
+            saveSyncStatusIfChanged(syncStatus, diff);
+            reportFreshnessLag(syncStatus != null ? syncStatus.getFreshnessLagSeconds() : List.of());
             return;
         }
 
+        // the Bot API client is only needed now, its connection is set up while the links are looked up
+        if (prewarmer != null) {
+            prewarmer.warmUp(() -> getTelegram().prewarmConnection());
+        }
+
+        final List<Article> articlesToEnrich = new ArrayList<>(articles);
+        articlesToEnrich.addAll(editCandidates);
+        final List<String> calledUrls = articlesToEnrich.stream().map(Article::getLink).collect(Collectors.toCollection(ArrayList::new));
+        final Set<Article> rejectedLookups = Collections.synchronizedSet(Collections.newSetFromMap(new IdentityHashMap<>()));
+
         // The short links from the RSS feed point to a different domain name.
         // As these will be visible in the Telegram channel, we want to replace them with
         // the more trustworthy post-redirect links that use the actual news site domain.
-        log.info("Replacing shortened links with post-redirect ones.");
-        articles.parallelStream().forEach(article -> article.setLink(UrlUtils.getRedirectUrl(article.getLink())));
+        // The lookups are blocking network calls, so they run on virtual threads instead of the CPU-sized common pool.
+        try (NetworkTaskExecutor executor = new NetworkTaskExecutor(settings.getMaxConcurrency(), settings.getMaxConcurrencyPerHost())) {
+            log.info("Replacing shortened links with post-redirect ones.");
+            executor.forEach(articlesToEnrich, Article::getLink, article -> resolveLink(article, rejectedLookups));
 
-        // Check if any of the new articles are subscription-only and set the paywalled flag accordingly.
-        log.info("Updating paywall flags.");
-        articles.parallelStream().forEach(article -> article.setPaywalled(hasPaywallLabel(article.getLink())));
+            // Check if any of the new articles are subscription-only and set the paywalled flag accordingly.
+            log.info("Updating paywall flags.");
+            executor.forEach(articlesToEnrich, Article::getLink, article -> updatePaywallFlag(article, rejectedLookups));
+        }
+        // the link or paywall flag of these articles is a fallback, their messages are not edited with it
+        editCandidates.removeIf(rejectedLookups::contains);
+        articlesToEnrich.forEach(article -> {
+            calledUrls.add(article.getLink());
+            calledUrls.add(article.getImageUrl());
+        });
 
         if (settings.isExcludePaywalled()) {
             removePaywalledArticles(articles);
         }
 
+        // posted messages are indexed only when there is a status file to keep the index in
+        final Map<String, PostedMessage> postedMessages = syncStatus != null ? syncStatus.getPostedMessages() : new HashMap<>();
+
         log.info("Posting {} new articles to Telegram.", articles.size());
-        final Article lastPostedArticle = telegram.postArticles(articles);
+        final List<Article> postedArticles = getTelegram().postArticles(articles, postedMessages);
+        final Article lastPostedArticle = postedArticles.isEmpty() ? null : postedArticles.getLast();
+        final List<Long> freshnessLag = calculateFreshnessLag(postedArticles, postedMessages);
 
-        if (isStatusFileUsed() && lastPostedArticle != null) {
-            log.info("Saving sync status to file.");
-            if (lastPostedArticle.getPublicationDate() == null) {
-                log.warn("Something is off. The last posted article is missing a publication date. Will use the current system time instead.");
-                lastPostedArticle.setPublicationDate(ZonedDateTime.now());
+        if (archive != null) {
+            archivePostedArticles(postedArticles, postedMessages, archive);
+        }
+
+        int editedCount = 0;
+        Map<String, PostedMessage> lastPostedMessages = postedMessages;
+        if (!editCandidates.isEmpty()) {
+            log.info("Checking {} previously posted articles for changes.", editCandidates.size());
+            // the archive keeps the last edit of every article, the messages are compared with it if there is one
+            if (archive != null) {
+                lastPostedMessages = findLastPostedMessages(editCandidates, postedMessages, archive);
+            }
+            final Map<String, String> previousContentHashes = getContentHashes(lastPostedMessages);
+            editedCount = getTelegram().editChangedArticles(editCandidates, lastPostedMessages);
+            if (archive != null && editedCount > 0) {
+                archiveEditedArticles(editCandidates, previousContentHashes, lastPostedMessages, postedMessages, archive);
             }
+        }
+        retryUnfinishedArticles(diff, articles, postedArticles, editCandidates, lastPostedMessages);
+        retryRejectedLookups(diff, rejectedLookups);
+
+        if (isStatusFileUsed() && (lastPostedArticle != null || editedCount > 0)) {
+            log.info("Saving sync status to file.");
             assert syncStatus != null;
-            syncStatus.setPublicationDateOfLastPostedArticle(lastPostedArticle.getPublicationDate());
-            syncStatus.setTitleOfLastPostedArticle(lastPostedArticle.getTitle());
+            if (lastPostedArticle != null) {
+                if (lastPostedArticle.getPublicationDate() == null) {
+                    log.warn("Something is off. The last posted article is missing a publication date. Will use the current system time instead.");
+                    lastPostedArticle.setPublicationDate(ZonedDateTime.now());
+                }
+                syncStatus.setPublicationDateOfLastPostedArticle(lastPostedArticle.getPublicationDate());
+                syncStatus.setTitleOfLastPostedArticle(lastPostedArticle.getTitle());
+            }
+            addFreshnessLagSamples(syncStatus, freshnessLag);
+            prunePostedMessages(syncStatus, feedGuids);
+            updateTrippedHosts(syncStatus);
+            addFeedFetchSample(syncStatus, feedReader.getLastFetch());
+            updateKnownOrigins(syncStatus, calledUrls);
+            updateItemHashes(syncStatus, diff);
             writeSyncStatusToFile(syncStatus);
+        } else {
+            saveSyncStatusIfChanged(syncStatus, diff);
         }
+        reportFreshnessLag(syncStatus != null ? syncStatus.getFreshnessLagSeconds() : freshnessLag);
         log.info("Sync finished.");
     }
 
+    /**
+     * Returns the Telegram service, creating it on first use.
+     *
+     * @return Telegram service reporting to the current run
+     */
+    private TelegramService getTelegram() {
+        final TelegramService telegramService = telegram.get();
+        telegramService.setReporter(reporter);
+        return telegramService;
+    }
+
     private boolean isStatusFileUsed() {
         return settings.getStatusFile() != null;
     }
 
+    /**
+     * Loads the RSS feed with the configured parser and converts its added and changed items to articles,
+     * leaving out the ones the filter rules don't let through.
+     *
+     * @param diff            diff against the previous feed fetch, filled with the items of this one
+     * @param paywallRechecks GUIDs of posted articles to load even if their items are unchanged
+     * @return articles sorted by their publication date, oldest first
+     */
+    private List<Article> loadArticles(final FeedDiff diff, final Set<String> paywallRechecks) {
+        if (settings.getFeedParser() == FeedParser.STAX) {
+            final List<Article> parsedArticles = new ArrayList<>(feedReader.getArticles());
+            log.info("Received {} items.", parsedArticles.size());
+            reporter.setItemsReceived(parsedArticles.size());
+            parsedArticles.removeIf(article -> !diff.offer(article.getGuid(), FeedDiff.hash(article))
+                    && !paywallRechecks.contains(article.getGuid()));
+            reportFeedDiff(diff);
+            articleFilter.get().resetHitCounts();
+            final List<Article> unfilteredArticles = new ArrayList<>(parsedArticles);
+            removeFilteredArticles(parsedArticles);
+            retryFilteredItems(diff, unfilteredArticles, parsedArticles, Article::getGuid);
+            reportFilterRuleHits();
+            return completeParsedArticles(parsedArticles);
+        }
+        final List<Item> items = new ArrayList<>(feedReader.getItems());
+        log.info("Received {} items.", items.size());
+        reporter.setItemsReceived(items.size());
+        items.removeIf(item -> !diff.offer(getItemGuid(item), FeedDiff.hash(item)) && !paywallRechecks.contains(getItemGuid(item)));
+        reportFeedDiff(diff);
+        articleFilter.get().resetHitCounts();
+        final List<Item> unfilteredItems = new ArrayList<>(items);
+        removeFilteredItems(items);
+        retryFilteredItems(diff, unfilteredItems, items, SyncService::getItemGuid);
+        reportFilterRuleHits();
+        return convertRssItemsToArticles(items);
+    }
+
+    /**
+     * Picks the posted articles whose paywall is looked up again although their feed items are unchanged:
+     * the most recently posted ones within {@link #PAYWALL_RECHECK_PERIOD}, at most {@link #MAX_PAYWALL_RECHECKS}.
+     * Older articles are only looked up again when their feed item changes.
+     *
+     * @param postedMessages index of posted messages
+     * @param now            current time
+     * @return GUIDs of the articles to check again
+     */
+    protected Set<String> selectPaywallRechecks(Map<String, PostedMessage> postedMessages, ZonedDateTime now) {
+        if (postedMessages == null) {
+            return Set.of();
+        }
+        final ZonedDateTime since = now.minus(PAYWALL_RECHECK_PERIOD);
+        return postedMessages.entrySet().stream()
+                // messages without an ID can't be edited
+                .filter(entry -> entry.getValue().getMessageId() != null)
+                .filter(entry -> entry.getValue().getPostedAt() != null && entry.getValue().getPostedAt().isAfter(since))
+                .sorted(Map.Entry.<String, PostedMessage>comparingByValue(Comparator.comparing(PostedMessage::getPostedAt)).reversed())
+                .limit(MAX_PAYWALL_RECHECKS)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Returns the GUID of an RSS item, the link if it has none, the same way as the article built from it.
+     *
+     * @param item RSS item
+     * @return GUID
+     */
+    private static String getItemGuid(final Item item) {
+        return item.getGuid().orElse(item.getLink().orElse(""));
+    }
+
+    /**
+     * Keeps the items that the filter rules didn't let through out of the next snapshot, so that the next run filters
+     * them again instead of skipping them as unchanged, and they show up once the rules let them through.
+     *
+     * @param diff     diff against the previous feed fetch
+     * @param offered  added and changed items, before filtering
+     * @param accepted items the filter rules let through
+     * @param guidOf   returns the GUID of an item
+     * @param <T>      item type
+     */
+    protected <T> void retryFilteredItems(FeedDiff diff, List<T> offered, List<T> accepted, Function<T, String> guidOf) {
+        if (offered.size() == accepted.size()) {
+            return;
+        }
+        final Set<T> kept = Collections.newSetFromMap(new IdentityHashMap<>());
+        kept.addAll(accepted);
+        offered.stream()
+                .filter(item -> !kept.contains(item))
+                .map(guidOf)
+                .forEach(diff::retry);
+    }
+
+    /**
+     * Logs and reports how many items were added, changed and removed since the previous feed fetch.
+     *
+     * @param diff diff against the previous feed fetch
+     */
+    private void reportFeedDiff(final FeedDiff diff) {
+        log.info("Since the previous fetch {} item{} added, {} changed and {} removed, skipping {} unchanged.",
+                diff.getAdded(), diff.getAdded() == 1 ? " was" : "s were", diff.getChanged(), diff.getRemoved(), diff.getUnchanged());
+        reporter.setItemsAdded(diff.getAdded());
+        reporter.setItemsChanged(diff.getChanged());
+        reporter.setItemsRemoved(diff.getRemoved());
+    }
+
+    /**
+     * Completes the articles parsed by the StAX parser the same way RSS items are converted:
+     * items without a title are left out, the title emoji is picked and the news site tag is removed from the title.
+     *
+     * @param articles parsed articles with raw titles
+     * @return the same list of articles
+     */
+    protected List<Article> completeParsedArticles(List<Article> articles) {
+        final long startTime = System.nanoTime();
+        final ItemConversionEvent event = new ItemConversionEvent();
+        event.begin();
+        final int itemCount = articles.size();
+        articles.removeIf(article -> article.getTitle() == null);
+        for (Article article : articles) {
+            final String title = article.getTitle();
+            article.setTitleEmoji(pickEmoji(title));
+            article.setTitle(sanitizeTitle(title));
+        }
+        Metrics.record(Stage.ITEM_CONVERSION, startTime);
+        event.setItems(itemCount);
+        event.setArticles(articles.size());
+        event.commit();
+        log.info("Converted {} RSS items to {} article objects.", itemCount, articles.size());
+        return articles;
+    }
+
     /**
      * Converts the RSS feed items to Article objects.
      *
@@ -109,6 +523,9 @@ public class SyncService {
      */
     protected List<Article> convertRssItemsToArticles(List<Item> items) {
         log.debug("Converting RSS items to Article objects.");
+        final long startTime = System.nanoTime();
+        final ItemConversionEvent event = new ItemConversionEvent();
+        event.begin();
         final List<Article> articles = new ArrayList<>();
         for (Item item : items) {
             if (item.getTitle().isPresent()) {
@@ -128,11 +545,13 @@ public class SyncService {
                 }
 
                 final Article article = Article.builder()
+                        .guid(item.getGuid().orElse(link))
                         .title(sanitizedTitle)
                         .titleEmoji(titleEmoji)
                         .description(description)
                         .link(link)
                         .imageUrl(imageUrl)
+                        .categories(item.getCategories())
                         .publicationDate(publicationDate)
                         .build();
 
@@ -140,6 +559,10 @@ public class SyncService {
                 articles.add(article);
             }
         }
+        Metrics.record(Stage.ITEM_CONVERSION, startTime);
+        event.setItems(items.size());
+        event.setArticles(articles.size());
+        event.commit();
         log.info("Converted {} RSS items to {} article objects.", items.size(), articles.size());
         return articles;
     }
@@ -150,29 +573,24 @@ public class SyncService {
      * @return last sync status object
      */
     protected SyncStatus readSyncStatusFromFile() {
-        if (!settings.getStatusFile().exists()) {
-            log.info("Status file {} does not exist, will create a new file.", settings.getStatusFile().getAbsolutePath());
-            return SyncStatus.builder().build();
-        }
-
-        try (final Reader reader = Files.newBufferedReader(settings.getStatusFile().toPath())) {
-            SyncStatus syncStatus = JsonUtils.getGson().fromJson(reader, SyncStatus.class);
-            if (syncStatus == null) {
-                log.warn("Status file {} was empty.", settings.getStatusFile().getAbsolutePath());
-                syncStatus = SyncStatus.builder().build();
-            }
-            return syncStatus;
-        } catch (IOException e) {
+        final StatusPersistenceEvent event = createStatusPersistenceEvent("read");
+        try {
+            return statusStore.read();
+        } catch (IOException | JsonParseException e) {
+            event.failed();
             log.error("Failed to read status from file {}", settings.getStatusFile().getAbsolutePath(), e);
             throw new FeedReaderRuntimeException(e);
+        } finally {
+            event.commit();
         }
     }
 
     /**
-     * Removes articles already posted to Telegram from the latest RSS item list.
+     * Removes articles already posted to Telegram from the latest RSS item list: the ones published before the latest
+     * processed article and the ones in the posted message index, e.g. a posted article whose date was changed.
      *
      * @param articles   articles to be filtered
-     * @param syncStatus last sync status containing the date of the latest processed article
+     * @param syncStatus last sync status containing the date of the latest processed article and the posted message index
      */
     protected void removeProcessedArticles(List<Article> articles, SyncStatus syncStatus) {
         if (syncStatus == null || syncStatus.getPublicationDateOfLastPostedArticle() == null) {
@@ -180,53 +598,488 @@ public class SyncService {
             return;
         }
         final int initialSize = articles.size();
+        final long lastPostedEpochMillis = syncStatus.getPublicationDateOfLastPostedArticle().toInstant().toEpochMilli();
         articles.sort(ArticleComparator.oldestArticleFirst());
-        articles.removeIf(article -> !article.getPublicationDate().isAfter(syncStatus.getPublicationDateOfLastPostedArticle()));
+        final Map<String, PostedMessage> postedMessages = syncStatus.getPostedMessages() != null ? syncStatus.getPostedMessages() : Map.of();
+        articles.removeIf(article -> article.getPublicationEpochMillis() <= lastPostedEpochMillis
+                || (article.getGuid() != null && postedMessages.containsKey(article.getGuid())));
         log.debug("Remaining articles: {}", articles);
         final int removedCount = initialSize - articles.size();
         log.info("Removed {} old article{}, {} remaining.", removedCount, removedCount == 1 ? "" : "s", articles.size());
     }
 
     /**
-     * Removes RSS items that belong to excluded article categories.
+     * Finds articles that have already been posted to Telegram and are still present in the RSS feed.
      *
-     * @param items RSS items to be filtered
+     * @param articles   articles from the RSS feed
+     * @param syncStatus last sync status containing the posted message index
+     * @return previously posted articles
      */
-    protected void removeExcludedCategories(List<Item> items) {
-        if (CollectionUtils.isNotEmpty(settings.getExcludedCategories())) {
-            log.info("Excluding items in unwanted/boring categories.");
-            final List<String> excludedCategoriesLower = convertToLowerCase(settings.getExcludedCategories());
-            items.removeIf(item -> {
-                final List<String> itemCategoriesLower = convertToLowerCase(item.getCategories());
-                final List<String> interestedCategories = new ArrayList<>(itemCategoriesLower);
-                interestedCategories.retainAll(excludedCategoriesLower);
-                return !interestedCategories.isEmpty();
-            });
+    protected List<Article> findPostedArticles(List<Article> articles, SyncStatus syncStatus) {
+        if (syncStatus == null || syncStatus.getPostedMessages() == null) {
+            return new ArrayList<>();
         }
+        return articles.stream()
+                .filter(article -> article.getGuid() != null && syncStatus.getPostedMessages().containsKey(article.getGuid()))
+                .collect(Collectors.toCollection(ArrayList::new));
     }
 
     /**
-     * Removes paywalled articles from the list.
+     * Removes posted message index entries of articles that are no longer present in the RSS feed,
+     * as those will not be edited anymore.
      *
-     * @param articles excluding paywalled ones
+     * @param syncStatus sync status containing the posted message index
+     * @param feedGuids  GUIDs of articles currently present in the RSS feed
+     * @return true if any entries were removed, false otherwise
      */
-    protected void removePaywalledArticles(List<Article> articles) {
+    protected boolean prunePostedMessages(SyncStatus syncStatus, Set<String> feedGuids) {
+        if (syncStatus == null || syncStatus.getPostedMessages() == null || feedGuids.isEmpty()) {
+            return false;
+        }
+        return syncStatus.getPostedMessages().keySet().retainAll(feedGuids);
+    }
+
+    /**
+     * Writes the sync status to file if stale posted message index entries were removed, a circuit breaker changed
+     * its state, the feed changed or the feed was fetched, which is the case on every run that gets this far.
+     *
+     * @param syncStatus sync status containing the posted message index
+     * @param diff       diff against the previous feed fetch
+     */
+    private void saveSyncStatusIfChanged(SyncStatus syncStatus, FeedDiff diff) {
+        if (!isStatusFileUsed()) {
+            return;
+        }
+        final boolean indexPruned = prunePostedMessages(syncStatus, diff.getFeedGuids());
+        final boolean breakersChanged = updateTrippedHosts(syncStatus);
+        final boolean feedChanged = updateItemHashes(syncStatus, diff);
+        // most runs have nothing new, leaving their fetches out would learn the hedge delay from busy periods only
+        final boolean sampleAdded = addFeedFetchSample(syncStatus, feedReader.getLastFetch());
+        if (indexPruned || breakersChanged || feedChanged || sampleAdded) {
+            log.info("Saving {} to file.", indexPruned ? "pruned posted message index"
+                    : breakersChanged ? "circuit breaker states" : feedChanged ? "feed item hashes" : "feed fetch latency");
+            writeSyncStatusToFile(syncStatus);
+        }
+    }
+
+    /**
+     * Replaces the feed item hashes with the ones of this run, so that the next run only processes what changes.
+     *
+     * @param syncStatus sync status to update
+     * @param diff       diff against the previous feed fetch
+     * @return true if the item hashes have changed
+     */
+    protected boolean updateItemHashes(SyncStatus syncStatus, FeedDiff diff) {
+        final Map<String, Long> itemHashes = diff.getSnapshot();
+        if (itemHashes.equals(syncStatus.getItemHashes())) {
+            return false;
+        }
+        syncStatus.setItemHashes(itemHashes);
+        return true;
+    }
+
+    /**
+     * Keeps the articles that weren't posted, or whose changes didn't reach Telegram, out of the next snapshot,
+     * so that the next run processes them again instead of skipping them as unchanged.
+     *
+     * @param diff           diff against the previous feed fetch
+     * @param articles       articles meant to be posted during this run
+     * @param postedArticles articles posted during this run
+     * @param editCandidates previously posted articles checked for changes during this run
+     * @param postedMessages posted message index containing the content hashes
+     */
+    protected void retryUnfinishedArticles(FeedDiff diff, List<Article> articles, List<Article> postedArticles,
+                                           List<Article> editCandidates, Map<String, PostedMessage> postedMessages) {
+        final Set<Article> posted = Collections.newSetFromMap(new IdentityHashMap<>());
+        posted.addAll(postedArticles);
+        for (Article article : articles) {
+            if (!posted.contains(article)) {
+                diff.retry(article.getGuid());
+            }
+        }
+        for (Article article : editCandidates) {
+            final PostedMessage postedMessage = postedMessages.get(article.getGuid());
+            if (postedMessage != null && postedMessage.getMessageId() != null
+                    && !TelegramService.calculateContentHash(article).equals(postedMessage.getContentHash())) {
+                diff.retry(article.getGuid());
+            }
+        }
+    }
+
+    /**
+     * Keeps the articles whose link or paywall lookups were rejected by a circuit breaker out of the next snapshot,
+     * so that the next run looks them up again instead of skipping them as unchanged. Posted ones are then edited
+     * with --edit-changed.
+     *
+     * @param diff            diff against the previous feed fetch
+     * @param rejectedLookups articles whose lookups were rejected
+     */
+    protected void retryRejectedLookups(FeedDiff diff, Collection<Article> rejectedLookups) {
+        if (rejectedLookups.isEmpty()) {
+            return;
+        }
+        log.warn("Lookups of {} article{} were rejected, the next run will look them up again.",
+                rejectedLookups.size(), rejectedLookups.size() == 1 ? "" : "s");
+        synchronized (rejectedLookups) {
+            rejectedLookups.forEach(article -> diff.retry(article.getGuid()));
+        }
+    }
+
+    /**
+     * Appends the feed fetch of this run to the samples the hedge delay is learned from, keeping only the most recent ones.
+     *
+     * @param syncStatus sync status to update
+     * @param sample     feed fetch of this run, or null if there was none
+     * @return true if a sample was added
+     */
+    protected boolean addFeedFetchSample(SyncStatus syncStatus, FeedFetchSample sample) {
+        if (sample == null) {
+            return false;
+        }
+        final List<FeedFetchSample> samples = syncStatus.getFeedFetchSamples() != null
+                ? new ArrayList<>(syncStatus.getFeedFetchSamples()) : new ArrayList<>();
+        samples.add(sample);
+        if (samples.size() > MAX_FEED_FETCH_SAMPLES) {
+            samples.subList(0, samples.size() - MAX_FEED_FETCH_SAMPLES).clear();
+        }
+        syncStatus.setFeedFetchSamples(samples);
+        return true;
+    }
+
+    /**
+     * Moves the hosts called by this run to the front of the known origins, so that the next run can connect to them
+     * while the feed is still downloading. Only the most recently used origins are kept, the ones this run didn't call
+     * drop out first. Only updated when the status file is written anyway.
+     *
+     * @param syncStatus sync status to update
+     * @param urls       article links, before and after redirects, and image URLs called by this run, in call order
+     */
+    protected void updateKnownOrigins(SyncStatus syncStatus, Collection<String> urls) {
+        final Set<String> origins = new LinkedHashSet<>();
+        urls.stream()
+                .map(ConnectionPrewarmer::getOrigin)
+                .filter(Objects::nonNull)
+                .forEach(origins::add);
+        if (origins.isEmpty()) {
+            return;
+        }
+        if (syncStatus.getKnownOrigins() != null) {
+            origins.addAll(syncStatus.getKnownOrigins());
+        }
+        syncStatus.setKnownOrigins(new ArrayList<>(origins.stream().limit(MAX_KNOWN_ORIGINS).toList()));
+    }
+
+    /**
+     * Returns the origins to connect to ahead of time, skipping hosts whose circuit breaker is open.
+     *
+     * @param syncStatus last sync status, or null if no status file is used
+     * @return scheme and authority of the hosts called by the last posting run
+     */
+    protected List<String> getPrewarmOrigins(SyncStatus syncStatus) {
+        if (syncStatus == null || syncStatus.getKnownOrigins() == null) {
+            return List.of();
+        }
+        final Set<String> trippedHosts = UpstreamGuard.getTrippedHosts().keySet();
+        return syncStatus.getKnownOrigins().stream()
+                .filter(origin -> !trippedHosts.contains(URI.create(origin).getAuthority()))
+                .toList();
+    }
+
+    /**
+     * Copies the hosts with a tripped circuit breaker to the sync status, so that the next run doesn't start
+     * by waiting for timeouts of a host that is known to be down.
+     *
+     * @param syncStatus sync status to update
+     * @return true if the tripped hosts have changed
+     */
+    protected boolean updateTrippedHosts(SyncStatus syncStatus) {
+        if (syncStatus == null) {
+            return false;
+        }
+        final Map<String, Long> trippedHosts = UpstreamGuard.getTrippedHosts();
+        if (trippedHosts.equals(syncStatus.getTrippedHosts())) {
+            return false;
+        }
+        syncStatus.setTrippedHosts(trippedHosts);
+        return true;
+    }
+
+    /**
+     * Calculates the time between the publication of articles in the RSS feed and Telegram acknowledging their posts.
+     *
+     * @param postedArticles articles posted during this run
+     * @param postedMessages posted message index containing the post times
+     * @return lag of every posted article in seconds
+     */
+    protected List<Long> calculateFreshnessLag(List<Article> postedArticles, Map<String, PostedMessage> postedMessages) {
+        final List<Long> lagSeconds = new ArrayList<>();
+        for (Article article : postedArticles) {
+            final PostedMessage postedMessage = article.getGuid() != null ? postedMessages.get(article.getGuid()) : null;
+            if (postedMessage == null || postedMessage.getPostedAt() == null || article.getPublicationDate() == null) {
+                continue;
+            }
+            // publication dates in the future (clock skew) count as no lag at all
+            final long lag = Duration.between(article.getPublicationDate(), postedMessage.getPostedAt()).toSeconds();
+            lagSeconds.add(Math.max(0, lag));
+        }
+        return lagSeconds;
+    }
+
+    /**
+     * Appends freshness lag samples to the sync status, keeping only the most recent ones.
+     *
+     * @param syncStatus sync status to update
+     * @param lagSeconds lag of articles posted during this run in seconds
+     */
+    protected void addFreshnessLagSamples(SyncStatus syncStatus, List<Long> lagSeconds) {
+        final List<Long> samples = new ArrayList<>(
+                syncStatus.getFreshnessLagSeconds() != null ? syncStatus.getFreshnessLagSeconds() : List.of());
+        samples.addAll(lagSeconds);
+        if (samples.size() > MAX_FRESHNESS_LAG_SAMPLES) {
+            samples.subList(0, samples.size() - MAX_FRESHNESS_LAG_SAMPLES).clear();
+        }
+        syncStatus.setFreshnessLagSeconds(samples);
+    }
+
+    /**
+     * Publishes the freshness lag summary to the metrics registry and logs it.
+     *
+     * @param lagSeconds lag of recently posted articles in seconds
+     */
+    private void reportFreshnessLag(List<Long> lagSeconds) {
+        if (lagSeconds == null || lagSeconds.isEmpty()) {
+            Metrics.setFreshnessLag(List.of());
+            return;
+        }
+        Metrics.setFreshnessLag(lagSeconds);
+        final Metrics.StageTimer summary = Metrics.getFreshnessLag();
+        log.info("Freshness lag over the last {} posted article{}: p50 {}s, p95 {}s, max {}s.",
+                lagSeconds.size(), lagSeconds.size() == 1 ? "" : "s",
+                Math.round(summary.getPercentileSeconds(50)), Math.round(summary.getPercentileSeconds(95)),
+                Math.round(summary.getMaxSeconds()));
+    }
+
+    /**
+     * Removes articles that are already present in the posted article archive.
+     * Guards against duplicates when the publication date watermark alone is not enough,
+     * e.g. when an article is re-published with a newer date.
+     *
+     * @param articles articles to be filtered
+     * @param archive  posted article archive
+     */
+    protected void removeArchivedArticles(List<Article> articles, PostedArticleArchive archive) {
         final int initialSize = articles.size();
-        articles.removeIf(Article::isPaywalled);
+        articles.removeIf(article -> {
+            try {
+                final boolean archived = archive.contains(article.getGuid());
+                Metrics.recordCacheLookup(Cache.ARCHIVE, archived);
+                return archived;
+            } catch (IOException e) {
+                log.warn("Failed to look up article {} in the archive: {}", article.getGuid(), e.getMessage());
+                return false;
+            }
+        });
         final int removedCount = initialSize - articles.size();
-        log.info("Removed {} paywalled article{}, {} remaining.", removedCount, removedCount == 1 ? "" : "s", articles.size());
+        if (removedCount > 0) {
+            log.info("Removed {} already archived article{}, {} remaining.", removedCount, removedCount == 1 ? "" : "s", articles.size());
+        }
     }
 
     /**
-     * Converts a list of strings to lowercase.
+     * Appends posted articles to the posted article archive.
      *
-     * @param list list of strings
-     * @return list of strings in lowercase
+     * @param postedArticles articles posted during this run
+     * @param postedMessages index of posted messages, used to look up Telegram message IDs
+     * @param archive        posted article archive
      */
-    private List<String> convertToLowerCase(List<String> list) {
-        return list.stream()
-                .map(String::toLowerCase)
-                .toList();
+    private void archivePostedArticles(List<Article> postedArticles, Map<String, PostedMessage> postedMessages,
+                                       PostedArticleArchive archive) {
+        try {
+            for (Article article : postedArticles) {
+                archive.append(toArchivedArticle(article, postedMessages.get(article.getGuid()), null));
+            }
+            archive.flush();
+            log.debug("Archived {} posted articles.", postedArticles.size());
+        } catch (IOException e) {
+            log.error("Failed to archive posted articles.", e);
+        }
+    }
+
+    /**
+     * Looks up what the messages of previously posted articles show now in the archive, which keeps the last edit
+     * of every article. Articles archived before their content hash was, or not at all, are left to the posted
+     * message index.
+     *
+     * @param articles       previously posted articles
+     * @param postedMessages index of posted messages
+     * @param archive        posted article archive
+     * @return GUID -> posted message, the archived ones in place of the indexed ones
+     */
+    protected Map<String, PostedMessage> findLastPostedMessages(List<Article> articles, Map<String, PostedMessage> postedMessages,
+                                                                PostedArticleArchive archive) {
+        final Map<String, PostedMessage> lastPostedMessages = new HashMap<>(postedMessages);
+        for (Article article : articles) {
+            try {
+                archive.find(article.getGuid())
+                        .filter(archived -> archived.getMessageId() != null && archived.getContentHash() != null)
+                        .ifPresent(archived -> lastPostedMessages.put(article.getGuid(), PostedMessage.builder()
+                                .messageId(archived.getMessageId())
+                                .contentHash(archived.getContentHash())
+                                .photo(archived.isPhoto())
+                                .postedAt(archived.getPostedAt().atZone(ZoneId.systemDefault()))
+                                .build()));
+            } catch (IOException e) {
+                log.warn("Failed to look up article {} in the archive: {}", article.getGuid(), e.getMessage());
+            }
+        }
+        return lastPostedMessages;
+    }
+
+    /**
+     * Appends the articles whose messages were edited to the archive, so that it holds what the messages show now,
+     * and keeps their content hashes in the posted message index in step.
+     *
+     * @param editCandidates        previously posted articles checked for changes
+     * @param previousContentHashes GUID -> content hash of the messages before the edits
+     * @param lastPostedMessages    GUID -> posted message the articles were compared with, holding the new content hashes
+     * @param postedMessages        index of posted messages
+     * @param archive               posted article archive
+     */
+    private void archiveEditedArticles(List<Article> editCandidates, Map<String, String> previousContentHashes,
+                                       Map<String, PostedMessage> lastPostedMessages, Map<String, PostedMessage> postedMessages,
+                                       PostedArticleArchive archive) {
+        final Instant editedAt = Instant.now();
+        int archivedCount = 0;
+        try {
+            for (Article article : editCandidates) {
+                final PostedMessage lastPostedMessage = lastPostedMessages.get(article.getGuid());
+                if (lastPostedMessage == null
+                        || Objects.equals(lastPostedMessage.getContentHash(), previousContentHashes.get(article.getGuid()))) {
+                    continue;
+                }
+                archive.append(toArchivedArticle(article, lastPostedMessage, editedAt));
+                archivedCount++;
+                final PostedMessage indexedMessage = postedMessages.get(article.getGuid());
+                if (indexedMessage != null) {
+                    indexedMessage.setContentHash(lastPostedMessage.getContentHash());
+                }
+            }
+            archive.flush();
+            log.debug("Archived {} edited articles.", archivedCount);
+        } catch (IOException e) {
+            log.error("Failed to archive edited articles.", e);
+        }
+    }
+
+    /**
+     * Builds the archive record of a posted or edited article.
+     *
+     * @param article       article as posted or edited
+     * @param postedMessage posted message of the article, or null if it is not known
+     * @param editedAt      time of the edit, null for a posting
+     * @return archive record
+     */
+    private static ArchivedArticle toArchivedArticle(Article article, PostedMessage postedMessage, Instant editedAt) {
+        return ArchivedArticle.builder()
+                .guid(article.getGuid())
+                .link(article.getLink())
+                .title(article.getTitle())
+                .categories(article.getCategories())
+                .publishedAt(article.getPublicationDate() != null ? article.getPublicationDate().toInstant() : null)
+                .postedAt(postedMessage != null && postedMessage.getPostedAt() != null
+                        ? postedMessage.getPostedAt().toInstant() : Instant.now())
+                .editedAt(editedAt)
+                .messageId(postedMessage != null ? postedMessage.getMessageId() : null)
+                .paywalled(article.isPaywalled())
+                .photo(postedMessage != null && postedMessage.isPhoto())
+                .contentHash(postedMessage != null ? postedMessage.getContentHash() : null)
+                .build();
+    }
+
+    /**
+     * Returns the content hashes of posted messages.
+     *
+     * @param postedMessages GUID -> posted message
+     * @return GUID -> content hash, without the messages that have none
+     */
+    private static Map<String, String> getContentHashes(Map<String, PostedMessage> postedMessages) {
+        final Map<String, String> contentHashes = new HashMap<>();
+        postedMessages.forEach((guid, postedMessage) -> {
+            if (postedMessage.getContentHash() != null) {
+                contentHashes.put(guid, postedMessage.getContentHash());
+            }
+        });
+        return contentHashes;
+    }
+
+    /**
+     * Reports how many articles were posted within the last day according to the archive, by this run and earlier ones.
+     *
+     * @param archive posted article archive
+     */
+    private void reportArchivedPostings(final PostedArticleArchive archive) {
+        final Instant now = Instant.now();
+        try {
+            reporter.setArticlesPostedLastDay(archive.findPostedBetween(now.minus(Duration.ofDays(1)), now).size());
+        } catch (IOException e) {
+            log.warn("Failed to count the articles posted within the last day in the archive: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Removes RSS items that the filter rules don't let through, e.g. the ones in unwanted/boring categories.
+     *
+     * @param items RSS items to be filtered
+     */
+    protected void removeFilteredItems(List<Item> items) {
+        final ArticleFilter filter = articleFilter.get();
+        if (!filter.isEmpty()) {
+            log.info("Filtering out items in unwanted/boring categories or on unwanted topics.");
+            items.removeIf(item -> !filter.accepts(item.getCategories(), item.getTitle().orElse(null), item.getDescription().orElse(null)));
+        }
+    }
+
+    /**
+     * Removes parsed articles that the filter rules don't let through.
+     *
+     * @param articles articles to be filtered
+     */
+    protected void removeFilteredArticles(List<Article> articles) {
+        final ArticleFilter filter = articleFilter.get();
+        if (!filter.isEmpty()) {
+            log.info("Filtering out items in unwanted/boring categories or on unwanted topics.");
+            articles.removeIf(article -> !filter.accepts(article.getCategories(), article.getTitle(), article.getDescription()));
+        }
+    }
+
+    /**
+     * Logs and reports how many items every filter rule matched.
+     */
+    private void reportFilterRuleHits() {
+        final ArticleFilter filter = articleFilter.get();
+        if (filter.isEmpty()) {
+            return;
+        }
+        final Map<String, Long> hits = filter.getHitCounts();
+        hits.forEach((rule, count) -> log.debug("Filter rule '{}' matched {} item{}.", rule, count, count == 1 ? "" : "s"));
+        reporter.setFilterRuleHits(hits);
+    }
+
+    /**
+     * Removes paywalled articles from the list.
+     *
+     * @param articles excluding paywalled ones
+     */
+    protected void removePaywalledArticles(List<Article> articles) {
+        final int initialSize = articles.size();
+        articles.removeIf(article -> {
+            if (article.isPaywalled()) {
+                reporter.recordArticle(article, ArticleOutcome.EXCLUDED_PAYWALLED);
+            }
+            return article.isPaywalled();
+        });
+        final int removedCount = initialSize - articles.size();
+        log.info("Removed {} paywalled article{}, {} remaining.", removedCount, removedCount == 1 ? "" : "s", articles.size());
     }
 
     /**
@@ -263,14 +1116,71 @@ public class SyncService {
      */
     private void writeSyncStatusToFile(SyncStatus syncStatus) {
         log.debug("Writing sync status to file: {}", syncStatus);
+        final StatusPersistenceEvent event = createStatusPersistenceEvent("write");
         try {
-            final FileWriter fileWriter = new FileWriter(settings.getStatusFile());
-            JsonUtils.getGson().toJson(syncStatus, fileWriter);
-            fileWriter.flush();
-            fileWriter.close();
+            statusStore.write(syncStatus);
         } catch (IOException e) {
+            event.failed();
             log.error("Failed to write sync status to file {}", settings.getStatusFile().getAbsolutePath(), e);
             throw new FeedReaderRuntimeException(e);
+        } finally {
+            event.commit();
+        }
+    }
+
+    private StatusPersistenceEvent createStatusPersistenceEvent(final String operation) {
+        final StatusPersistenceEvent event = new StatusPersistenceEvent();
+        event.begin();
+        event.setOperation(operation);
+        event.setFormat(String.valueOf(settings.getStatusFormat()));
+        return event;
+    }
+
+    /**
+     * Creates a status store for the configured status file and format.
+     *
+     * @param settings sync settings
+     * @return status store or null if no status file is used
+     */
+    private static StatusStore createStatusStore(final SyncSettings settings) {
+        if (settings.getStatusFile() == null) {
+            return null;
+        }
+        final StatusFormat format = settings.getStatusFormat() != null ? settings.getStatusFormat() : StatusFormat.JSON;
+        return StatusStore.create(settings.getStatusFile(), format);
+    }
+
+    /**
+     * Replaces the link of an article with its post-redirect URL, keeping the link if the lookup was rejected.
+     *
+     * @param article         article
+     * @param rejectedLookups articles whose lookups were rejected, the article is added if its lookup is
+     */
+    private void resolveLink(final Article article, final Set<Article> rejectedLookups) {
+        final long startTime = System.nanoTime();
+        try {
+            article.setLink(UrlUtils.followRedirects(article.getLink()));
+        } catch (HostUnavailableException e) {
+            log.warn("Link {} could not be looked up: {}", article.getLink(), e.getMessage());
+            rejectedLookups.add(article);
+        } finally {
+            Metrics.record(Stage.REDIRECT_RESOLUTION, startTime);
+        }
+    }
+
+    /**
+     * Sets the paywalled flag of an article, leaving it unset if the lookup was rejected.
+     *
+     * @param article         article
+     * @param rejectedLookups articles whose lookups were rejected, the article is added if its lookup is
+     */
+    private void updatePaywallFlag(final Article article, final Set<Article> rejectedLookups) {
+        try {
+            article.setPaywalled(findPaywallLabel(article.getLink()));
+        } catch (HostUnavailableException e) {
+            log.warn("Paywall of {} could not be checked: {}", article.getLink(), e.getMessage());
+            article.setPaywalled(false);
+            rejectedLookups.add(article);
         }
     }
 
@@ -281,24 +1191,79 @@ public class SyncService {
      * @return true if the article is paywalled, false otherwise
      */
     protected boolean hasPaywallLabel(final String url) {
+        try {
+            return findPaywallLabel(url);
+        } catch (HostUnavailableException e) {
+            log.warn("Paywall of {} could not be checked: {}", url, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Parses the HTML source code of a URL to check for the presence of a paywall label.
+     *
+     * @param url article URL
+     * @return true if the article is paywalled, false otherwise
+     * @throws HostUnavailableException if the circuit breaker or the bulkhead of the host rejected the lookup
+     */
+    private boolean findPaywallLabel(final String url) throws HostUnavailableException {
         if (url != null) {
+            final long startTime = System.nanoTime();
+            final PaywallCheckEvent event = new PaywallCheckEvent();
+            event.begin();
+            event.setHost(UrlUtils.getHost(url));
             try {
-                final Document htmlDocument = Jsoup.connect(url).get();
-                final Element paywallLabelElement = htmlDocument.select(PAYWALL_CSS_SELECTOR).first();
-                if (paywallLabelElement != null) {
-                    log.debug("Article is paywalled: {}", url);
-                    return true;
-                }
+                // articles sharing a link are checked once, the others wait for the result;
+                // not while recording or replaying, the number of page downloads must not depend on timing
+                final boolean paywalled = HttpTraffic.isActive()
+                        ? downloadPaywallLabel(url, event)
+                        : paywallChecks.execute(url, () -> downloadPaywallLabel(url, event));
+                event.setPaywalled(paywalled);
+                return paywalled;
+            } catch (HostUnavailableException e) {
+                event.failed();
+                throw e;
             } catch (IOException e) {
                 log.error("Failed to connect to URL: {}", url, e);
+                event.failed();
                 return false;
+            } finally {
+                event.commit();
+                Metrics.record(Stage.PAYWALL_CHECK, startTime);
             }
         }
         return false;
     }
 
+    /**
+     * Downloads an article page and looks for the paywall label.
+     *
+     * @param url   article URL
+     * @param event paywall check event of the call
+     * @return true if the article is paywalled, false otherwise
+     * @throws IOException if the page could not be downloaded
+     */
+    private boolean downloadPaywallLabel(final String url, final PaywallCheckEvent event) throws IOException {
+        final FetchedResponse response = HttpTraffic.exchange("GET", url, () -> {
+            final Connection.Response liveResponse = Jsoup.connect(url)
+                    .timeout((int) Deadline.cap(CONNECT_TIMEOUT.plus(READ_TIMEOUT)).toMillis())
+                    .execute();
+            return new FetchedResponse(liveResponse.statusCode(), liveResponse.multiHeaders(), liveResponse.bodyAsBytes());
+        });
+        event.setBytes(response.getBody().length);
+        Metrics.recordBytes(Stage.PAYWALL_CHECK, response.getBody().length);
+        final Document htmlDocument = Jsoup.parse(new ByteArrayInputStream(response.getBody()), null, url);
+        final Element paywallLabelElement = htmlDocument.select(PAYWALL_CSS_SELECTOR).first();
+        if (paywallLabelElement != null) {
+            log.debug("Article is paywalled: {}", url);
+            return true;
+        }
+        return false;
+    }
+
     // For testing purposes
     protected void setStatusFile(final File file) {
         this.settings.setStatusFile(file);
+        this.statusStore = createStatusStore(settings);
     }
 }
@@ -1,95 +1,313 @@
 package dev.dobicinaitis.feedreader.services;
 
+import com.google.common.hash.Hashing;
 import com.google.common.util.concurrent.RateLimiter;
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
 import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.ArticleOutcome;
+import dev.dobicinaitis.feedreader.dto.PostedMessage;
 import dev.dobicinaitis.feedreader.dto.TitleEmoji;
+import dev.dobicinaitis.feedreader.exceptions.DeadlineExceededException;
+import dev.dobicinaitis.feedreader.exceptions.UnconfirmedDeliveryException;
+import dev.dobicinaitis.feedreader.http.FetchedResponse;
+import dev.dobicinaitis.feedreader.http.HttpTraffic;
+import dev.dobicinaitis.feedreader.http.HttpTrafficInterceptor;
+import dev.dobicinaitis.feedreader.http.UnconfirmedDeliveryInterceptor;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.dobicinaitis.feedreader.metrics.Stage;
 import dev.dobicinaitis.feedreader.misc.LabelHolder;
+import dev.dobicinaitis.feedreader.profiling.ImagePrepareEvent;
+import dev.dobicinaitis.feedreader.profiling.RateLimitWaitEvent;
+import dev.dobicinaitis.feedreader.profiling.TelegramSendEvent;
+import dev.dobicinaitis.feedreader.report.RunReporter;
 import dev.dobicinaitis.feedreader.util.UrlUtils;
 import dev.failsafe.Failsafe;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
 import org.apache.commons.io.FilenameUtils;
 import org.telegram.telegrambots.client.okhttp.OkHttpTelegramClient;
+import org.telegram.telegrambots.meta.TelegramUrl;
+import org.telegram.telegrambots.meta.api.methods.botapimethods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
 import org.telegram.telegrambots.meta.api.methods.send.SendPhoto;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageCaption;
+import org.telegram.telegrambots.meta.api.methods.updatingmessages.EditMessageText;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
+import org.telegram.telegrambots.meta.api.objects.message.Message;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardRow;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.meta.generics.TelegramClient;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.Serializable;
+import java.net.HttpURLConnection;
+import java.net.URI;
 import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.regex.Pattern;
 
 import static dev.dobicinaitis.feedreader.configuration.FailsafeConfiguration.RETRY_POLICY;
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.CONNECT_TIMEOUT;
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.READ_TIMEOUT;
 
 @Slf4j
 public class TelegramService {
 
     private static final char[] SPECIAL_CHARACTERS = {'\\', '`', '*', '_', '{', '}', '[', ']', '<', '>', '(', ')', '#', '+', '-', '.', '!', '|'};
-    private static final int MESSAGES_PER_MINUTE = 20;
+    protected static final int MESSAGES_PER_MINUTE = 20;
     @SuppressWarnings("UnstableApiUsage")
     private static final RateLimiter rateLimiter = RateLimiter.create(MESSAGES_PER_MINUTE / 60.0);
+    // edits have a budget of their own, so that corrections don't delay new posts
+    @SuppressWarnings("UnstableApiUsage")
+    private static final RateLimiter editRateLimiter = RateLimiter.create(MESSAGES_PER_MINUTE / 60.0);
+
+    private static final String DEFAULT_API_URL = "https://api.telegram.org";
 
+    private final OkHttpClient httpClient;
+    private final String apiUrl;
     private final TelegramClient client;
     private final String channelId;
+    @Setter
+    private RunReporter reporter = new RunReporter();
 
     public TelegramService(String token, String channelId) {
-        this.client = new OkHttpTelegramClient(token);
+        this(token, channelId, null);
+    }
+
+    public TelegramService(String token, String channelId, String apiUrl) {
+        // Bot API calls go through the same record/replay layer as the rest of the outbound traffic
+        this.httpClient = new OkHttpClient.Builder()
+                .connectTimeout(CONNECT_TIMEOUT)
+                .readTimeout(READ_TIMEOUT)
+                .addInterceptor(new HttpTrafficInterceptor())
+                .addNetworkInterceptor(new UnconfirmedDeliveryInterceptor())
+                .build();
+        this.apiUrl = apiUrl == null ? DEFAULT_API_URL : apiUrl;
+        this.client = new OkHttpTelegramClient(httpClient, token, apiUrl == null ? TelegramUrl.DEFAULT_URL : toTelegramUrl(apiUrl));
         this.channelId = channelId;
         log.debug("Started Telegram bot, Channel ID: {}", channelId);
     }
 
+    /**
+     * Converts a Bot API base URL, e.g. http://localhost:8081, to the form used by the Telegram client.
+     *
+     * @param apiUrl Bot API base URL
+     * @return Telegram URL
+     */
+    private static TelegramUrl toTelegramUrl(final String apiUrl) {
+        final URI uri = URI.create(apiUrl);
+        final boolean https = "https".equalsIgnoreCase(uri.getScheme());
+        return TelegramUrl.builder()
+                .schema(uri.getScheme())
+                .host(uri.getHost())
+                .port(uri.getPort() != -1 ? uri.getPort() : https ? 443 : 80)
+                .build();
+    }
+
+    /**
+     * Opens a connection to the Bot API and leaves it in the connection pool of the Telegram client, so that the
+     * first post doesn't wait for the DNS lookup and TLS handshake. Failures are only logged.
+     */
+    public void prewarmConnection() {
+        // shares the connection pool, but not the recording interceptor, as this request has no effect on the run
+        final OkHttpClient.Builder prewarmClientBuilder = httpClient.newBuilder();
+        prewarmClientBuilder.interceptors().clear();
+        final OkHttpClient prewarmClient = prewarmClientBuilder.build();
+        final Request request = new Request.Builder().url(apiUrl).head().build();
+        try (Response ignored = prewarmClient.newCall(request).execute()) {
+            log.debug("Pre-warmed Bot API connection to {}.", UrlUtils.getHost(apiUrl));
+        } catch (IOException e) {
+            log.debug("Failed to pre-warm Bot API connection: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Changes the rate at which new messages are posted and edited. Meant for tests against a local Bot API
+     * stand-in, the default rate stays within the limits of the official Bot API.
+     *
+     * @param messagesPerMinute messages per minute
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    protected static void setMessagesPerMinute(final double messagesPerMinute) {
+        rateLimiter.setRate(messagesPerMinute / 60.0);
+        editRateLimiter.setRate(messagesPerMinute / 60.0);
+    }
+
+    /**
+     * Returns the rate at which new messages are posted, so that a changed rate can be restored.
+     *
+     * @return messages per minute
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    protected static double getMessagesPerMinute() {
+        return rateLimiter.getRate() * 60.0;
+    }
+
     /**
      * Posts new articles from the RSS feed to Telegram.
      *
-     * @param articles articles to post
-     * @return last posted article
+     * @param articles       articles to post
+     * @param postedMessages index of posted messages, will be updated with the newly posted ones
+     * @return successfully posted articles, in the order they were posted
      */
     @SuppressWarnings("UnstableApiUsage")
-    public Article postArticles(final List<Article> articles) {
-        Article lastPostedArticle = null;
-        int articlesPosted = 0;
-        for (Article article : articles) {
+    public List<Article> postArticles(final List<Article> articles, final Map<String, PostedMessage> postedMessages) {
+        final List<Article> postedArticles = new ArrayList<>();
+        for (int i = 0; i < articles.size(); i++) {
+            final Article article = articles.get(i);
+            // stop at the first article that can't be started in time, so that the watermark covers only what was posted;
+            // checked before and after the permit, as there is no point in waiting for one once the budget is used up
+            if (Deadline.isExpired()) {
+                deferArticles(articles.subList(i, articles.size()));
+                break;
+            }
             // acquire a permit from the rate limiter before sending a new message
-            rateLimiter.acquire();
+            final double waitedSeconds = acquirePermit(rateLimiter, "post");
+            if (Deadline.isExpired()) {
+                deferArticles(articles.subList(i, articles.size()));
+                break;
+            }
 
             // do some sanity checks
             if (article == null || article.getTitle().isEmpty() || article.getLink().isEmpty()) {
                 log.warn("Article is missing the title or link. Skipping.");
+                reporter.recordArticle(article, ArticleOutcome.SKIPPED);
                 continue;
             }
 
             log.debug("Posting article: {}", article);
-            boolean wasPosted;
+            final long startTime = System.nanoTime();
+            PostedMessage postedMessage;
 
             // decide whether to post a text-only article or an article with an image
             if (UrlUtils.isUrlValid(article.getImageUrl())) {
-                wasPosted = postArticle(article);
+                try {
+                    postedMessage = postArticle(article);
+                } catch (DeadlineExceededException e) {
+                    // posting it without the image would lose the image for good, the next run posts it in full
+                    deferArticles(articles.subList(i, articles.size()));
+                    break;
+                }
             } else {
-                wasPosted = postTextOnlyArticle(article);
+                postedMessage = postTextOnlyArticle(article);
             }
 
-            if (wasPosted) {
-                log.debug("Article posted successfully.");
-                lastPostedArticle = article;
-                articlesPosted++;
+            if (postedMessage != null) {
+                log.debug("Article posted successfully, message ID: {}.", postedMessage.getMessageId());
+                if (article.getGuid() != null) {
+                    postedMessages.put(article.getGuid(), postedMessage);
+                }
+                postedArticles.add(article);
+                Metrics.increment(Counter.ARTICLES_POSTED);
+                reporter.recordArticle(article, ArticleOutcome.POSTED, postedMessage.getMessageId(),
+                        waitedSeconds, System.nanoTime() - startTime);
+            } else {
+                Metrics.increment(Counter.ARTICLES_FAILED);
+                reporter.recordArticle(article, ArticleOutcome.FAILED, null, waitedSeconds, System.nanoTime() - startTime);
             }
         }
-        log.info("Successfully posted {} out of {} articles.", articlesPosted, articles.size());
-        return lastPostedArticle;
+        log.info("Successfully posted {} out of {} articles.", postedArticles.size(), articles.size());
+        return postedArticles;
+    }
+
+    /**
+     * Edits already posted Telegram messages of articles whose content has changed since they were posted.
+     *
+     * @param articles       previously posted articles, as they currently appear in the RSS feed
+     * @param postedMessages index of posted messages, will be updated with new content hashes
+     * @return number of edited messages
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    public int editChangedArticles(final List<Article> articles, final Map<String, PostedMessage> postedMessages) {
+        int articlesEdited = 0;
+        for (Article article : articles) {
+            final PostedMessage postedMessage = postedMessages.get(article.getGuid());
+            if (postedMessage == null || postedMessage.getMessageId() == null) {
+                continue;
+            }
+            final String contentHash = calculateContentHash(article);
+            if (contentHash.equals(postedMessage.getContentHash())) {
+                continue;
+            }
+
+            if (Deadline.isExpired()) {
+                log.warn("Time budget is used up, leaving the remaining edits to the next run.");
+                reporter.setStatus(RunReporter.PARTIAL);
+                break;
+            }
+            final double waitedSeconds = acquirePermit(editRateLimiter, "edit");
+            if (Deadline.isExpired()) {
+                // the content hash isn't updated, so the next run will check the article again
+                log.warn("Time budget is used up, leaving the remaining edits to the next run.");
+                reporter.setStatus(RunReporter.PARTIAL);
+                break;
+            }
+            log.debug("Article has changed, editing message {}: {}", postedMessage.getMessageId(), article);
+            final long startTime = System.nanoTime();
+            final boolean edited = editMessage(article, postedMessage);
+            if (edited) {
+                postedMessage.setContentHash(contentHash);
+                articlesEdited++;
+                Metrics.increment(Counter.ARTICLES_EDITED);
+            }
+            reporter.recordArticle(article, edited ? ArticleOutcome.EDITED : ArticleOutcome.EDIT_FAILED,
+                    postedMessage.getMessageId(), waitedSeconds, System.nanoTime() - startTime);
+        }
+        log.info("Edited {} previously posted article{}.", articlesEdited, articlesEdited == 1 ? "" : "s");
+        return articlesEdited;
+    }
+
+    /**
+     * Leaves articles for the next run, because the time budget of this run is used up.
+     *
+     * @param articles articles that were not attempted
+     */
+    private void deferArticles(final List<Article> articles) {
+        log.warn("Time budget is used up, leaving {} article{} to the next run.", articles.size(), articles.size() == 1 ? "" : "s");
+        reporter.setStatus(RunReporter.PARTIAL);
+        articles.forEach(article -> reporter.recordArticle(article, ArticleOutcome.DEFERRED));
+    }
+
+    /**
+     * Waits for a rate limiter permit and records the time spent waiting.
+     *
+     * @param limiter rate limiter
+     * @param name    rate limiter name used in profiling events
+     * @return time spent waiting in seconds
+     */
+    @SuppressWarnings("UnstableApiUsage")
+    private static double acquirePermit(final RateLimiter limiter, final String name) {
+        final RateLimitWaitEvent event = new RateLimitWaitEvent();
+        event.begin();
+        event.setLimiter(name);
+        final double waitedSeconds = limiter.acquire();
+        event.commit();
+        Metrics.recordNanos(Stage.RATE_LIMIT_WAIT, (long) (waitedSeconds * 1e9));
+        return waitedSeconds;
     }
 
     /**
      * Posts a single article with an image to Telegram.
      *
      * @param article article to post
-     * @return true if the article was posted successfully, false otherwise
+     * @return posted message details if the article was posted successfully, null otherwise
+     * @throws DeadlineExceededException if the time budget was used up before the image was prepared
      */
-    private boolean postArticle(final Article article) {
+    private PostedMessage postArticle(final Article article) throws DeadlineExceededException {
         final SendPhoto message;
         try {
             final InputFile imageFile = Failsafe.with(RETRY_POLICY)
@@ -97,22 +315,28 @@ public class TelegramService {
             message = SendPhoto.builder()
                     .chatId(channelId)
                     .photo(imageFile)
-                    .caption(prepareCaption(article))
+                    .caption(getCaption(article))
                     .parseMode("MarkdownV2")
                     .disableNotification(true)
-                    .replyMarkup(prepareKeyboard(article))
+                    .replyMarkup(getKeyboard(article))
                     .build();
         } catch (Exception e) {
+            if (Deadline.isExpired()) {
+                throw new DeadlineExceededException("Time budget is used up before the image was prepared: " + article.getImageUrl());
+            }
             log.info("Failed to prepare the image file, will try to post a text-only article instead.");
             return postTextOnlyArticle(article);
         }
 
         try {
-            Failsafe.with(RETRY_POLICY).run(() -> client.execute(message)); // obfuscate a TelegramApiException
-            return true;
+            final Message sentMessage = Failsafe.with(RETRY_POLICY).get(() -> {
+                // the upload consumes the image stream, rewind it in case this is a retry
+                message.getPhoto().getNewMediaStream().reset();
+                return execute(message);
+            }); // obfuscate a TelegramApiException
+            return toPostedMessage(sentMessage, article, true);
         } catch (Exception e) {
-            log.error("Failed to send message: {}", e.getMessage());
-            return false;
+            return handleSendFailure(e, article, true);
         }
     }
 
@@ -120,33 +344,192 @@ public class TelegramService {
      * Posts a single text-based article to Telegram.
      *
      * @param article article to post
-     * @return true if the article was posted successfully, false otherwise
+     * @return posted message details if the article was posted successfully, null otherwise
      */
-    private boolean postTextOnlyArticle(final Article article) {
+    private PostedMessage postTextOnlyArticle(final Article article) {
         final SendMessage message = SendMessage.builder()
                 .chatId(channelId)
-                .text(prepareCaption(article))
+                .text(getCaption(article))
                 .parseMode("MarkdownV2")
                 .disableNotification(true)
-                .replyMarkup(prepareKeyboard(article))
+                .replyMarkup(getKeyboard(article))
                 .build();
 
         try {
-            Failsafe.with(RETRY_POLICY).run(() -> client.execute(message)); // obfuscate a TelegramApiException
+            final Message sentMessage = Failsafe.with(RETRY_POLICY).get(() -> execute(message)); // obfuscate a TelegramApiException
+            return toPostedMessage(sentMessage, article, false);
+        } catch (Exception e) {
+            return handleSendFailure(e, article, false);
+        }
+    }
+
+    /**
+     * Handles a message that could not be sent. A message whose response timed out after the request was sent may
+     * already be in the channel, it is taken as posted, so that neither a retry nor the next run posts it twice.
+     * Without a message ID it can't be edited later.
+     *
+     * @param failure send failure
+     * @param article article that was being posted
+     * @param photo   true if the message was sent with an image
+     * @return posted message details without a message ID if the delivery is unconfirmed, null otherwise
+     */
+    private PostedMessage handleSendFailure(final Exception failure, final Article article, final boolean photo) {
+        if (UnconfirmedDeliveryException.isCauseOf(failure)) {
+            log.warn("Bot API didn't confirm the message in time, taking it as posted to avoid a duplicate: {}", article.getTitle());
+            return toPostedMessage(null, article, photo);
+        }
+        log.error("Failed to send message: {}", failure.getMessage());
+        return null;
+    }
+
+    /**
+     * Replaces the caption (photo messages) or text (text-only messages) of an already posted message.
+     *
+     * @param article       article with updated content
+     * @param postedMessage details of the message to edit
+     * @return true if the message was edited successfully, false otherwise
+     */
+    private boolean editMessage(final Article article, final PostedMessage postedMessage) {
+        try {
+            if (postedMessage.isPhoto()) {
+                final EditMessageCaption edit = EditMessageCaption.builder()
+                        .chatId(channelId)
+                        .messageId(postedMessage.getMessageId())
+                        .caption(getCaption(article))
+                        .parseMode("MarkdownV2")
+                        .replyMarkup(getKeyboard(article))
+                        .build();
+                Failsafe.with(RETRY_POLICY).run(() -> execute(edit)); // obfuscate a TelegramApiException
+            } else {
+                final EditMessageText edit = EditMessageText.builder()
+                        .chatId(channelId)
+                        .messageId(postedMessage.getMessageId())
+                        .text(getCaption(article))
+                        .parseMode("MarkdownV2")
+                        .replyMarkup(getKeyboard(article))
+                        .build();
+                Failsafe.with(RETRY_POLICY).run(() -> execute(edit)); // obfuscate a TelegramApiException
+            }
             return true;
         } catch (Exception e) {
-            log.error("Failed to send message: {}", e.getMessage());
+            log.error("Failed to edit message {}: {}", postedMessage.getMessageId(), e.getMessage());
             return false;
         }
     }
 
+    /**
+     * Sends a request to the Telegram API and records its duration.
+     *
+     * @param method Telegram API method
+     * @param <T>    response type
+     * @param <M>    Telegram API method type
+     * @return Telegram API response
+     * @throws TelegramApiException if the request failed
+     */
+    private <T extends Serializable, M extends BotApiMethod<T>> T execute(final M method) throws TelegramApiException {
+        final long startTime = System.nanoTime();
+        final TelegramSendEvent event = createTelegramSendEvent(method);
+        try {
+            return client.execute(method);
+        } catch (TelegramApiException | RuntimeException e) {
+            event.failed();
+            throw e;
+        } finally {
+            event.commit();
+            Metrics.record(Stage.TELEGRAM_SEND, startTime);
+        }
+    }
+
+    /**
+     * Sends a photo to the Telegram API and records its duration.
+     *
+     * @param method send photo request
+     * @return sent message
+     * @throws TelegramApiException if the request failed
+     */
+    private Message execute(final SendPhoto method) throws TelegramApiException {
+        final long startTime = System.nanoTime();
+        final TelegramSendEvent event = createTelegramSendEvent(method);
+        try {
+            return client.execute(method);
+        } catch (TelegramApiException | RuntimeException e) {
+            event.failed();
+            throw e;
+        } finally {
+            event.commit();
+            Metrics.record(Stage.TELEGRAM_SEND, startTime);
+        }
+    }
+
+    private static TelegramSendEvent createTelegramSendEvent(final Object method) {
+        final TelegramSendEvent event = new TelegramSendEvent();
+        event.begin();
+        event.setMethod(method.getClass().getSimpleName());
+        return event;
+    }
+
+    /**
+     * Creates a posted message index entry for a sent Telegram message.
+     *
+     * @param sentMessage message returned by the Telegram API
+     * @param article     article that was posted
+     * @param photo       true if the message was sent with an image
+     * @return posted message details
+     */
+    private PostedMessage toPostedMessage(final Message sentMessage, final Article article, final boolean photo) {
+        return PostedMessage.builder()
+                .messageId(sentMessage != null ? sentMessage.getMessageId() : null)
+                .contentHash(calculateContentHash(article))
+                .photo(photo)
+                .postedAt(ZonedDateTime.now())
+                .build();
+    }
+
+    /**
+     * Calculates a hash of the article content that is visible in Telegram (caption and button link).
+     *
+     * @param article article to hash
+     * @return content hash
+     */
+    protected static String calculateContentHash(final Article article) {
+        return Hashing.murmur3_128()
+                .hashString(getCaption(article) + "\n" + article.getLink(), StandardCharsets.UTF_8)
+                .toString();
+    }
+
+    /**
+     * Returns the caption of an article, it is prepared only once, however often the article is posted, edited or hashed.
+     *
+     * @param article article to get the caption for
+     * @return caption
+     */
+    private static String getCaption(final Article article) {
+        if (article.getCaption() == null) {
+            article.setCaption(prepareCaption(article));
+        }
+        return article.getCaption();
+    }
+
+    /**
+     * Returns the inline keyboard of an article, it is prepared only once unless the link changes.
+     *
+     * @param article article to get the keyboard for
+     * @return keyboard
+     */
+    private static InlineKeyboardMarkup getKeyboard(final Article article) {
+        if (article.getKeyboard() == null) {
+            article.setKeyboard(prepareKeyboard(article));
+        }
+        return article.getKeyboard();
+    }
+
     /**
      * Prepares a caption for a Telegram message.
      *
      * @param article to prepare the caption for
      * @return caption
      */
-    private String prepareCaption(final Article article) {
+    protected static String prepareCaption(final Article article) {
         final String paywallEmoji = article.isPaywalled() ? TitleEmoji.PAYWALL.getUnicode() : "";
         return """
                 %s *%s*
@@ -165,7 +548,7 @@ public class TelegramService {
      * @param article to prepare the keyboard for
      * @return keyboard
      */
-    private InlineKeyboardMarkup prepareKeyboard(final Article article) {
+    protected static InlineKeyboardMarkup prepareKeyboard(final Article article) {
         final InlineKeyboardButton readButton = InlineKeyboardButton.builder()
                 .text(LabelHolder.getReadButtonLabel())
                 .url(article.getLink())
@@ -184,10 +567,54 @@ public class TelegramService {
      * @throws IOException if the image could not be loaded
      */
     protected static InputFile prepareImage(final String imageUrl) throws IOException {
+        final long startTime = System.nanoTime();
+        final ImagePrepareEvent event = new ImagePrepareEvent();
+        event.begin();
+        event.setHost(UrlUtils.getHost(imageUrl));
         final URL url = new URL(imageUrl);
-        final InputStream imageStream = url.openStream();
+        // download the image up front, so that the time spent on it is not attributed to the Telegram upload
+        final byte[] image;
+        try {
+            final FetchedResponse response = HttpTraffic.exchange("GET", imageUrl, () -> downloadImage(url));
+            if (!response.isSuccessful()) {
+                throw new IOException("Image download failed with HTTP status " + response.getStatusCode() + ": " + imageUrl);
+            }
+            image = response.getBody();
+            event.setBytes(image.length);
+        } catch (IOException e) {
+            event.failed();
+            throw e;
+        } finally {
+            event.commit();
+            Metrics.record(Stage.IMAGE_DOWNLOAD, startTime);
+        }
+        Metrics.recordBytes(Stage.IMAGE_DOWNLOAD, image.length);
         final String randomFilename = UUID.randomUUID() + "." + FilenameUtils.getExtension(url.getPath());
-        return new InputFile(imageStream, randomFilename);
+        return new InputFile(new ByteArrayInputStream(image), randomFilename);
+    }
+
+    /**
+     * Downloads an image, keeping the status and headers of the response, so that recordings replay it as it was.
+     *
+     * @param url image URL
+     * @return response, with the error body if the server responded with an error
+     * @throws IOException if the image could not be downloaded
+     */
+    private static FetchedResponse downloadImage(final URL url) throws IOException {
+        final URLConnection connection = url.openConnection();
+        connection.setConnectTimeout((int) Deadline.cap(CONNECT_TIMEOUT).toMillis());
+        connection.setReadTimeout((int) Deadline.cap(READ_TIMEOUT).toMillis());
+        if (!(connection instanceof HttpURLConnection httpConnection)) {
+            try (InputStream imageStream = connection.getInputStream()) {
+                return new FetchedResponse(200, Map.of(), imageStream.readAllBytes());
+            }
+        }
+        final int statusCode = httpConnection.getResponseCode();
+        final InputStream imageStream = statusCode >= 400 ? httpConnection.getErrorStream() : httpConnection.getInputStream();
+        try (imageStream) {
+            final byte[] body = imageStream != null ? imageStream.readAllBytes() : new byte[0];
+            return new FetchedResponse(statusCode, httpConnection.getHeaderFields(), body);
+        }
     }
 
     /**
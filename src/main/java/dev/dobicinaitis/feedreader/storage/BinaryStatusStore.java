@@ -0,0 +1,293 @@
+package dev.dobicinaitis.feedreader.storage;
+
+import dev.dobicinaitis.feedreader.dto.FeedFetchSample;
+import dev.dobicinaitis.feedreader.dto.PostedMessage;
+import dev.dobicinaitis.feedreader.dto.SyncStatus;
+import dev.dobicinaitis.feedreader.util.FileUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact status store, keeps the sync status in a versioned binary file.
+ * <p>
+ * Layout: a 4-byte magic, a 1-byte format version and a sequence of sections. Every section starts with
+ * a 1-byte tag and a 4-byte payload length, so that readers can skip sections they don't know about.
+ * Known sections are read from a slice bounded by their length, so that fields appended to a section by a later
+ * version are skipped as well.
+ * The whole file is loaded with a single read and replaced atomically on write.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class BinaryStatusStore implements StatusStore {
+
+    static final byte[] MAGIC = {'A', 'L', 'T', 'S'};
+    static final byte FORMAT_VERSION = 1;
+
+    private static final byte SECTION_WATERMARK = 1;
+    private static final byte SECTION_POSTED_MESSAGES = 2;
+    private static final byte SECTION_FRESHNESS_LAG = 3;
+    private static final byte SECTION_TRIPPED_HOSTS = 4;
+    private static final byte SECTION_FEED_FETCH_SAMPLES = 5;
+    private static final byte SECTION_KNOWN_ORIGINS = 6;
+    private static final byte SECTION_ITEM_HASHES = 7;
+
+    private final File file;
+
+    @Override
+    public SyncStatus read() throws IOException {
+        if (!file.exists()) {
+            log.info("Status file {} does not exist, will create a new file.", file.getAbsolutePath());
+            return SyncStatus.builder().build();
+        }
+
+        final byte[] content = Files.readAllBytes(file.toPath());
+        if (content.length == 0) {
+            log.warn("Status file {} was empty.", file.getAbsolutePath());
+            return SyncStatus.builder().build();
+        }
+        if (content.length < MAGIC.length + 1 || !Arrays.equals(content, 0, MAGIC.length, MAGIC, 0, MAGIC.length)) {
+            throw new IOException("Not a binary status file: " + file.getAbsolutePath());
+        }
+        final byte version = content[MAGIC.length];
+        if (version > FORMAT_VERSION) {
+            throw new IOException("Unsupported binary status file version " + version + ", expected " + FORMAT_VERSION + " or lower.");
+        }
+
+        final SyncStatus syncStatus = SyncStatus.builder().build();
+        final DataInputStream in = new DataInputStream(
+                new ByteArrayInputStream(content, MAGIC.length + 1, content.length - MAGIC.length - 1));
+        while (in.available() > 0) {
+            final byte tag = in.readByte();
+            final int length = in.readInt();
+            if (length < 0 || length > in.available()) {
+                throw new IOException("Truncated section " + tag + " in binary status file " + file.getAbsolutePath());
+            }
+            final DataInputStream section = new DataInputStream(
+                    new ByteArrayInputStream(content, content.length - in.available(), length));
+            switch (tag) {
+                case SECTION_WATERMARK -> readWatermark(section, syncStatus);
+                case SECTION_POSTED_MESSAGES -> readPostedMessages(section, syncStatus);
+                case SECTION_FRESHNESS_LAG -> readFreshnessLag(section, syncStatus);
+                case SECTION_TRIPPED_HOSTS -> readTrippedHosts(section, syncStatus);
+                case SECTION_FEED_FETCH_SAMPLES -> readFeedFetchSamples(section, syncStatus);
+                case SECTION_KNOWN_ORIGINS -> readKnownOrigins(section, syncStatus);
+                case SECTION_ITEM_HASHES -> readItemHashes(section, syncStatus);
+                default -> log.debug("Skipping unknown status file section {}.", tag);
+            }
+            // fields a later version appended to a known section are skipped along with unknown sections
+            in.skipNBytes(length);
+        }
+        return syncStatus;
+    }
+
+    @Override
+    public void write(SyncStatus syncStatus) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.write(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        writeSection(out, SECTION_WATERMARK, section -> writeWatermark(section, syncStatus));
+        writeSection(out, SECTION_POSTED_MESSAGES, section -> writePostedMessages(section, syncStatus));
+        writeSection(out, SECTION_FRESHNESS_LAG, section -> writeFreshnessLag(section, syncStatus));
+        writeSection(out, SECTION_TRIPPED_HOSTS, section -> writeTrippedHosts(section, syncStatus));
+        writeSection(out, SECTION_FEED_FETCH_SAMPLES, section -> writeFeedFetchSamples(section, syncStatus));
+        writeSection(out, SECTION_KNOWN_ORIGINS, section -> writeKnownOrigins(section, syncStatus));
+        writeSection(out, SECTION_ITEM_HASHES, section -> writeItemHashes(section, syncStatus));
+        out.flush();
+        FileUtils.writeAtomically(file.toPath(), buffer.toByteArray());
+    }
+
+    private void writeWatermark(DataOutputStream out, SyncStatus syncStatus) throws IOException {
+        writeDateTime(out, syncStatus.getPublicationDateOfLastPostedArticle());
+        writeString(out, syncStatus.getTitleOfLastPostedArticle());
+    }
+
+    private void readWatermark(DataInputStream in, SyncStatus syncStatus) throws IOException {
+        syncStatus.setPublicationDateOfLastPostedArticle(readDateTime(in));
+        syncStatus.setTitleOfLastPostedArticle(readString(in));
+    }
+
+    private void writePostedMessages(DataOutputStream out, SyncStatus syncStatus) throws IOException {
+        final Map<String, PostedMessage> postedMessages = syncStatus.getPostedMessages() != null ? syncStatus.getPostedMessages() : Map.of();
+        out.writeInt(postedMessages.size());
+        for (Map.Entry<String, PostedMessage> entry : postedMessages.entrySet()) {
+            final PostedMessage postedMessage = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(postedMessage.getMessageId() != null ? postedMessage.getMessageId() : -1);
+            writeString(out, postedMessage.getContentHash());
+            out.writeBoolean(postedMessage.isPhoto());
+            writeDateTime(out, postedMessage.getPostedAt());
+        }
+    }
+
+    private void readPostedMessages(DataInputStream in, SyncStatus syncStatus) throws IOException {
+        final int count = in.readInt();
+        final Map<String, PostedMessage> postedMessages = HashMap.newHashMap(count);
+        for (int i = 0; i < count; i++) {
+            final String guid = in.readUTF();
+            final int messageId = in.readInt();
+            postedMessages.put(guid, PostedMessage.builder()
+                    .messageId(messageId >= 0 ? messageId : null)
+                    .contentHash(readString(in))
+                    .photo(in.readBoolean())
+                    .postedAt(readDateTime(in))
+                    .build());
+        }
+        syncStatus.setPostedMessages(postedMessages);
+    }
+
+    private void writeFreshnessLag(DataOutputStream out, SyncStatus syncStatus) throws IOException {
+        final List<Long> samples = syncStatus.getFreshnessLagSeconds() != null ? syncStatus.getFreshnessLagSeconds() : List.of();
+        out.writeInt(samples.size());
+        for (Long sample : samples) {
+            out.writeLong(sample);
+        }
+    }
+
+    private void readFreshnessLag(DataInputStream in, SyncStatus syncStatus) throws IOException {
+        final int count = in.readInt();
+        final List<Long> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            samples.add(in.readLong());
+        }
+        syncStatus.setFreshnessLagSeconds(samples);
+    }
+
+    private void writeTrippedHosts(DataOutputStream out, SyncStatus syncStatus) throws IOException {
+        final Map<String, Long> trippedHosts = syncStatus.getTrippedHosts() != null ? syncStatus.getTrippedHosts() : Map.of();
+        out.writeInt(trippedHosts.size());
+        for (Map.Entry<String, Long> entry : trippedHosts.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private void readTrippedHosts(DataInputStream in, SyncStatus syncStatus) throws IOException {
+        final int count = in.readInt();
+        final Map<String, Long> trippedHosts = new HashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            trippedHosts.put(in.readUTF(), in.readLong());
+        }
+        syncStatus.setTrippedHosts(trippedHosts);
+    }
+
+    private void writeFeedFetchSamples(DataOutputStream out, SyncStatus syncStatus) throws IOException {
+        final List<FeedFetchSample> samples = syncStatus.getFeedFetchSamples() != null ? syncStatus.getFeedFetchSamples() : List.of();
+        out.writeInt(samples.size());
+        for (FeedFetchSample sample : samples) {
+            out.writeLong(sample.getLatencyMillis());
+            out.writeBoolean(sample.isHedged());
+        }
+    }
+
+    private void readFeedFetchSamples(DataInputStream in, SyncStatus syncStatus) throws IOException {
+        final int count = in.readInt();
+        final List<FeedFetchSample> samples = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            samples.add(new FeedFetchSample(in.readLong(), in.readBoolean()));
+        }
+        syncStatus.setFeedFetchSamples(samples);
+    }
+
+    private void writeKnownOrigins(DataOutputStream out, SyncStatus syncStatus) throws IOException {
+        final List<String> origins = syncStatus.getKnownOrigins() != null ? syncStatus.getKnownOrigins() : List.of();
+        out.writeInt(origins.size());
+        for (String origin : origins) {
+            out.writeUTF(origin);
+        }
+    }
+
+    private void readKnownOrigins(DataInputStream in, SyncStatus syncStatus) throws IOException {
+        final int count = in.readInt();
+        final List<String> origins = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            origins.add(in.readUTF());
+        }
+        syncStatus.setKnownOrigins(origins);
+    }
+
+    private void writeItemHashes(DataOutputStream out, SyncStatus syncStatus) throws IOException {
+        final Map<String, Long> itemHashes = syncStatus.getItemHashes() != null ? syncStatus.getItemHashes() : Map.of();
+        out.writeInt(itemHashes.size());
+        for (Map.Entry<String, Long> entry : itemHashes.entrySet()) {
+            out.writeUTF(entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private void readItemHashes(DataInputStream in, SyncStatus syncStatus) throws IOException {
+        final int count = in.readInt();
+        final Map<String, Long> itemHashes = HashMap.newHashMap(count);
+        for (int i = 0; i < count; i++) {
+            itemHashes.put(in.readUTF(), in.readLong());
+        }
+        syncStatus.setItemHashes(itemHashes);
+    }
+
+    /**
+     * Writes a length-prefixed section.
+     *
+     * @param out    output stream
+     * @param tag    section tag
+     * @param writer writes the section payload
+     * @throws IOException if the section could not be written
+     */
+    private static void writeSection(DataOutputStream out, byte tag, SectionWriter writer) throws IOException {
+        final ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        final DataOutputStream section = new DataOutputStream(payload);
+        writer.write(section);
+        section.flush();
+        out.writeByte(tag);
+        out.writeInt(payload.size());
+        payload.writeTo(out);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeDateTime(DataOutputStream out, ZonedDateTime value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value.toEpochSecond());
+            out.writeInt(value.getNano());
+            out.writeUTF(value.getZone().getId());
+        }
+    }
+
+    private static ZonedDateTime readDateTime(DataInputStream in) throws IOException {
+        if (!in.readBoolean()) {
+            return null;
+        }
+        final Instant instant = Instant.ofEpochSecond(in.readLong(), in.readInt());
+        return ZonedDateTime.ofInstant(instant, ZoneId.of(in.readUTF()));
+    }
+
+    @FunctionalInterface
+    private interface SectionWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+}
@@ -0,0 +1,44 @@
+package dev.dobicinaitis.feedreader.storage;
+
+import dev.dobicinaitis.feedreader.dto.SyncStatus;
+import dev.dobicinaitis.feedreader.util.FileUtils;
+import dev.dobicinaitis.feedreader.util.JsonUtils;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Human-readable status store, keeps the sync status in a pretty-printed JSON file.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class JsonStatusStore implements StatusStore {
+
+    private final File file;
+
+    @Override
+    public SyncStatus read() throws IOException {
+        if (!file.exists()) {
+            log.info("Status file {} does not exist, will create a new file.", file.getAbsolutePath());
+            return SyncStatus.builder().build();
+        }
+
+        final String json = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+        final SyncStatus syncStatus = JsonUtils.getGson().fromJson(json, SyncStatus.class);
+        if (syncStatus == null) {
+            log.warn("Status file {} was empty.", file.getAbsolutePath());
+            return SyncStatus.builder().build();
+        }
+        return syncStatus;
+    }
+
+    @Override
+    public void write(SyncStatus syncStatus) throws IOException {
+        final String json = JsonUtils.getGson().toJson(syncStatus);
+        FileUtils.writeAtomically(file.toPath(), json.getBytes(StandardCharsets.UTF_8));
+    }
+}
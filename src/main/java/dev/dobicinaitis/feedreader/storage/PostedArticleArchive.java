@@ -0,0 +1,618 @@
+package dev.dobicinaitis.feedreader.storage;
+
+import com.google.common.hash.Hashing;
+import dev.dobicinaitis.feedreader.dto.ArchivedArticle;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only archive of articles posted to Telegram.
+ * <p>
+ * Records are appended to segment files ({@code <segment>.log}) that are rolled over once they reach
+ * {@link #SEGMENT_SIZE_IN_BYTES}. Every segment has a sparse time index ({@code <segment>.idx}) with the time
+ * and position of every {@link #TIME_INDEX_INTERVAL}th record, which allows time range scans to seek close
+ * to the first matching record. An edited message is appended as a new record of the article, so that lookups
+ * return what the message shows now. A shared key index ({@code keys.idx}) maps the hashes of article GUIDs and links
+ * to record positions, so lookups read a single record instead of the whole history.
+ * <p>
+ * The key index is kept in memory once the first lookup loads it: 20 bytes per key on disk, two keys per article.
+ * Runs that look nothing up, e.g. the ones with nothing new to post, only read its last entry. At a few hundred
+ * articles a day that is a few megabytes after years of history, past that it should become an on-disk hash table.
+ * <p>
+ * The archive is locked by the run that opened it ({@code archive.lock} in the archive directory), so that
+ * overlapping runs don't interleave their writes, even when no status file is used.
+ */
+@Slf4j
+public class PostedArticleArchive implements Closeable {
+
+    static final long SEGMENT_SIZE_IN_BYTES = 1024 * 1024;
+    static final int TIME_INDEX_INTERVAL = 32;
+
+    private static final String LOG_SUFFIX = ".log";
+    private static final String TIME_INDEX_SUFFIX = ".idx";
+    private static final String KEY_INDEX_FILE = "keys.idx";
+    // locked as archive.lock
+    private static final String LOCK_NAME = "archive";
+    private static final int RECORD_HEADER_SIZE = Integer.BYTES * 2; // length + CRC32
+    private static final int TIME_INDEX_ENTRY_SIZE = Long.BYTES * 2; // posting time + position
+    private static final int KEY_INDEX_ENTRY_SIZE = Long.BYTES + Integer.BYTES + Long.BYTES; // hash + segment + position
+    // version 2 added the edit time, the photo flag and the content hash at the end of the record
+    private static final byte RECORD_VERSION = 2;
+
+    private final Path directory;
+    // segment number -> posting time of the first record in the segment
+    private final TreeMap<Integer, Long> segments = new TreeMap<>();
+    private final StatusFileLock lock;
+    // key hash -> packed segment number and record position, loaded on the first lookup
+    private Map<Long, Long> keyIndex;
+
+    private int activeSegment;
+    private FileChannel activeLog;
+    private FileChannel activeTimeIndex;
+    private FileChannel keyIndexChannel;
+    private int recordsInActiveSegment;
+
+    private PostedArticleArchive(Path directory, StatusFileLock lock) {
+        this.directory = directory;
+        this.lock = lock;
+    }
+
+    /**
+     * Opens the archive in the given directory, creating it if necessary.
+     * A partially written record at the end of the archive (e.g. after a crash) is discarded.
+     *
+     * @param directory archive directory
+     * @return opened archive
+     * @throws IOException if the archive could not be opened or is locked by another run
+     */
+    public static PostedArticleArchive open(final Path directory) throws IOException {
+        final PostedArticleArchive archive = open(directory, Duration.ZERO);
+        if (archive == null) {
+            throw new IOException("Posted article archive " + directory + " is locked by another run.");
+        }
+        return archive;
+    }
+
+    /**
+     * Locks and opens the archive in the given directory, creating it if necessary.
+     * A partially written record at the end of the archive (e.g. after a crash) is discarded.
+     *
+     * @param directory   archive directory
+     * @param lockTimeout maximum time to wait for another run to close the archive, zero to not wait at all
+     * @return opened archive, or null if it is locked by another run
+     * @throws IOException if the archive could not be opened
+     */
+    public static PostedArticleArchive open(final Path directory, final Duration lockTimeout) throws IOException {
+        Files.createDirectories(directory);
+        final StatusFileLock lock = StatusFileLock.acquire(directory.resolve(LOCK_NAME).toFile(), lockTimeout);
+        if (lock == null) {
+            return null;
+        }
+        final PostedArticleArchive archive = new PostedArticleArchive(directory, lock);
+        try {
+            archive.load();
+        } catch (IOException | RuntimeException e) {
+            lock.close();
+            throw e;
+        }
+        return archive;
+    }
+
+    /**
+     * Appends a posted article to the archive.
+     *
+     * @param article posted article
+     * @throws IOException if the article could not be written
+     */
+    public synchronized void append(final ArchivedArticle article) throws IOException {
+        if (activeLog.size() >= SEGMENT_SIZE_IN_BYTES) {
+            rollSegment();
+        }
+        final byte[] payload = encode(article);
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt(crc(payload))
+                .put(payload)
+                .flip();
+        final long position = activeLog.size();
+        writeFully(activeLog, record);
+
+        indexTime(article, position);
+        indexKeys(article, activeSegment, position);
+    }
+
+    /**
+     * Flushes all appended records and indexes to disk.
+     *
+     * @throws IOException if the archive could not be flushed
+     */
+    public synchronized void flush() throws IOException {
+        activeLog.force(true);
+        activeTimeIndex.force(true);
+        keyIndexChannel.force(true);
+    }
+
+    /**
+     * Finds the most recently archived article with the given GUID or link, i.e. its last edit if it was edited.
+     *
+     * @param guidOrLink article GUID or link
+     * @return archived article, or empty if it has never been posted
+     * @throws IOException if the archive could not be read
+     */
+    public synchronized Optional<ArchivedArticle> find(final String guidOrLink) throws IOException {
+        if (guidOrLink == null) {
+            return Optional.empty();
+        }
+        final Long location = getKeyIndex().get(hash(guidOrLink));
+        if (location == null) {
+            return Optional.empty();
+        }
+        final int segment = (int) (location >>> 48);
+        final long position = location & 0xFFFF_FFFF_FFFFL;
+        try (FileChannel channel = FileChannel.open(logFile(segment), StandardOpenOption.READ)) {
+            final ArchivedArticle article = readRecord(channel, position);
+            // guard against hash collisions
+            if (article != null && (guidOrLink.equals(article.getGuid()) || guidOrLink.equals(article.getLink()))) {
+                return Optional.of(article);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Returns true if an article with the given GUID or link has already been posted.
+     *
+     * @param guidOrLink article GUID or link
+     * @return true if the article has been archived, false otherwise
+     * @throws IOException if the archive could not be read
+     */
+    public boolean contains(final String guidOrLink) throws IOException {
+        return find(guidOrLink).isPresent();
+    }
+
+    /**
+     * Returns articles posted within the given time range (inclusive), oldest first, as they were posted; records of
+     * edits are left out. Only the segments overlapping the range are read, starting from the closest time index entry.
+     *
+     * @param from start of the range
+     * @param to   end of the range
+     * @return archived articles
+     * @throws IOException if the archive could not be read
+     */
+    public synchronized List<ArchivedArticle> findPostedBetween(final Instant from, final Instant to) throws IOException {
+        final long fromMillis = from.toEpochMilli();
+        final long toMillis = to.toEpochMilli();
+        final List<ArchivedArticle> result = new ArrayList<>();
+        for (Map.Entry<Integer, Long> entry : segments.entrySet()) {
+            final Map.Entry<Integer, Long> next = segments.higherEntry(entry.getKey());
+            // not a break, a segment without records keeps Long.MAX_VALUE and a clock set back can start a later
+            // segment earlier
+            if (entry.getValue() > toMillis) {
+                continue;
+            }
+            if (next != null && next.getValue() < fromMillis) {
+                continue;
+            }
+            scanSegment(entry.getKey(), fromMillis, toMillis, result);
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            try {
+                activeLog.close();
+                activeTimeIndex.close();
+                keyIndexChannel.close();
+            } finally {
+                lock.close();
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith(LOG_SUFFIX))
+                    .map(name -> Integer.parseInt(name.substring(0, name.length() - LOG_SUFFIX.length())))
+                    .forEach(segment -> segments.put(segment, Long.MAX_VALUE));
+        }
+        final Integer lastSegment = segments.isEmpty() ? null : segments.lastKey();
+        for (Integer segment : segments.keySet()) {
+            List<long[]> timeIndex = readTimeIndex(segment);
+            // the time index of the active segment is completed by the recovery below
+            if (timeIndex.isEmpty() && !segment.equals(lastSegment)) {
+                timeIndex = rebuildTimeIndex(segment);
+            }
+            if (!timeIndex.isEmpty()) {
+                segments.put(segment, timeIndex.getFirst()[0]);
+            }
+        }
+
+        // segments are numbered from 1, the segment number is packed into the upper 16 bits of key index entries
+        activeSegment = segments.isEmpty() ? 1 : segments.lastKey();
+        keyIndexChannel = FileChannel.open(directory.resolve(KEY_INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final long lastIndexedPosition = findLastIndexedPosition();
+        openActiveSegment();
+        recoverActiveSegment(lastIndexedPosition);
+        if (segments.get(activeSegment) != null && segments.get(activeSegment) == Long.MAX_VALUE) {
+            segments.remove(activeSegment);
+        }
+        log.debug("Opened posted article archive {} with {} segment(s) and {} indexed key(s).",
+                directory, segments.size(), keyIndexChannel.size() / KEY_INDEX_ENTRY_SIZE);
+    }
+
+    /**
+     * Drops a partially written key index entry and reads the last one. Entries are appended in the order
+     * the records are written, so the last entry belongs to the last indexed record.
+     *
+     * @return position of the last indexed record in the active segment, or -1 if there is none
+     * @throws IOException if the key index could not be read
+     */
+    private long findLastIndexedPosition() throws IOException {
+        final long size = keyIndexChannel.size() - keyIndexChannel.size() % KEY_INDEX_ENTRY_SIZE;
+        keyIndexChannel.truncate(size);
+        keyIndexChannel.position(size);
+        if (size == 0) {
+            return -1;
+        }
+        final ByteBuffer entry = ByteBuffer.allocate(KEY_INDEX_ENTRY_SIZE);
+        readFully(keyIndexChannel, entry, size - KEY_INDEX_ENTRY_SIZE);
+        entry.flip();
+        entry.getLong();
+        final int segment = entry.getInt();
+        final long position = entry.getLong();
+        return segment == activeSegment ? position : -1;
+    }
+
+    /**
+     * Returns the key index, loading it into memory on first use.
+     *
+     * @return key hash -> packed segment number and record position
+     * @throws IOException if the key index could not be read
+     */
+    private Map<Long, Long> getKeyIndex() throws IOException {
+        if (keyIndex != null) {
+            return keyIndex;
+        }
+        final long size = keyIndexChannel.size();
+        final ByteBuffer buffer = ByteBuffer.allocate((int) size);
+        readFully(keyIndexChannel, buffer, 0);
+        buffer.flip();
+        final Map<Long, Long> entries = HashMap.newHashMap((int) (size / KEY_INDEX_ENTRY_SIZE));
+        while (buffer.remaining() >= KEY_INDEX_ENTRY_SIZE) {
+            final long hash = buffer.getLong();
+            final int segment = buffer.getInt();
+            entries.put(hash, pack(segment, buffer.getLong()));
+        }
+        keyIndex = entries;
+        return keyIndex;
+    }
+
+    private void openActiveSegment() throws IOException {
+        activeLog = FileChannel.open(logFile(activeSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeTimeIndex = FileChannel.open(timeIndexFile(activeSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        activeTimeIndex.truncate(activeTimeIndex.size() - activeTimeIndex.size() % TIME_INDEX_ENTRY_SIZE);
+        activeTimeIndex.position(activeTimeIndex.size());
+        recordsInActiveSegment = 0;
+    }
+
+    /**
+     * Validates the tail of the active segment, truncates a partially written record and indexes records
+     * that were written but not indexed before the previous run ended.
+     *
+     * @param lastIndexedPosition position of the last record with key index entries
+     * @throws IOException if the segment could not be recovered
+     */
+    private void recoverActiveSegment(final long lastIndexedPosition) throws IOException {
+        final List<long[]> timeIndex = readTimeIndex(activeSegment);
+        final long lastTimeIndexedPosition = timeIndex.isEmpty() ? -1 : timeIndex.getLast()[1];
+        long position = Math.max(0, lastTimeIndexedPosition);
+        recordsInActiveSegment = Math.max(0, timeIndex.size() - 1) * TIME_INDEX_INTERVAL;
+        while (position < activeLog.size()) {
+            final ArchivedArticle article = readRecord(activeLog, position);
+            if (article == null) {
+                log.warn("Discarding a partially written record at the end of archive segment {}.", logFile(activeSegment));
+                activeLog.truncate(position);
+                break;
+            }
+            if (position > lastTimeIndexedPosition) {
+                indexTime(article, position);
+            } else {
+                recordsInActiveSegment++;
+            }
+            if (position > lastIndexedPosition) {
+                indexKeys(article, activeSegment, position);
+            }
+            position += RECORD_HEADER_SIZE + readLength(activeLog, position);
+        }
+        activeLog.position(activeLog.size());
+    }
+
+    /**
+     * Adds a sparse time index entry for every {@link #TIME_INDEX_INTERVAL}th record of the active segment.
+     *
+     * @param article  appended article
+     * @param position position of the record in the active segment
+     * @throws IOException if the time index could not be written
+     */
+    private void indexTime(ArchivedArticle article, long position) throws IOException {
+        final long recordedAt = getRecordedAt(article);
+        if (segments.getOrDefault(activeSegment, Long.MAX_VALUE) == Long.MAX_VALUE) {
+            segments.put(activeSegment, recordedAt);
+        }
+        if (recordsInActiveSegment % TIME_INDEX_INTERVAL == 0) {
+            writeFully(activeTimeIndex, ByteBuffer.allocate(TIME_INDEX_ENTRY_SIZE).putLong(recordedAt).putLong(position).flip());
+        }
+        recordsInActiveSegment++;
+    }
+
+    /**
+     * Writes the time index of a closed segment again from its records, e.g. after the index file was lost.
+     * Without it the segment would look empty to time range scans.
+     *
+     * @param segment segment number
+     * @return time index entries
+     * @throws IOException if the segment could not be read or the index could not be written
+     */
+    private List<long[]> rebuildTimeIndex(int segment) throws IOException {
+        final List<long[]> entries = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(logFile(segment), StandardOpenOption.READ);
+             FileChannel timeIndex = FileChannel.open(timeIndexFile(segment),
+                     StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            int records = 0;
+            while (position < channel.size()) {
+                final ArchivedArticle article = readRecord(channel, position);
+                if (article == null) {
+                    break;
+                }
+                if (records % TIME_INDEX_INTERVAL == 0) {
+                    final long recordedAt = getRecordedAt(article);
+                    entries.add(new long[]{recordedAt, position});
+                    writeFully(timeIndex, ByteBuffer.allocate(TIME_INDEX_ENTRY_SIZE).putLong(recordedAt).putLong(position).flip());
+                }
+                records++;
+                position += RECORD_HEADER_SIZE + readLength(channel, position);
+            }
+            timeIndex.force(true);
+        }
+        if (!entries.isEmpty()) {
+            log.warn("Rebuilt the missing time index of archive segment {}.", logFile(segment));
+        }
+        return entries;
+    }
+
+    private void rollSegment() throws IOException {
+        activeLog.force(true);
+        activeTimeIndex.force(true);
+        activeLog.close();
+        activeTimeIndex.close();
+        activeSegment++;
+        openActiveSegment();
+    }
+
+    private void scanSegment(int segment, long fromMillis, long toMillis, List<ArchivedArticle> result) throws IOException {
+        long position = 0;
+        for (long[] entry : readTimeIndex(segment)) {
+            if (entry[0] >= fromMillis) {
+                break;
+            }
+            position = entry[1];
+        }
+        try (FileChannel channel = FileChannel.open(logFile(segment), StandardOpenOption.READ)) {
+            final long size = channel.size();
+            while (position < size) {
+                final ArchivedArticle article = readRecord(channel, position);
+                if (article == null) {
+                    break;
+                }
+                if (getRecordedAt(article) > toMillis) {
+                    break;
+                }
+                final long postedAt = article.getPostedAt().toEpochMilli();
+                if (article.getEditedAt() == null && postedAt >= fromMillis && postedAt <= toMillis) {
+                    result.add(article);
+                }
+                position += RECORD_HEADER_SIZE + readLength(channel, position);
+            }
+        }
+    }
+
+    private List<long[]> readTimeIndex(int segment) throws IOException {
+        final Path file = timeIndexFile(segment);
+        final List<long[]> entries = new ArrayList<>();
+        if (!Files.exists(file)) {
+            return entries;
+        }
+        final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        while (buffer.remaining() >= TIME_INDEX_ENTRY_SIZE) {
+            entries.add(new long[]{buffer.getLong(), buffer.getLong()});
+        }
+        return entries;
+    }
+
+    private void indexKeys(ArchivedArticle article, int segment, long position) throws IOException {
+        for (String key : new String[]{article.getGuid(), article.getLink()}) {
+            if (key == null) {
+                continue;
+            }
+            final long hash = hash(key);
+            // once loaded, the in-memory index is kept up to date, until then the entries are read from the file
+            if (keyIndex != null) {
+                keyIndex.put(hash, pack(segment, position));
+            }
+            writeFully(keyIndexChannel, ByteBuffer.allocate(KEY_INDEX_ENTRY_SIZE)
+                    .putLong(hash).putInt(segment).putLong(position).flip());
+        }
+    }
+
+    /**
+     * Reads a record at the given position.
+     *
+     * @return archived article, or null if the record is incomplete or corrupt
+     */
+    private static ArchivedArticle readRecord(FileChannel channel, long position) throws IOException {
+        if (position + RECORD_HEADER_SIZE > channel.size()) {
+            return null;
+        }
+        final ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        readFully(channel, header, position);
+        header.flip();
+        final int length = header.getInt();
+        final int checksum = header.getInt();
+        if (length <= 0 || position + RECORD_HEADER_SIZE + length > channel.size()) {
+            return null;
+        }
+        final ByteBuffer payload = ByteBuffer.allocate(length);
+        readFully(channel, payload, position + RECORD_HEADER_SIZE);
+        if (crc(payload.array()) != checksum) {
+            return null;
+        }
+        return decode(payload.array());
+    }
+
+    private static int readLength(FileChannel channel, long position) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES);
+        readFully(channel, buffer, position);
+        return buffer.flip().getInt();
+    }
+
+    private static byte[] encode(ArchivedArticle article) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        final DataOutputStream out = new DataOutputStream(buffer);
+        out.writeByte(RECORD_VERSION);
+        out.writeLong(article.getPostedAt().toEpochMilli());
+        out.writeLong(article.getPublishedAt() != null ? article.getPublishedAt().toEpochMilli() : Long.MIN_VALUE);
+        out.writeInt(article.getMessageId() != null ? article.getMessageId() : -1);
+        out.writeBoolean(article.isPaywalled());
+        writeString(out, article.getGuid());
+        writeString(out, article.getLink());
+        writeString(out, article.getTitle());
+        final List<String> categories = article.getCategories() != null ? article.getCategories() : List.of();
+        out.writeShort(categories.size());
+        for (String category : categories) {
+            out.writeUTF(category);
+        }
+        out.writeBoolean(article.isPhoto());
+        out.writeLong(article.getEditedAt() != null ? article.getEditedAt().toEpochMilli() : Long.MIN_VALUE);
+        writeString(out, article.getContentHash());
+        out.flush();
+        return buffer.toByteArray();
+    }
+
+    private static ArchivedArticle decode(byte[] payload) throws IOException {
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+        final byte version = in.readByte();
+        final long postedAt = in.readLong();
+        final long publishedAt = in.readLong();
+        final int messageId = in.readInt();
+        final boolean paywalled = in.readBoolean();
+        final String guid = readString(in);
+        final String link = readString(in);
+        final String title = readString(in);
+        final int categoryCount = in.readUnsignedShort();
+        final List<String> categories = new ArrayList<>(categoryCount);
+        for (int i = 0; i < categoryCount; i++) {
+            categories.add(in.readUTF());
+        }
+        final boolean photo = version >= 2 && in.readBoolean();
+        final long editedAt = version >= 2 ? in.readLong() : Long.MIN_VALUE;
+        final String contentHash = version >= 2 ? readString(in) : null;
+        return ArchivedArticle.builder()
+                .guid(guid)
+                .link(link)
+                .title(title)
+                .categories(categories)
+                .publishedAt(publishedAt != Long.MIN_VALUE ? Instant.ofEpochMilli(publishedAt) : null)
+                .postedAt(Instant.ofEpochMilli(postedAt))
+                .editedAt(editedAt != Long.MIN_VALUE ? Instant.ofEpochMilli(editedAt) : null)
+                .messageId(messageId >= 0 ? messageId : null)
+                .paywalled(paywalled)
+                .photo(photo)
+                .contentHash(contentHash)
+                .build();
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        channel.position(channel.size());
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position + buffer.position());
+            if (read < 0) {
+                throw new IOException("Unexpected end of archive file.");
+            }
+        }
+    }
+
+    private static int crc(byte[] bytes) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+
+    // records are ordered by the time they were written: the posting time, or the edit time of an edit
+    private static long getRecordedAt(ArchivedArticle article) {
+        return (article.getEditedAt() != null ? article.getEditedAt() : article.getPostedAt()).toEpochMilli();
+    }
+
+    private static long hash(String key) {
+        return Hashing.farmHashFingerprint64().hashString(key, StandardCharsets.UTF_8).asLong();
+    }
+
+    private static long pack(int segment, long position) {
+        return ((long) segment << 48) | position;
+    }
+
+    private Path logFile(int segment) {
+        return directory.resolve("%020d%s".formatted(segment, LOG_SUFFIX));
+    }
+
+    private Path timeIndexFile(int segment) {
+        return directory.resolve("%020d%s".formatted(segment, TIME_INDEX_SUFFIX));
+    }
+}
@@ -0,0 +1,97 @@
+package dev.dobicinaitis.feedreader.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+
+/**
+ * Exclusive lock that prevents overlapping runs from using the same status file.
+ * <p>
+ * The lock is held on a separate {@code <status file>.lock} file, as the status file itself
+ * gets replaced on every write. The posted article archive is locked the same way.
+ */
+@Slf4j
+public class StatusFileLock implements AutoCloseable {
+
+    private static final String LOCK_FILE_SUFFIX = ".lock";
+    private static final long RETRY_INTERVAL_IN_MILLIS = 200;
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private StatusFileLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * Acquires an exclusive lock for the given status file, waiting up to the given timeout.
+     *
+     * @param statusFile status file to lock
+     * @param timeout    maximum time to wait for another run to release the lock, zero to not wait at all
+     * @return the acquired lock, or null if the lock is held by another run
+     * @throws IOException if the lock file could not be opened
+     */
+    public static StatusFileLock acquire(final File statusFile, final Duration timeout) throws IOException {
+        final Path lockFile = getLockFile(statusFile);
+        final FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        try {
+            while (true) {
+                final FileLock lock = tryLock(channel);
+                if (lock != null) {
+                    log.debug("Acquired status file lock {}.", lockFile);
+                    return new StatusFileLock(channel, lock);
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    channel.close();
+                    return null;
+                }
+                log.debug("Status file lock {} is held by another run, waiting.", lockFile);
+                Thread.sleep(RETRY_INTERVAL_IN_MILLIS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            channel.close();
+            return null;
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the lock file used for the given status file.
+     *
+     * @param statusFile status file
+     * @return lock file path
+     */
+    public static Path getLockFile(final File statusFile) {
+        return statusFile.toPath().resolveSibling(statusFile.getName() + LOCK_FILE_SUFFIX);
+    }
+
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // already locked by this JVM
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
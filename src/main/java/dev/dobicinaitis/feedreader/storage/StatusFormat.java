@@ -0,0 +1,9 @@
+package dev.dobicinaitis.feedreader.storage;
+
+/**
+ * Supported status file formats.
+ */
+public enum StatusFormat {
+    JSON,
+    BINARY
+}
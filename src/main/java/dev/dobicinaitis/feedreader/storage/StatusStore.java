@@ -0,0 +1,42 @@
+package dev.dobicinaitis.feedreader.storage;
+
+import dev.dobicinaitis.feedreader.dto.SyncStatus;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Persists the sync status between runs.
+ */
+public interface StatusStore {
+
+    /**
+     * Reads the sync status.
+     *
+     * @return stored sync status, or a new empty sync status if nothing has been stored yet
+     * @throws IOException if the stored status could not be read
+     */
+    SyncStatus read() throws IOException;
+
+    /**
+     * Replaces the stored sync status.
+     *
+     * @param syncStatus sync status to store
+     * @throws IOException if the status could not be written
+     */
+    void write(SyncStatus syncStatus) throws IOException;
+
+    /**
+     * Creates a status store for the given file and format.
+     *
+     * @param file   status file
+     * @param format status file format
+     * @return status store
+     */
+    static StatusStore create(final File file, final StatusFormat format) {
+        return switch (format) {
+            case JSON -> new JsonStatusStore(file);
+            case BINARY -> new BinaryStatusStore(file);
+        };
+    }
+}
@@ -0,0 +1,60 @@
+package dev.dobicinaitis.feedreader.util;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+@Slf4j
+public class FileUtils {
+
+    private FileUtils() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Replaces the content of a file by writing it to a temporary file in the same directory first
+     * and then renaming it over the target file, so that readers never see a partially written file.
+     * Both the temporary file and the directory are flushed to disk, so the new content survives a crash.
+     *
+     * @param target  file to write
+     * @param content new file content
+     * @throws IOException if the file could not be written
+     */
+    public static void writeAtomically(final Path target, final byte[] content) throws IOException {
+        final Path absoluteTarget = target.toAbsolutePath();
+        final Path directory = absoluteTarget.getParent();
+        final Path tempFile = Files.createTempFile(directory, absoluteTarget.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                final ByteBuffer buffer = ByteBuffer.wrap(content);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(tempFile, absoluteTarget, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            syncDirectory(directory);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Flushes directory metadata (e.g. a rename) to disk. Not supported on all platforms, failures are ignored.
+     *
+     * @param directory directory to flush
+     */
+    private static void syncDirectory(final Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            log.debug("Could not flush directory {}: {}", directory, e.getMessage());
+        }
+    }
+}
@@ -17,20 +17,22 @@ import java.time.format.DateTimeFormatter;
 
 public class JsonUtils {
 
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeTypeAdapter())
+            .setPrettyPrinting()
+            .create();
+
     private JsonUtils() {
         throw new IllegalStateException("Utility class");
     }
 
     /**
-     * Returns a Gson instance with a custom ZonedDateTimeTypeAdapter.
+     * Returns a shared, thread-safe Gson instance with a custom ZonedDateTimeTypeAdapter.
      *
      * @return Gson instance
      */
     public static Gson getGson() {
-        return new GsonBuilder()
-                .registerTypeAdapter(ZonedDateTime.class, new ZonedDateTimeTypeAdapter())
-                .setPrettyPrinting()
-                .create();
+        return GSON;
     }
 
     public static class ZonedDateTimeTypeAdapter implements JsonSerializer<ZonedDateTime>, JsonDeserializer<ZonedDateTime> {
@@ -1,5 +1,10 @@
 package dev.dobicinaitis.feedreader.util;
 
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
+import dev.dobicinaitis.feedreader.exceptions.HostUnavailableException;
+import dev.dobicinaitis.feedreader.http.FetchedResponse;
+import dev.dobicinaitis.feedreader.http.HttpTraffic;
+import dev.dobicinaitis.feedreader.profiling.RedirectHopEvent;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
@@ -7,6 +12,9 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.CONNECT_TIMEOUT;
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.READ_TIMEOUT;
+
 @Slf4j
 public class UrlUtils {
 
@@ -29,6 +37,20 @@ public class UrlUtils {
         }
     }
 
+    /**
+     * Returns the host name of the given URL.
+     *
+     * @param urlString URL
+     * @return host name, or an empty string if the URL is invalid
+     */
+    public static String getHost(String urlString) {
+        try {
+            return new URL(urlString).getHost();
+        } catch (MalformedURLException e) {
+            return "";
+        }
+    }
+
     /**
      * Returns the redirect URL if the given URL is being redirected, or the original URL if it's not.
      *
@@ -36,21 +58,46 @@ public class UrlUtils {
      * @return the redirect URL if the given URL is a redirect, or the original URL if it's not
      */
     public static String getRedirectUrl(String url) {
-        HttpURLConnection connection = null;
+        try {
+            return followRedirects(url);
+        } catch (HostUnavailableException e) {
+            log.warn("{}, will return the original URL.", e.getMessage());
+            return url;
+        }
+    }
+
+    /**
+     * Returns the redirect URL like {@link #getRedirectUrl(String)}, but fails if a host on the way rejected the
+     * lookup, so that the caller can tell a lookup that never happened from a URL that isn't redirected.
+     *
+     * @param url URL to check
+     * @return the redirect URL if the given URL is a redirect, or the original URL if it's not
+     * @throws HostUnavailableException if the circuit breaker or the bulkhead of a host rejected the lookup
+     */
+    public static String followRedirects(String url) throws HostUnavailableException {
         String realUrl = url;
         int maxRedirects = 10;
 
         try {
             while (maxRedirects > 0) {
-                connection = (HttpURLConnection) new URL(realUrl).openConnection();
-                connection.setInstanceFollowRedirects(false);
-                connection.setRequestMethod("HEAD");
-
-                int responseCode = connection.getResponseCode();
+                final RedirectHopEvent event = new RedirectHopEvent();
+                event.begin();
+                event.setHost(getHost(realUrl));
+                final String hopUrl = realUrl;
+                final FetchedResponse response;
+                try {
+                    response = HttpTraffic.exchangeShared("HEAD", hopUrl, () -> sendHeadRequest(hopUrl));
+                    event.setStatusCode(response.getStatusCode());
+                } catch (IOException e) {
+                    event.failed();
+                    throw e;
+                } finally {
+                    event.commit();
+                }
 
-                if (responseCode >= 300 && responseCode < 400) {
+                if (response.isRedirect()) {
                     // if it's a redirect, get the new location and repeat the process
-                    String newLocation = connection.getHeaderField("Location");
+                    String newLocation = response.getHeader("Location");
                     if (newLocation == null) {
                         log.warn("Redirect location not found in headers, will return the original URL");
                         return realUrl;
@@ -68,15 +115,33 @@ public class UrlUtils {
                 log.warn("Too many redirects. Potential loop.");
             }
 
+        } catch (HostUnavailableException e) {
+            throw e;
         } catch (IOException e) {
             log.error("An error occurred while looking up the redirect URL, will return the original URL.");
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
         }
 
         return realUrl;
     }
 
+    /**
+     * Sends a HEAD request without following redirects.
+     *
+     * @param url URL to request
+     * @return response status and headers
+     * @throws IOException if the request failed
+     */
+    private static FetchedResponse sendHeadRequest(final String url) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        try {
+            connection.setInstanceFollowRedirects(false);
+            connection.setRequestMethod("HEAD");
+            connection.setConnectTimeout((int) Deadline.cap(CONNECT_TIMEOUT).toMillis());
+            connection.setReadTimeout((int) Deadline.cap(READ_TIMEOUT).toMillis());
+            final int responseCode = connection.getResponseCode();
+            return new FetchedResponse(responseCode, connection.getHeaderFields(), new byte[0]);
+        } finally {
+            connection.disconnect();
+        }
+    }
 }
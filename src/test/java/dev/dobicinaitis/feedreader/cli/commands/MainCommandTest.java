@@ -94,6 +94,16 @@ class MainCommandTest {
         }, "Should throw a ParameterException when status file is not readable.");
     }
 
+    @Test
+    void shouldThrowAParameterExceptionWhenConcurrencyIsNotPositive() {
+        assertThrows(CommandLine.ParameterException.class, () -> {
+            commandLine.parseArgs("--no-sync", "--concurrency", "0");
+        }, "Should throw a ParameterException when concurrency is zero.");
+        assertThrows(CommandLine.ParameterException.class, () -> {
+            commandLine.parseArgs("--no-sync", "--concurrency-per-host", "-1");
+        }, "Should throw a ParameterException when per-host concurrency is negative.");
+    }
+
     @Test
     void shouldNotAttemptToExcludeAnyCategoriesWhenParameterIsNotProvided() {
         commandLine.execute("--debug", "--test-option=true");
@@ -0,0 +1,174 @@
+package dev.dobicinaitis.feedreader.concurrency;
+
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AimdLimiterTest {
+
+    private static final String HOST = "www.apollo.lv";
+    private static final String ARTICLE_URL = "https://www.apollo.lv/123";
+    private static final String SHORT_LINK_URL = "https://t.ly/abc";
+    private static final long FAST_CALL = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long SLOW_CALL = TimeUnit.MILLISECONDS.toNanos(500);
+
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+    }
+
+    @Test
+    void shouldStartAtHalfOfTheMaximum() {
+        // when
+        final AimdLimiter limiter = new AimdLimiter(HOST, 8);
+        // then
+        assertEquals(4, limiter.getLimit(), "Limit should start at half of the maximum.");
+        assertEquals(4, Metrics.getConcurrencyLimits().get(HOST), "Limit should be exported as a gauge.");
+    }
+
+    @Test
+    void shouldGrowLimitWhileItIsUsedAndCallsAreFast() throws InterruptedException {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 8);
+        acquire(limiter, 4);
+        // when
+        for (int i = 0; i < 10; i++) {
+            limiter.onSample(FAST_CALL, false);
+        }
+        // then
+        assertEquals(8, limiter.getLimit(), "Limit should grow up to the maximum and no further.");
+        assertEquals(4, Metrics.getCount(Counter.CONCURRENCY_LIMIT_INCREASES), "Every step up should be counted.");
+    }
+
+    @Test
+    void shouldNotGrowLimitThatIsNotUsed() {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 8);
+        // when
+        limiter.onSample(FAST_CALL, false);
+        // then
+        assertEquals(4, limiter.getLimit(), "Idle limit should not grow.");
+    }
+
+    @Test
+    void shouldHalveLimitOnFailure() throws InterruptedException {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 16);
+        acquire(limiter, 8);
+        // when
+        limiter.onSample(FAST_CALL, true);
+        // then
+        assertEquals(4, limiter.getLimit(), "Failure should halve the limit.");
+        assertEquals(4, Metrics.getConcurrencyLimits().get(HOST), "Gauge should follow the limit.");
+        assertEquals(1, Metrics.getCount(Counter.CONCURRENCY_LIMIT_DECREASES), "Step down should be counted.");
+    }
+
+    @Test
+    void shouldShrinkLimitOnLatencySpike() throws InterruptedException {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 20);
+        acquire(limiter, 10);
+        limiter.onSample(FAST_CALL, false);
+        final int limitBeforeSpike = limiter.getLimit();
+        // when
+        limiter.onSample(SLOW_CALL, false);
+        // then
+        assertTrue(limiter.getLimit() < limitBeforeSpike, "Latency spike should shrink the limit.");
+        assertTrue(limiter.getLimit() > limitBeforeSpike / 2, "Latency spike should back off less than a failure.");
+    }
+
+    @Test
+    void shouldNeverDropBelowOne() {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 2);
+        // when
+        for (int i = 0; i < 5; i++) {
+            limiter.onSample(FAST_CALL, true);
+        }
+        // then
+        assertEquals(1, limiter.getLimit(), "At least one call should always be allowed.");
+    }
+
+    @Test
+    void shouldReportSamplesOnlyToTheLimiterOfTheCalledHost() {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 8);
+        // when
+        AimdLimiter.recordSample(ARTICLE_URL, FAST_CALL, true);
+        final int limitAfterUnboundSample = limiter.getLimit();
+        ScopedValue.where(AimdLimiter.HOST_LIMITERS, host -> HOST.equals(host) ? limiter : null).run(() -> {
+            AimdLimiter.recordSample(SHORT_LINK_URL, 0, true);
+            AimdLimiter.recordSample(ARTICLE_URL, 0, true);
+        });
+        // then
+        assertEquals(4, limitAfterUnboundSample, "Samples outside of a limited task should be ignored.");
+        assertEquals(2, limiter.getLimit(), "Only the samples of calls to the host should reach its limiter.");
+    }
+
+    @Test
+    void shouldDecreaseOnlyOnceForCallsThatWereAlreadyInFlight() throws InterruptedException {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 16);
+        acquire(limiter, 8);
+        limiter.onSample(FAST_CALL, true);
+        // when
+        limiter.onSample(FAST_CALL, true);
+        final int limitAfterBurst = limiter.getLimit();
+        limiter.onSample(0, true);
+        // then
+        assertEquals(4, limitAfterBurst, "Call that started before the decrease should not decrease the limit again.");
+        assertEquals(2, limiter.getLimit(), "Call that started after the decrease should decrease the limit.");
+    }
+
+    @Test
+    void shouldFollowBaselineLatencyOfRecentCalls() throws InterruptedException {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 20);
+        acquire(limiter, 10);
+        limiter.onSample(FAST_CALL, false);
+        // when
+        for (int i = 0; i < AimdLimiter.BASELINE_WINDOW; i++) {
+            limiter.onSample(SLOW_CALL, false);
+        }
+        final int limitAfterSlowdown = limiter.getLimit();
+        limiter.onSample(SLOW_CALL, false);
+        // then
+        assertEquals(SLOW_CALL, limiter.getBaselineLatencyNanos(), "Baseline should forget calls older than the window.");
+        assertEquals(limitAfterSlowdown + 1, limiter.getLimit(), "Calls at the new baseline should grow the limit again.");
+    }
+
+    @Test
+    void shouldBlockWhenLimitIsReachedUntilPermitIsReleased() throws InterruptedException {
+        // given
+        final AimdLimiter limiter = new AimdLimiter(HOST, 2);
+        limiter.acquire();
+        final Thread waiter = Thread.ofVirtual().start(() -> {
+            try {
+                limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // when
+        waiter.join(100);
+        final boolean blocked = waiter.isAlive();
+        limiter.release();
+        waiter.join(1_000);
+        // then
+        assertTrue(blocked, "Second task should wait for a permit.");
+        assertFalse(waiter.isAlive(), "Released permit should let the waiting task in.");
+    }
+
+    private static void acquire(final AimdLimiter limiter, final int permits) throws InterruptedException {
+        for (int i = 0; i < permits; i++) {
+            limiter.acquire();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package dev.dobicinaitis.feedreader.concurrency;
+
+import dev.dobicinaitis.feedreader.exceptions.DeadlineExceededException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeadlineTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void shouldNotLimitRunsWithoutTimeBudget() {
+        // given
+        try (Deadline deadline = Deadline.start(Duration.ZERO)) {
+            // then
+            assertNull(deadline, "No deadline should be started for a zero budget.");
+            assertFalse(Deadline.isExpired(), "Run without a budget should never expire.");
+            assertEquals(TIMEOUT, Deadline.cap(TIMEOUT), "Timeouts should be kept as they are.");
+            assertDoesNotThrow(() -> Deadline.check("send a request"), "Network calls should be allowed.");
+        }
+    }
+
+    @Test
+    void shouldShortenTimeoutsToTheTimeLeft() {
+        // given
+        try (Deadline ignored = Deadline.start(Duration.ofSeconds(2))) {
+            // when
+            final Duration capped = Deadline.cap(TIMEOUT);
+            // then
+            assertFalse(Deadline.isExpired(), "Deadline should not have passed yet.");
+            assertTrue(capped.compareTo(Duration.ofSeconds(2)) <= 0 && capped.compareTo(Duration.ZERO) > 0,
+                    "Timeout should be shortened to the time left, got " + capped);
+            assertEquals(Duration.ofMillis(500), Deadline.cap(Duration.ofMillis(500)), "Shorter timeouts should be kept.");
+        }
+    }
+
+    @Test
+    void shouldRefuseNetworkCallsAfterTheDeadline() throws InterruptedException {
+        // given
+        try (Deadline ignored = Deadline.start(Duration.ofMillis(20))) {
+            // when
+            Thread.sleep(50);
+            // then
+            assertTrue(Deadline.isExpired(), "Deadline should have passed.");
+            assertEquals(Duration.ofMillis(1), Deadline.cap(TIMEOUT), "Timeout should never be zero, as that means no timeout.");
+            assertThrows(DeadlineExceededException.class, () -> Deadline.check("send a request"),
+                    "Network calls should be refused.");
+        }
+        assertFalse(Deadline.isExpired(), "Deadline should be cleared when the run ends.");
+    }
+}
@@ -0,0 +1,126 @@
+package dev.dobicinaitis.feedreader.concurrency;
+
+import dev.dobicinaitis.feedreader.exceptions.FeedReaderRuntimeException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NetworkTaskExecutorTest {
+
+    private static final int TASK_DURATION_MILLIS = 50;
+
+    @AfterEach
+    void tearDown() {
+        MDC.clear();
+    }
+
+    @Test
+    void shouldRunMoreTasksInParallelThanThereAreCores() {
+        // given
+        final int taskCount = Runtime.getRuntime().availableProcessors() * 4;
+        final List<String> urls = IntStream.range(0, taskCount).mapToObj(i -> "https://host" + i + ".example.com/").toList();
+        final CountDownLatch allStarted = new CountDownLatch(taskCount);
+        // when
+        try (NetworkTaskExecutor executor = new NetworkTaskExecutor(taskCount, 1)) {
+            executor.forEach(urls, url -> url, url -> {
+                allStarted.countDown();
+                awaitQuietly(allStarted);
+            });
+        }
+        // then
+        assertEquals(0, allStarted.getCount(), "All tasks should have been running at the same time.");
+    }
+
+    @Test
+    void shouldLimitTasksPerHostAndGlobally() {
+        // given
+        final List<String> urls = IntStream.range(0, 40).mapToObj(i -> "https://host" + (i % 2) + ".example.com/" + i).toList();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final Map<String, AtomicInteger> runningPerHost = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> maxRunningPerHost = new ConcurrentHashMap<>();
+        // when
+        try (NetworkTaskExecutor executor = new NetworkTaskExecutor(5, 3)) {
+            executor.forEach(urls, url -> url, url -> {
+                final String host = url.substring(0, url.lastIndexOf('/'));
+                final AtomicInteger hostRunning = runningPerHost.computeIfAbsent(host, h -> new AtomicInteger());
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                maxRunningPerHost.computeIfAbsent(host, h -> new AtomicInteger())
+                        .accumulateAndGet(hostRunning.incrementAndGet(), Math::max);
+                sleepQuietly();
+                hostRunning.decrementAndGet();
+                running.decrementAndGet();
+            });
+        }
+        // then
+        assertTrue(maxRunning.get() <= 5, "No more than 5 tasks should run at the same time, got " + maxRunning.get());
+        maxRunningPerHost.forEach((host, max) ->
+                assertTrue(max.get() <= 3, "No more than 3 tasks should run against " + host + ", got " + max.get()));
+    }
+
+    @Test
+    void shouldPropagateLoggingContextToTasks() {
+        // given
+        MDC.put("run", "run-42");
+        final Map<String, String> seenContext = new ConcurrentHashMap<>();
+        // when
+        try (NetworkTaskExecutor executor = new NetworkTaskExecutor(2, 2)) {
+            executor.forEach(List.of("https://a.example.com/1", "https://b.example.com/2"), url -> url,
+                    url -> seenContext.put(url, String.valueOf(MDC.get("run"))));
+        }
+        // then
+        assertEquals(Map.of("https://a.example.com/1", "run-42", "https://b.example.com/2", "run-42"), seenContext,
+                "Tasks should see the caller's MDC logging context.");
+    }
+
+    @Test
+    void shouldCancelRemainingTasksWhenATaskFails() {
+        // given
+        final List<String> urls = IntStream.range(0, 20).mapToObj(i -> "https://example.com/" + i).toList();
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicInteger completed = new AtomicInteger();
+        // when
+        try (NetworkTaskExecutor executor = new NetworkTaskExecutor(1, 1)) {
+            assertThrows(FeedReaderRuntimeException.class, () -> executor.forEach(urls, url -> url, url -> {
+                if (failed.compareAndSet(false, true)) {
+                    throw new IllegalStateException("Lookup failed");
+                }
+                sleepQuietly();
+                if (!Thread.currentThread().isInterrupted()) {
+                    completed.incrementAndGet();
+                }
+            }), "A failed task should fail the batch.");
+        }
+        // then
+        assertTrue(completed.get() < urls.size() - 1, "Remaining tasks should be cancelled, completed " + completed.get());
+    }
+
+    private static void sleepQuietly() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(TASK_DURATION_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package dev.dobicinaitis.feedreader.concurrency;
+
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTest {
+
+    private static final String URL = "https://www.apollo.lv/123";
+    private static final int CALLER_COUNT = 10;
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+    }
+
+    @Test
+    void shouldShareOneCallBetweenConcurrentCallers() throws Exception {
+        // given
+        final AtomicInteger callCount = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final SingleFlight.Call<String> call = () -> {
+            callCount.incrementAndGet();
+            awaitQuietly(release);
+            return "page";
+        };
+        // when
+        final List<String> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<String>> callers = new ArrayList<>();
+            for (int i = 0; i < CALLER_COUNT; i++) {
+                callers.add(executor.submit(() -> singleFlight.execute(URL, call)));
+            }
+            awaitCoalescedCalls(CALLER_COUNT - 1);
+            release.countDown();
+            for (Future<String> caller : callers) {
+                results.add(caller.get());
+            }
+        }
+        // then
+        assertEquals(1, callCount.get(), "Only the first caller should make the call.");
+        assertEquals(List.of("page"), results.stream().distinct().toList(), "Every caller should get the shared result.");
+        assertEquals(CALLER_COUNT - 1, Metrics.getCount(Counter.COALESCED_CALLS), "Waiting callers should be counted.");
+        assertEquals(0, singleFlight.getInFlightCount(), "Completed call should not be kept.");
+    }
+
+    @Test
+    void shouldShareFailureWithWaitingCallers() throws Exception {
+        // given
+        final IOException failure = new IOException("Connection reset");
+        final CountDownLatch release = new CountDownLatch(1);
+        // when
+        final Future<String> leader;
+        final Future<String> follower;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            leader = executor.submit(() -> singleFlight.execute(URL, () -> {
+                awaitQuietly(release);
+                throw failure;
+            }));
+            awaitInFlight();
+            follower = executor.submit(() -> singleFlight.execute(URL, () -> "unexpected"));
+            awaitCoalescedCalls(1);
+            release.countDown();
+        }
+        // then
+        final ExecutionException leaderFailure = assertThrows(ExecutionException.class, leader::get, "Caller should get the failure.");
+        final ExecutionException followerFailure = assertThrows(ExecutionException.class, follower::get, "Waiting caller should get the failure.");
+        assertSame(failure, leaderFailure.getCause(), "Original failure should be passed on.");
+        assertInstanceOf(IOException.class, followerFailure.getCause(), "Waiting caller should get the same failure type.");
+    }
+
+    @Test
+    void shouldCallAgainOnceTheCallHasCompleted() throws IOException {
+        // given
+        final AtomicInteger callCount = new AtomicInteger();
+        // when
+        singleFlight.execute(URL, () -> "first " + callCount.incrementAndGet());
+        final String second = singleFlight.execute(URL, () -> "second " + callCount.incrementAndGet());
+        // then
+        assertEquals("second 2", second, "Sequential callers should not share results.");
+        assertEquals(0, Metrics.getCount(Counter.COALESCED_CALLS), "Sequential calls should not be coalesced.");
+    }
+
+    @Test
+    void shouldNotShareCallsOfDifferentKeys() throws IOException {
+        // when
+        final String first = singleFlight.execute(URL, () -> "first");
+        final String other = singleFlight.execute(URL + "/other", () -> "other");
+        // then
+        assertEquals("first", first, "Call should get its own result.");
+        assertEquals("other", other, "Call of another key should get its own result.");
+    }
+
+    private void awaitInFlight() throws InterruptedException {
+        while (singleFlight.getInFlightCount() == 0) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    private static void awaitCoalescedCalls(final long count) throws InterruptedException {
+        while (Metrics.getCount(Counter.COALESCED_CALLS) < count) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+    }
+
+    private static void awaitQuietly(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
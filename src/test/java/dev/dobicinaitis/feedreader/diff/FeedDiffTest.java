@@ -0,0 +1,96 @@
+package dev.dobicinaitis.feedreader.diff;
+
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.util.ItemWrapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FeedDiffTest {
+
+    @Test
+    void shouldProcessOnlyAddedAndChangedItems() {
+        // given
+        final FeedDiff diff = new FeedDiff(Map.of("unchanged", 1L, "changed", 2L, "removed", 3L));
+        // when, then
+        assertFalse(diff.offer("unchanged", 1L), "Unchanged item should be skipped.");
+        assertTrue(diff.offer("changed", 20L), "Changed item should be processed.");
+        assertTrue(diff.offer("added", 4L), "Added item should be processed.");
+        assertTrue(diff.offer(null, 5L), "Item without a GUID should always be processed.");
+        assertEquals(2, diff.getAdded(), "Added items should be counted.");
+        assertEquals(1, diff.getChanged(), "Changed items should be counted.");
+        assertEquals(1, diff.getUnchanged(), "Unchanged items should be counted.");
+        assertEquals(1, diff.getRemoved(), "Removed items should be counted.");
+        assertEquals(Set.of("unchanged", "changed", "added"), diff.getFeedGuids(), "Every item with a GUID should be in the feed.");
+        assertEquals(Map.of("unchanged", 1L, "changed", 20L, "added", 4L), diff.getSnapshot(),
+                "Snapshot should hold the current hashes.");
+    }
+
+    @Test
+    void shouldProcessEverythingOnTheFirstRun() {
+        // given
+        final FeedDiff diff = new FeedDiff(null);
+        // when, then
+        assertTrue(diff.offer("a", 1L), "Every item should be processed without a previous snapshot.");
+        assertEquals(0, diff.getRemoved(), "Nothing should be removed.");
+    }
+
+    @Test
+    void shouldKeepRetriedItemsOutOfTheSnapshot() {
+        // given
+        final FeedDiff diff = new FeedDiff(Map.of("changed", 2L));
+        diff.offer("changed", 20L);
+        diff.offer("added", 4L);
+        // when
+        diff.retry("changed");
+        diff.retry("added");
+        diff.retry("unknown");
+        // then
+        assertEquals(Map.of("changed", 2L), diff.getSnapshot(), "Retried items should look added or changed to the next run.");
+        assertEquals(Set.of("changed", "added"), diff.getFeedGuids(), "Retried items should still be in the feed.");
+    }
+
+    @Test
+    void shouldHashEveryFieldArticlesAreBuiltFrom() {
+        // given
+        final ItemWrapper.ItemWrapperBuilder item = ItemWrapper.builder()
+                .title("FOTO ⟩ Robots develop their own language!")
+                .description("Description")
+                .link("https://t.ly/robots")
+                .enclosureUrl("https://t.ly/robots.jpg")
+                .enclosureType("image/jpeg")
+                .categories(List.of("Zinātne"));
+        final long hash = FeedDiff.hash(item.build().toRssItem());
+        // when
+        final long titleChangedHash = FeedDiff.hash(item.title("FOTO ⟩ Robots develop their own dialect!").build().toRssItem());
+        final long categoryChangedHash = FeedDiff.hash(item.categories(List.of("Tehnoloģijas")).build().toRssItem());
+        final long imageChangedHash = FeedDiff.hash(item.enclosureUrl("https://t.ly/robots.png").build().toRssItem());
+        // then
+        assertEquals(imageChangedHash, FeedDiff.hash(item.build().toRssItem()), "Hash should be stable.");
+        assertNotEquals(hash, titleChangedHash, "Title change should change the hash.");
+        assertNotEquals(titleChangedHash, categoryChangedHash, "Category change should change the hash.");
+        assertNotEquals(categoryChangedHash, imageChangedHash, "Image change should change the hash.");
+    }
+
+    @Test
+    void shouldHashParsedArticles() {
+        // given
+        final ZonedDateTime publicationDate = ZonedDateTime.parse("2024-01-01T12:00:00+02:00");
+        final Article article = Article.builder().title("ab").description("c").publicationDate(publicationDate).build();
+        final Article moved = Article.builder().title("a").description("bc").publicationDate(publicationDate).build();
+        final long hash = FeedDiff.hash(article);
+        // when
+        article.setPublicationDate(publicationDate.plusMinutes(1));
+        // then
+        assertNotEquals(hash, FeedDiff.hash(moved), "Moving text to another field should change the hash.");
+        assertNotEquals(hash, FeedDiff.hash(article), "Date change should change the hash.");
+    }
+}
@@ -0,0 +1,134 @@
+package dev.dobicinaitis.feedreader.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ArticleFilterTest {
+
+    @Test
+    void shouldKeepEverythingWithoutRules() {
+        // given
+        final ArticleFilter filter = ArticleFilter.compile(null, List.of(), null);
+        // when, then
+        assertTrue(filter.isEmpty(), "Filter should have no rules.");
+        assertTrue(filter.accepts(List.of("Sports"), "Title", "Description"), "Article should be kept.");
+    }
+
+    @Test
+    void shouldExcludeAndIncludeCategoriesCaseInsensitively() {
+        // given
+        final ArticleFilter excluding = ArticleFilter.compile(List.of("Horoskopi"), null, null);
+        final ArticleFilter including = ArticleFilter.compile(null, List.of("Sports", "Ekonomika"), null);
+        // when, then
+        assertFalse(excluding.accepts(List.of("Izklaide", "HOROSKOPI"), "Title", ""), "Excluded category should be removed.");
+        assertTrue(excluding.accepts(List.of("Izklaide"), "Title", ""), "Other categories should be kept.");
+        assertTrue(including.accepts(List.of("Latvijā", "sports"), "Title", ""), "Included category should be kept.");
+        assertFalse(including.accepts(List.of("Latvijā"), "Title", ""), "Categories that aren't included should be removed.");
+        assertFalse(including.accepts(null, "Title", ""), "Article without categories should be removed when including.");
+    }
+
+    @Test
+    void shouldMatchKeywordsInTitleAndDescription() {
+        // given
+        final ArticleFilter filter = ArticleFilter.compile(null, null, List.of(
+                "exclude keyword:horoskop",
+                "exclude keyword:Loterij",
+                "exclude keyword:he",
+                "exclude keyword:hers"));
+        // when, then
+        assertFalse(filter.accepts(List.of(), "Nedēļas HOROSKOPS", ""), "Keyword should match within a word, ignoring case.");
+        assertFalse(filter.accepts(List.of(), "Ziņas", "Kārtējā loterija"), "Keyword should match in the description.");
+        assertFalse(filter.accepts(List.of(), "ushers", ""), "Overlapping keywords should be found.");
+        assertTrue(filter.accepts(List.of(), "Valdība", "Sēde"), "Article without keywords should be kept.");
+        assertEquals(Map.of(
+                "exclude keyword:horoskop", 1L,
+                "exclude keyword:Loterij", 1L,
+                "exclude keyword:he", 1L,
+                "exclude keyword:hers", 1L), filter.getHitCounts(), "Every matched rule should be counted.");
+    }
+
+    @Test
+    void shouldMatchRegularExpressions() {
+        // given
+        final ArticleFilter filter = ArticleFilter.compile(null, null, List.of("exclude regex:(?i)\\bbitcoin(a|s)?\\b"));
+        // when, then
+        assertFalse(filter.accepts(List.of(), "Bitcoins sasniedz rekordu", ""), "Pattern should be found in the title.");
+        assertTrue(filter.accepts(List.of(), "Bitcoinmania", ""), "Pattern should be matched as written.");
+    }
+
+    @Test
+    void shouldRequireAllConditionsOfARule() {
+        // given
+        final ArticleFilter filter = ArticleFilter.compile(null, null, List.of(
+                "# football is fine, except in the sports section",
+                "",
+                "exclude category:Sports && keyword:futbol"));
+        // when, then
+        assertFalse(filter.accepts(List.of("Sports"), "Futbola izlase uzvar", ""), "Article meeting all conditions should be removed.");
+        assertTrue(filter.accepts(List.of("Latvijā"), "Futbola izlase uzvar", ""), "Article meeting only some conditions should be kept.");
+        assertTrue(filter.accepts(List.of("Sports"), "Basketbols", ""), "Article meeting only some conditions should be kept.");
+        assertEquals(Map.of("exclude category:Sports && keyword:futbol", 1L), filter.getHitCounts(), "Comments should be ignored.");
+    }
+
+    @Test
+    void shouldLetExcludeRulesOverrideIncludeRules() {
+        // given
+        final ArticleFilter filter = ArticleFilter.compile(null, List.of("Sports"), List.of("exclude keyword:reklāma"));
+        // when, then
+        assertTrue(filter.accepts(List.of("Sports"), "Spēle", ""), "Included article should be kept.");
+        assertFalse(filter.accepts(List.of("Sports"), "Spēle", "Reklāma"), "Excluded article should be removed even if included.");
+    }
+
+    @Test
+    void shouldCountHitsOfEveryRuleUntilReset() {
+        // given
+        final ArticleFilter filter = ArticleFilter.compile(List.of("Horoskopi"), null, List.of("include keyword:Rīga"));
+        // when
+        filter.accepts(List.of("Horoskopi"), "Rīgā līst", "");
+        filter.accepts(List.of("Horoskopi"), "Jūrmala", "");
+        final Map<String, Long> hits = filter.getHitCounts();
+        filter.resetHitCounts();
+        // then
+        assertEquals(List.of("exclude category:Horoskopi", "include keyword:Rīga"), new ArrayList<>(hits.keySet()),
+                "Rules should be reported in the order they were given.");
+        assertEquals(2L, hits.get("exclude category:Horoskopi"), "Category rule should match both articles.");
+        assertEquals(0L, hits.get("include keyword:Rīga"), "Keyword should not match another inflection.");
+        assertEquals(0L, filter.getHitCounts().get("exclude category:Horoskopi"), "Hit counts should be reset.");
+    }
+
+    @Test
+    void shouldStayCorrectWithManyRules() {
+        // given
+        final List<String> rules = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            rules.add("exclude keyword:topic" + i + "x");
+        }
+        final ArticleFilter filter = ArticleFilter.compile(null, null, rules);
+        // when, then
+        assertFalse(filter.accepts(List.of(), "About topic499x", ""), "Last keyword should be found.");
+        assertFalse(filter.accepts(List.of(), "About topic0x", ""), "First keyword should be found.");
+        assertTrue(filter.accepts(List.of(), "About topic500x", ""), "Unknown keyword should not be found.");
+    }
+
+    @Test
+    void shouldRejectInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> ArticleFilter.compile(null, null, List.of("drop keyword:x")),
+                "Unknown action should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> ArticleFilter.compile(null, null, List.of("exclude")),
+                "Rule without conditions should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> ArticleFilter.compile(null, null, List.of("exclude title:x")),
+                "Unknown condition should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> ArticleFilter.compile(null, null, List.of("exclude keyword: ")),
+                "Condition without a value should be rejected.");
+        assertThrows(IllegalArgumentException.class, () -> ArticleFilter.compile(null, null, List.of("exclude regex:(")),
+                "Invalid regex should be rejected.");
+    }
+}
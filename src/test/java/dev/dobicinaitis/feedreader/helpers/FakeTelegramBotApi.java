@@ -0,0 +1,144 @@
+package dev.dobicinaitis.feedreader.helpers;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+import lombok.Getter;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.micronaut.core.io.socket.SocketUtils.findAvailableTcpPort;
+
+/**
+ * Local stand-in for the Telegram Bot API, for load tests.
+ * <p>
+ * Accepts sendMessage, sendPhoto, sendMediaGroup and message edits for any bot token. Every n-th send request is
+ * rejected with 429 Too Many Requests, the same way the real API does when a bot posts too fast.
+ */
+public class FakeTelegramBotApi {
+
+    private static final String BASE_URL_TEMPLATE = "http://localhost:%s";
+    private static final String SEND_PATH_REGEX = "/bot[^/]+/(sendMessage|sendPhoto|sendMediaGroup)";
+    private static final String EDIT_PATH_REGEX = "/bot[^/]+/(editMessageText|editMessageCaption)";
+    private static final String RATE_LIMIT_SCENARIO = "rate-limit";
+    private static final String MESSAGE_RESPONSE = """
+            {"ok":true,"result":{"message_id":{{randomInt lower=1 upper=2147483647}},"date":1704067200,\
+            "chat":{"id":-1001234567890,"type":"channel"}}}""";
+    private static final String MEDIA_GROUP_RESPONSE = """
+            {"ok":true,"result":[{"message_id":{{randomInt lower=1 upper=2147483647}},"date":1704067200,\
+            "chat":{"id":-1001234567890,"type":"channel"}}]}""";
+    private static final String TOO_MANY_REQUESTS_RESPONSE = """
+            {"ok":false,"error_code":429,"description":"Too Many Requests: retry after 1","parameters":{"retry_after":1}}""";
+
+    private final WireMockServer server;
+    private final WireMock client;
+
+    @Getter
+    private final String baseUrl;
+
+    /**
+     * Starts the server.
+     *
+     * @param latencyMillis    response latency
+     * @param rateLimitedEvery reject every n-th send request with 429, 0 to never reject
+     */
+    public FakeTelegramBotApi(final int latencyMillis, final int rateLimitedEvery) {
+        final int port = findAvailableTcpPort();
+        this.server = new WireMockServer(port);
+        this.baseUrl = String.format(BASE_URL_TEMPLATE, port);
+        server.start();
+        this.client = new WireMock(port);
+
+        client.register(post(urlPathMatching(EDIT_PATH_REGEX)).willReturn(ok(MESSAGE_RESPONSE, latencyMillis)));
+        client.register(post(urlPathMatching("/bot[^/]+/sendMediaGroup")).atPriority(1)
+                .willReturn(ok(MEDIA_GROUP_RESPONSE, latencyMillis)));
+
+        if (rateLimitedEvery <= 0) {
+            client.register(post(urlPathMatching(SEND_PATH_REGEX)).willReturn(ok(MESSAGE_RESPONSE, latencyMillis)));
+            return;
+        }
+        // a scenario that cycles through the states 1..n, the last state answers with 429
+        for (int request = 1; request <= rateLimitedEvery; request++) {
+            final String state = request == 1 ? Scenario.STARTED : String.valueOf(request);
+            final String nextState = request == rateLimitedEvery ? Scenario.STARTED : String.valueOf(request + 1);
+            client.register(post(urlPathMatching(SEND_PATH_REGEX)).atPriority(5)
+                    .inScenario(RATE_LIMIT_SCENARIO)
+                    .whenScenarioStateIs(state)
+                    .willSetStateTo(nextState)
+                    .willReturn(request == rateLimitedEvery
+                            ? aResponse().withStatus(429).withBody(TOO_MANY_REQUESTS_RESPONSE)
+                            .withHeader("Content-Type", "application/json").withFixedDelay(latencyMillis)
+                            : ok(MESSAGE_RESPONSE, latencyMillis)));
+        }
+    }
+
+    /**
+     * Returns the number of requests that got the given status code.
+     *
+     * @param status HTTP status code
+     * @return request count
+     */
+    public long countResponses(final int status) {
+        return server.getAllServeEvents().stream()
+                .filter(event -> event.getResponse().getStatus() == status)
+                .count();
+    }
+
+    /**
+     * Returns the number of requests to a Bot API method.
+     *
+     * @param method Bot API method, e.g. sendPhoto
+     * @return request count
+     */
+    public int countRequests(final String method) {
+        return server.countRequestsMatching(postRequestedFor(urlPathMatching("/bot[^/]+/" + method)).build()).getCount();
+    }
+
+    /**
+     * Returns the number of send requests the Bot API accepted, i.e. the number of messages that appeared
+     * in the channel.
+     *
+     * @return accepted send request count
+     */
+    public long countAcceptedSends() {
+        return server.getAllServeEvents().stream()
+                .filter(event -> event.getRequest().getUrl().matches(SEND_PATH_REGEX + "(\\?.*)?"))
+                .filter(event -> event.getResponse().getStatus() == 200
+                        && event.getResponse().getBodyAsString().startsWith("{\"ok\":true"))
+                .count();
+    }
+
+    /**
+     * Makes the first requests to the matching Bot API methods fail, see {@link FaultInjection}.
+     *
+     * @param methodRegex Bot API method regex, e.g. sendPhoto
+     * @param faults      responses to serve before the endpoint heals
+     */
+    public void injectFaults(final String methodRegex, final ResponseDefinitionBuilder... faults) {
+        FaultInjection.inject(client, "/bot[^/]+/" + methodRegex, faults);
+    }
+
+    public void stop() {
+        server.stop();
+    }
+
+    /**
+     * Returns a response that accepts the message, but only after the given delay, for injecting a Bot API that
+     * posts the message and then stalls.
+     *
+     * @param delayMillis response delay
+     * @return accepting response
+     */
+    public static ResponseDefinitionBuilder acceptedAfter(final int delayMillis) {
+        return ok(MESSAGE_RESPONSE, delayMillis);
+    }
+
+    private static ResponseDefinitionBuilder ok(final String body, final int latencyMillis) {
+        return aResponse()
+                .withStatus(200)
+                .withBody(body)
+                .withHeader("Content-Type", "application/json")
+                .withTransformers("response-template")
+                .withFixedDelay(latencyMillis);
+    }
+}
@@ -0,0 +1,62 @@
+package dev.dobicinaitis.feedreader.helpers;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import com.github.tomakehurst.wiremock.http.Fault;
+import com.github.tomakehurst.wiremock.stubbing.Scenario;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.any;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+
+/**
+ * Injects a burst of faults in front of the regular WireMock stubs.
+ * <p>
+ * The faults are served in the given order to the first requests matching the path, after that the endpoint heals
+ * and the regular stubs answer again. This mimics a short network outage or an overloaded upstream.
+ */
+public class FaultInjection {
+
+    private static final AtomicInteger SCENARIO_COUNTER = new AtomicInteger();
+    private static final String HEALED_STATE = "healed";
+
+    private FaultInjection() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Serves the given responses, one per request, to the requests matching the path.
+     *
+     * @param client    WireMock client of the server
+     * @param pathRegex URL path regex
+     * @param faults    responses to serve before the endpoint heals
+     */
+    public static void inject(final WireMock client, final String pathRegex, final ResponseDefinitionBuilder... faults) {
+        final String scenario = "faults-" + SCENARIO_COUNTER.incrementAndGet();
+        for (int i = 0; i < faults.length; i++) {
+            client.register(any(urlPathMatching(pathRegex)).atPriority(1)
+                    .inScenario(scenario)
+                    .whenScenarioStateIs(i == 0 ? Scenario.STARTED : String.valueOf(i))
+                    .willSetStateTo(i == faults.length - 1 ? HEALED_STATE : String.valueOf(i + 1))
+                    .willReturn(faults[i]));
+        }
+    }
+
+    public static ResponseDefinitionBuilder status(final int status) {
+        return aResponse().withStatus(status).withBody("Injected failure");
+    }
+
+    public static ResponseDefinitionBuilder connectionReset() {
+        return aResponse().withFault(Fault.CONNECTION_RESET_BY_PEER);
+    }
+
+    public static ResponseDefinitionBuilder partialBody() {
+        return aResponse().withFault(Fault.MALFORMED_RESPONSE_CHUNK);
+    }
+
+    public static ResponseDefinitionBuilder garbageThenClose() {
+        return aResponse().withFault(Fault.RANDOM_DATA_THEN_CLOSE);
+    }
+}
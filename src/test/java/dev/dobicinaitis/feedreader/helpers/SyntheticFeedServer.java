@@ -0,0 +1,169 @@
+package dev.dobicinaitis.feedreader.helpers;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.client.WireMock;
+import lombok.Getter;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.*;
+import static io.micronaut.core.io.socket.SocketUtils.findAvailableTcpPort;
+
+/**
+ * Serves a large synthetic RSS feed together with the article pages and images it links to, for load tests.
+ * <p>
+ * Article links are short links that redirect to the article page, like on apollo.lv. Every response is delayed
+ * by a random latency around the configured value. Failures are deterministic: images and pages of a fixed share
+ * of the articles always respond with 503, so that runs are comparable.
+ */
+public class SyntheticFeedServer {
+
+    private static final String BASE_URL_TEMPLATE = "http://localhost:%s";
+    private static final String FEED_ENDPOINT = "/rss";
+    // test file location: src/test/resources/__files/
+    private static final String IMAGE_FILE = "image.gif";
+    private static final String PAYWALLED_ARTICLE_FILE = "article-with-paywall-label.html";
+    private static final String FREE_ARTICLE_FILE = "article-without-paywall-label.html";
+    private static final int PAYWALLED_EVERY = 10;
+    private static final ZonedDateTime LATEST_PUBLICATION_DATE = ZonedDateTime.of(2024, 1, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+
+    private final WireMockServer server;
+    private final WireMock client;
+    private final int latencyMillis;
+
+    @Getter
+    private final String baseUrl;
+
+    @Getter
+    private final String feedUrl;
+
+    @Getter
+    private final int itemCount;
+
+    /**
+     * Starts the server.
+     *
+     * @param itemCount        number of items in the feed
+     * @param latencyMillis    average response latency
+     * @param errorRatePercent share of articles whose page and image are unavailable
+     */
+    public SyntheticFeedServer(final int itemCount, final int latencyMillis, final int errorRatePercent) {
+        final int port = findAvailableTcpPort();
+        this.server = new WireMockServer(port);
+        this.baseUrl = String.format(BASE_URL_TEMPLATE, port);
+        this.feedUrl = this.baseUrl + FEED_ENDPOINT;
+        this.itemCount = itemCount;
+        this.latencyMillis = latencyMillis;
+        server.start();
+        this.client = new WireMock(port);
+
+        client.register(get(urlEqualTo(FEED_ENDPOINT)).willReturn(delayed(aResponse()
+                .withStatus(200)
+                .withBody(generateFeed())
+                .withHeader("Content-Type", "application/rss+xml; charset=UTF-8"))));
+        // short links redirect to the article page
+        client.register(any(urlPathMatching("/a/[0-9]+")).atPriority(5).willReturn(delayed(aResponse()
+                .withStatus(301)
+                .withHeader("Location", baseUrl + "/articles/{{request.pathSegments.[1]}}")
+                .withTransformers("response-template"))));
+        client.register(any(urlPathMatching("/articles/[0-9]+")).atPriority(5).willReturn(delayed(aResponse()
+                .withStatus(200)
+                .withBodyFile(FREE_ARTICLE_FILE)
+                .withHeader("Content-Type", "text/html"))));
+        client.register(get(urlPathMatching("/images/[0-9]+\\.gif")).atPriority(5).willReturn(delayed(aResponse()
+                .withStatus(200)
+                .withBodyFile(IMAGE_FILE)
+                .withHeader("Content-Type", "image/gif"))));
+
+        for (int i = 0; i < itemCount; i++) {
+            if (isFailing(i, errorRatePercent)) {
+                client.register(any(urlPathEqualTo("/articles/" + i)).atPriority(1).willReturn(delayed(unavailable())));
+                client.register(get(urlPathEqualTo("/images/" + i + ".gif")).atPriority(1).willReturn(delayed(unavailable())));
+            } else if (isPaywalled(i)) {
+                client.register(any(urlPathEqualTo("/articles/" + i)).atPriority(1).willReturn(delayed(aResponse()
+                        .withStatus(200)
+                        .withBodyFile(PAYWALLED_ARTICLE_FILE)
+                        .withHeader("Content-Type", "text/html"))));
+            }
+        }
+    }
+
+    public static boolean isPaywalled(final int index) {
+        return index % PAYWALLED_EVERY == PAYWALLED_EVERY - 1;
+    }
+
+    public static boolean isFailing(final int index, final int errorRatePercent) {
+        return index % 100 < errorRatePercent;
+    }
+
+    /**
+     * Makes the first requests to the matching paths fail, see {@link FaultInjection}.
+     *
+     * @param pathRegex URL path regex, e.g. /rss or /images/.*
+     * @param faults    responses to serve before the endpoint heals
+     */
+    public void injectFaults(final String pathRegex, final ResponseDefinitionBuilder... faults) {
+        FaultInjection.inject(client, pathRegex, faults);
+    }
+
+    /**
+     * Returns the number of requests to the matching paths, including the failed ones.
+     *
+     * @param pathRegex URL path regex
+     * @return request count
+     */
+    public int countRequests(final String pathRegex) {
+        return server.countRequestsMatching(anyRequestedFor(urlPathMatching(pathRegex)).build()).getCount();
+    }
+
+    public void stop() {
+        server.stop();
+    }
+
+    private ResponseDefinitionBuilder delayed(final ResponseDefinitionBuilder response) {
+        return latencyMillis > 0 ? response.withUniformRandomDelay(latencyMillis / 2, latencyMillis * 3 / 2) : response;
+    }
+
+    private static ResponseDefinitionBuilder unavailable() {
+        return aResponse().withStatus(503).withBody("Service Unavailable");
+    }
+
+    /**
+     * Generates the RSS feed, newest item first.
+     *
+     * @return RSS document
+     */
+    private String generateFeed() {
+        final StringBuilder feed = new StringBuilder("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <rss version="2.0">
+                  <channel>
+                    <title>Apollo.lv</title>
+                    <link>https://www.apollo.lv</link>
+                    <description>Synthetic load test feed</description>
+                """);
+        for (int i = 0; i < itemCount; i++) {
+            final String pubDate = LATEST_PUBLICATION_DATE.minusMinutes(i).format(DateTimeFormatter.RFC_1123_DATE_TIME);
+            feed.append("""
+                        <item>
+                          <title>%s Synthetic headline number %d &amp; some [special] *characters*!</title>
+                          <description>Description of synthetic article %d. It is long enough to look like a real one (almost).</description>
+                          <link>%s/a/%d</link>
+                          <guid isPermaLink="false">pm#%d</guid>
+                          <pubDate>%s</pubDate>
+                          <category>%s</category>
+                          <enclosure url="%s/images/%d.gif" length="0" type="image/gif"/>
+                        </item>
+                    """.formatted(i % 5 == 0 ? "VIDEO ⟩" : "", i, i, baseUrl, i, i, pubDate,
+                    i % 2 == 0 ? "Ziņas" : "Sports", baseUrl, i));
+        }
+        feed.append("""
+                  </channel>
+                </rss>
+                """);
+        return feed.toString();
+    }
+}
@@ -0,0 +1,116 @@
+package dev.dobicinaitis.feedreader.http;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpTrafficTest {
+
+    private static final String FEED_URL = "https://www.apollo.lv/rss";
+
+    @TempDir
+    private Path recordingDirectory;
+
+    @Test
+    void shouldReplayRecordedResponsesInOrder() throws IOException {
+        // given
+        try (HttpTraffic ignored = HttpTraffic.record(recordingDirectory)) {
+            HttpTraffic.exchange("GET", FEED_URL, () -> response(200, "first"));
+            HttpTraffic.exchange("GET", FEED_URL, () -> response(200, "second"));
+        }
+        // when
+        final FetchedResponse first;
+        final FetchedResponse second;
+        try (HttpTraffic ignored = HttpTraffic.replay(recordingDirectory, ReplaySpeed.FULL)) {
+            first = HttpTraffic.exchange("GET", FEED_URL, HttpTrafficTest::failLiveRequest);
+            second = HttpTraffic.exchange("GET", FEED_URL, HttpTrafficTest::failLiveRequest);
+        }
+        // then
+        assertEquals("first", new String(first.getBody(), StandardCharsets.UTF_8), "First response should be replayed first.");
+        assertEquals("second", new String(second.getBody(), StandardCharsets.UTF_8), "Second response should be replayed second.");
+        assertEquals("application/rss+xml", first.getHeader("content-type"), "Headers should be replayed.");
+    }
+
+    @Test
+    void shouldReplayRecordedFailures() throws IOException {
+        // given
+        try (HttpTraffic ignored = HttpTraffic.record(recordingDirectory)) {
+            assertThrows(IOException.class, () -> HttpTraffic.exchange("HEAD", FEED_URL, () -> {
+                throw new IOException("Connection reset");
+            }), "Live failure should be passed on while recording.");
+        }
+        // when, then
+        try (HttpTraffic ignored = HttpTraffic.replay(recordingDirectory, ReplaySpeed.FULL)) {
+            final IOException exception = assertThrows(IOException.class,
+                    () -> HttpTraffic.exchange("HEAD", FEED_URL, HttpTrafficTest::failLiveRequest),
+                    "Recorded failure should be replayed.");
+            assertTrue(exception.getMessage().contains("Connection reset"), "Original failure reason should be kept.");
+            assertThrows(IOException.class, () -> HttpTraffic.exchange("HEAD", FEED_URL, HttpTrafficTest::failLiveRequest),
+                    "Requests that were not recorded should fail.");
+        }
+    }
+
+    @Test
+    void shouldNotRecordBotTokens() throws IOException {
+        // given
+        final String botApiUrl = "https://api.telegram.org/bot123456:SECRET/sendMessage";
+        // when
+        try (HttpTraffic ignored = HttpTraffic.record(recordingDirectory)) {
+            HttpTraffic.exchange("POST", botApiUrl, () -> response(200, "{\"ok\":true}"));
+        }
+        // then
+        final String index = Files.readString(recordingDirectory.resolve("exchanges.jsonl"));
+        assertFalse(index.contains("SECRET"), "Bot token should be redacted.");
+        try (HttpTraffic ignored = HttpTraffic.replay(recordingDirectory, ReplaySpeed.FULL)) {
+            assertEquals(200, HttpTraffic.exchange("POST", botApiUrl, HttpTrafficTest::failLiveRequest).getStatusCode(),
+                    "Redacted requests should still be replayed.");
+        }
+    }
+
+    @Test
+    void shouldNotShareConcurrentRequestsWhileRecording() throws Exception {
+        // given
+        final CountDownLatch bothStarted = new CountDownLatch(2);
+        final AtomicInteger liveRequests = new AtomicInteger();
+        final HttpTraffic.LiveExchange live = () -> {
+            liveRequests.incrementAndGet();
+            bothStarted.countDown();
+            try {
+                bothStarted.await(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response(200, "shared?");
+        };
+        // when
+        try (HttpTraffic ignored = HttpTraffic.record(recordingDirectory)) {
+            final Thread other = Thread.ofVirtual().start(() -> assertDoesNotThrow(() -> HttpTraffic.exchangeShared("HEAD", FEED_URL, live)));
+            HttpTraffic.exchangeShared("HEAD", FEED_URL, live);
+            other.join();
+        }
+        // then
+        assertEquals(2, liveRequests.get(), "Every request should be executed while recording.");
+        assertEquals(2, Files.readAllLines(recordingDirectory.resolve("exchanges.jsonl")).size(),
+                "Every request should be recorded, so that a replay serves the same number of requests.");
+    }
+
+    private static FetchedResponse response(int statusCode, String body) {
+        return new FetchedResponse(statusCode, Map.of("Content-Type", List.of("application/rss+xml")),
+                body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static FetchedResponse failLiveRequest() {
+        throw new AssertionError("No live request should be sent while replaying.");
+    }
+}
@@ -0,0 +1,212 @@
+package dev.dobicinaitis.feedreader.http;
+
+import dev.dobicinaitis.feedreader.concurrency.AimdLimiter;
+import dev.dobicinaitis.feedreader.concurrency.Deadline;
+import dev.dobicinaitis.feedreader.exceptions.HostUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UpstreamGuardTest {
+
+    private static final String ARTICLE_URL = "https://www.apollo.lv/123";
+    private static final String IMAGE_URL = "https://cdn.apollo.lv/123.jpg";
+
+    @BeforeEach
+    void setUp() {
+        UpstreamGuard.reset(2);
+    }
+
+    @Test
+    void shouldFailFastAfterConsecutiveFailures() {
+        // given
+        final AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < UpstreamGuard.FAILURE_THRESHOLD; i++) {
+            assertThrows(IOException.class, () -> UpstreamGuard.execute(ARTICLE_URL, () -> {
+                calls.incrementAndGet();
+                throw new IOException("Connection reset");
+            }));
+        }
+        // when, then
+        assertThrows(HostUnavailableException.class, () -> UpstreamGuard.execute(ARTICLE_URL, () -> {
+            calls.incrementAndGet();
+            return response(200);
+        }), "Calls to a host with an open breaker should be rejected.");
+        assertEquals(UpstreamGuard.FAILURE_THRESHOLD, calls.get(), "Host should not be called once the breaker is open.");
+        assertDoesNotThrow(() -> UpstreamGuard.execute(IMAGE_URL, () -> response(200)), "Other hosts should not be affected.");
+    }
+
+    @Test
+    void shouldCountServerErrorsAsFailures() throws IOException {
+        // given
+        for (int i = 0; i < UpstreamGuard.FAILURE_THRESHOLD; i++) {
+            assertEquals(503, UpstreamGuard.execute(ARTICLE_URL, () -> response(503)).getStatusCode(),
+                    "Server errors should be passed on while the breaker is closed.");
+        }
+        // when, then
+        assertThrows(HostUnavailableException.class, () -> UpstreamGuard.execute(ARTICLE_URL, () -> response(200)),
+                "Breaker should open after repeated server errors.");
+        assertTrue(UpstreamGuard.getTrippedHosts().containsKey("www.apollo.lv"), "Tripped host should be reported.");
+    }
+
+    @Test
+    void shouldRestoreTrippedHostsFromPreviousRun() throws IOException {
+        // given
+        final long now = System.currentTimeMillis();
+        UpstreamGuard.restore(Map.of("www.apollo.lv", now + 60_000, "cdn.apollo.lv", now - 60_000));
+        // when, then
+        assertThrows(HostUnavailableException.class, () -> UpstreamGuard.execute(ARTICLE_URL, () -> response(200)),
+                "Host that is still in its open period should be rejected.");
+        assertEquals(200, UpstreamGuard.execute(IMAGE_URL, () -> response(200)).getStatusCode(),
+                "Host whose open period is over should be called.");
+        assertEquals(Set.of("www.apollo.lv"), UpstreamGuard.getTrippedHosts().keySet(),
+                "Breaker whose open period is over should not be restored.");
+    }
+
+    @Test
+    void shouldNotSaveBreakersWhoseOpenPeriodIsOver() throws Exception {
+        // given
+        UpstreamGuard.restore(Map.of("www.apollo.lv", System.currentTimeMillis() + 100));
+        // when
+        Thread.sleep(200);
+        // then
+        assertTrue(UpstreamGuard.getTrippedHosts().isEmpty(),
+                "Breaker waiting for a trial call should not be saved, or a host nobody calls would stay tripped.");
+    }
+
+    @Test
+    void shouldLetConcurrentCallsWaitForTheTrialCallOfARestoredBreaker() throws Exception {
+        // given
+        UpstreamGuard.restore(Map.of("www.apollo.lv", System.currentTimeMillis() + 100));
+        Thread.sleep(200);
+        final AtomicInteger calls = new AtomicInteger();
+        // when
+        final List<Throwable> failures = executeConcurrently(6, () -> UpstreamGuard.execute(ARTICLE_URL, () -> {
+            calls.incrementAndGet();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            return response(200);
+        }));
+        // then
+        assertTrue(failures.isEmpty(), "Calls arriving during the trial call should go ahead once it succeeds: " + failures);
+        assertEquals(6, calls.get(), "Every call should reach the host.");
+    }
+
+    @Test
+    void shouldRejectCallsThatWaitedForAFailedTrialCall() throws Exception {
+        // given
+        UpstreamGuard.restore(Map.of("www.apollo.lv", System.currentTimeMillis() + 100));
+        Thread.sleep(200);
+        final AtomicInteger calls = new AtomicInteger();
+        // when
+        final List<Throwable> failures = executeConcurrently(6, () -> UpstreamGuard.execute(ARTICLE_URL, () -> {
+            calls.incrementAndGet();
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+            throw new IOException("Connection reset");
+        }));
+        // then
+        assertEquals(1, calls.get(), "Only the trial call should reach the host.");
+        assertEquals(5, failures.stream().filter(HostUnavailableException.class::isInstance).count(),
+                "Calls that waited for the failed trial call should be rejected.");
+        assertTrue(UpstreamGuard.getTrippedHosts().containsKey("www.apollo.lv"), "Failed trial call should open the breaker again.");
+    }
+
+    @Test
+    void shouldKeepRestoredBreakerOpenOnlyForTheRestOfItsOpenPeriod() throws Exception {
+        // given
+        final long openUntil = System.currentTimeMillis() + 500;
+        UpstreamGuard.restore(Map.of("www.apollo.lv", openUntil));
+        assertEquals(openUntil, UpstreamGuard.getTrippedHosts().get("www.apollo.lv"),
+                "Restored breaker should keep the open period of the previous run.");
+        assertThrows(HostUnavailableException.class, () -> UpstreamGuard.execute(ARTICLE_URL, () -> response(200)),
+                "Host should be rejected during the rest of its open period.");
+        // when
+        Thread.sleep(600);
+        // then
+        assertEquals(200, UpstreamGuard.execute(ARTICLE_URL, () -> response(200)).getStatusCode(),
+                "Host should get a trial call once the open period is over, not after a full open delay.");
+        assertTrue(UpstreamGuard.getTrippedHosts().isEmpty(), "Successful trial call should close the breaker.");
+    }
+
+    @Test
+    void shouldNotReportRejectedCallsToTheConcurrencyLimiter() {
+        // given
+        final AimdLimiter limiter = new AimdLimiter("www.apollo.lv", 8);
+        UpstreamGuard.restore(Map.of("www.apollo.lv", System.currentTimeMillis() + 60_000));
+        // when
+        ScopedValue.where(AimdLimiter.HOST_LIMITERS, host -> limiter).run(() ->
+                assertThrows(HostUnavailableException.class, () -> UpstreamGuard.execute(ARTICLE_URL, () -> response(200))));
+        // then
+        assertEquals(4, limiter.getLimit(), "Rejected call says nothing about the host and should not change its limit.");
+    }
+
+    @Test
+    void shouldNotCountCallsCutShortByTheTimeBudget() throws Exception {
+        // given
+        final AimdLimiter limiter = new AimdLimiter("www.apollo.lv", 8);
+        try (Deadline ignored = Deadline.start(Duration.ofMillis(1))) {
+            Thread.sleep(10);
+            // when
+            ScopedValue.where(AimdLimiter.HOST_LIMITERS, host -> limiter).run(() -> {
+                for (int i = 0; i < UpstreamGuard.FAILURE_THRESHOLD; i++) {
+                    assertThrows(SocketTimeoutException.class, () -> UpstreamGuard.execute(ARTICLE_URL, () -> {
+                        throw new SocketTimeoutException("Read timed out");
+                    }));
+                }
+            });
+        }
+        // then
+        assertTrue(UpstreamGuard.getTrippedHosts().isEmpty(), "Timeouts at the end of the time budget should not open the breaker.");
+        assertEquals(4, limiter.getLimit(), "Timeouts at the end of the time budget should not shrink the concurrency limit.");
+        assertDoesNotThrow(() -> UpstreamGuard.execute(ARTICLE_URL, () -> response(200)), "Host should still be called.");
+    }
+
+    /**
+     * Runs the same call on several virtual threads at once.
+     *
+     * @param count number of calls
+     * @param call  the call
+     * @return failures of the calls
+     */
+    private static List<Throwable> executeConcurrently(final int count, final Callable<FetchedResponse> call) throws InterruptedException {
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                    call.call();
+                } catch (Exception e) {
+                    failures.add(e);
+                }
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return failures;
+    }
+
+    private static FetchedResponse response(final int statusCode) {
+        return new FetchedResponse(statusCode, Map.of(), new byte[0]);
+    }
+}
@@ -0,0 +1,57 @@
+package dev.dobicinaitis.feedreader.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PrometheusFormatterTest {
+
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+    }
+
+    @Test
+    void shouldExportStageDurationsAsSummaries() {
+        // given
+        for (int i = 1; i <= 100; i++) {
+            Metrics.recordNanos(Stage.FEED_FETCH, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        Metrics.recordBytes(Stage.FEED_FETCH, 1024);
+        // when
+        final String output = PrometheusFormatter.format();
+        // then
+        assertTrue(output.contains("# TYPE feedreader_stage_duration_seconds summary"), "Summary type should be declared.");
+        assertTrue(output.contains("feedreader_stage_duration_seconds_count{stage=\"feed_fetch\"} 100.0"), "Sample count should be exported.");
+        assertTrue(output.contains("feedreader_stage_bytes_total{stage=\"feed_fetch\"} 1024.0"), "Transferred bytes should be exported.");
+        assertTrue(output.lines().anyMatch(line -> line.startsWith("feedreader_stage_duration_seconds{stage=\"feed_fetch\",quantile=\"0.5\"} 0.05")),
+                "Median should be exported with millisecond precision.");
+    }
+
+    @Test
+    void shouldExportFreshnessLag() {
+        // given
+        Metrics.setFreshnessLag(List.of(60L, 120L, 600L));
+        // when
+        final String output = PrometheusFormatter.format();
+        // then
+        assertTrue(output.contains("feedreader_freshness_lag_seconds_count 3.0"), "Lag sample count should be exported.");
+        assertTrue(output.lines().anyMatch(line -> line.startsWith("feedreader_freshness_lag_max_seconds 600")),
+                "Maximum lag should be exported.");
+    }
+
+    @Test
+    void shouldExportCounters() {
+        // given
+        Metrics.increment(Counter.RETRIES);
+        Metrics.increment(Counter.RETRIES);
+        // when
+        final String output = PrometheusFormatter.format();
+        // then
+        assertTrue(output.contains("feedreader_retries_total 2.0"), "Retry count should be exported.");
+    }
+}
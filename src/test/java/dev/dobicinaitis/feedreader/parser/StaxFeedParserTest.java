@@ -0,0 +1,127 @@
+package dev.dobicinaitis.feedreader.parser;
+
+import com.apptasticsoftware.rssreader.Item;
+import com.apptasticsoftware.rssreader.RssReader;
+import dev.dobicinaitis.feedreader.dto.Article;
+import org.junit.jupiter.api.Test;
+
+import javax.xml.stream.XMLStreamException;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StaxFeedParserTest {
+
+    private static final String TEST_FEED = "/__files/test-rss.xml";
+    private static final String EDGE_CASE_FEED = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <rss version="2.0" xmlns:dc="http://purl.org/dc/elements/1.1/">
+              <channel>
+                <title>Apollo.lv</title>
+                <link>https://www.apollo.lv</link>
+                <item>
+                  <title>FOTO ⟩ Cats &amp; dogs agree on a truce</title>
+                  <description><![CDATA[<p>Peace at last</p>]]></description>
+                  <link>https://t.ly/cats</link>
+                  <pubDate>2024-01-01T12:00:00+02:00</pubDate>
+                  <dc:creator>Apollo.lv</dc:creator>
+                  <category>Dzīvnieki</category>
+                  <enclosure url="https://t.ly/cats.mp4" length="0" type="video/mp4"/>
+                  <enclosure url="https://t.ly/cats.jpg" length="0" type="image/jpeg"/>
+                </item>
+                <item>
+                  <description>An item without a title</description>
+                  <guid isPermaLink="false">pm#1</guid>
+                  <pubDate>Mon, 1 Jan 2024 10:00:00 GMT</pubDate>
+                </item>
+              </channel>
+            </rss>
+            """;
+
+    private final StaxFeedParser parser = new StaxFeedParser();
+
+    @Test
+    void shouldParseTheSameFieldsAsRssReader() throws Exception {
+        // given
+        final List<Item> items;
+        try (InputStream feed = getClass().getResourceAsStream(TEST_FEED)) {
+            items = new RssReader().read(feed).toList();
+        }
+        // when
+        final List<Article> articles;
+        try (InputStream feed = getClass().getResourceAsStream(TEST_FEED)) {
+            articles = parser.parse(feed);
+        }
+        // then
+        assertSameAsRssReader(items, articles);
+        assertEquals("https://t.ly/4nyyJ", articles.get(1).getImageUrl(), "Image URL should be read from the enclosure.");
+    }
+
+    @Test
+    void shouldParseEdgeCasesTheSameWayAsRssReader() throws Exception {
+        // given
+        final List<Item> items = new RssReader().read(toStream(EDGE_CASE_FEED)).toList();
+        // when
+        final List<Article> articles = parser.parse(toStream(EDGE_CASE_FEED));
+        // then
+        assertSameAsRssReader(items, articles);
+        assertEquals("FOTO ⟩ Cats & dogs agree on a truce", articles.get(0).getTitle(), "Entities should be resolved.");
+        assertEquals("<p>Peace at last</p>", articles.get(0).getDescription(), "CDATA should be read as text.");
+        assertEquals("", articles.get(0).getImageUrl(), "Only the first enclosure should be considered.");
+        assertEquals("https://t.ly/cats", articles.get(0).getGuid(), "Link should be used as the guid if there is none.");
+        assertNull(articles.get(1).getTitle(), "Missing title should be null.");
+    }
+
+    @Test
+    void shouldReuseTheParserForAnotherFeed() throws Exception {
+        // given
+        final List<Article> first = parser.parse(toStream(EDGE_CASE_FEED));
+        // when
+        final List<Article> second = parser.parse(toStream(EDGE_CASE_FEED));
+        // then
+        assertEquals(first, second, "Parsing the same feed again should give the same articles.");
+    }
+
+    @Test
+    void shouldRejectMalformedFeed() {
+        // given
+        final String feed = "<rss><channel><item><title>Unclosed</channel></rss>";
+        // when, then
+        assertThrows(XMLStreamException.class, () -> parser.parse(toStream(feed)), "Malformed feed should be rejected.");
+    }
+
+    private static void assertSameAsRssReader(final List<Item> items, final List<Article> articles) {
+        assertEquals(items.size(), articles.size(), "Every item should be parsed.");
+        for (int i = 0; i < items.size(); i++) {
+            final Item item = items.get(i);
+            final Article article = articles.get(i);
+            final String link = item.getLink().orElse("");
+            assertEquals(item.getTitle().orElse(null), article.getTitle(), "Title of item " + i + " should match.");
+            assertEquals(item.getDescription().orElse(""), article.getDescription(), "Description of item " + i + " should match.");
+            assertEquals(link, article.getLink(), "Link of item " + i + " should match.");
+            assertEquals(item.getGuid().orElse(link), article.getGuid(), "Guid of item " + i + " should match.");
+            assertEquals(item.getCategories(), article.getCategories(), "Categories of item " + i + " should match.");
+            assertEquals(item.getPubDateZonedDateTime().map(ZonedDateTime::toInstant).orElse(null),
+                    article.getPublicationDate() != null ? article.getPublicationDate().toInstant() : null,
+                    "Publication date of item " + i + " should match.");
+            assertEquals(getImageUrl(item), article.getImageUrl(), "Image URL of item " + i + " should match.");
+        }
+    }
+
+    private static String getImageUrl(final Item item) {
+        return item.getEnclosure()
+                .filter(enclosure -> enclosure.getType() != null && enclosure.getType().contains("image"))
+                .map(enclosure -> enclosure.getUrl() != null ? enclosure.getUrl() : "")
+                .orElse("");
+    }
+
+    private static InputStream toStream(final String feed) {
+        return new ByteArrayInputStream(feed.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,76 @@
+package dev.dobicinaitis.feedreader.report;
+
+import com.google.gson.JsonObject;
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.ArticleOutcome;
+import dev.dobicinaitis.feedreader.dto.RunReport;
+import dev.dobicinaitis.feedreader.metrics.Cache;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.dobicinaitis.feedreader.metrics.Stage;
+import dev.dobicinaitis.feedreader.util.JsonUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RunReporterTest {
+
+    @BeforeEach
+    void setUp() {
+        Metrics.reset();
+    }
+
+    @Test
+    void shouldWriteRunReportAsJson() throws IOException {
+        // given
+        final RunReporter reporter = new RunReporter();
+        reporter.setItemsReceived(10);
+        reporter.setNewArticles(2);
+        reporter.recordArticle(Article.builder().guid("a#1").title("Posted").build(), ArticleOutcome.POSTED,
+                42, 1.5, TimeUnit.MILLISECONDS.toNanos(250));
+        reporter.recordArticle(Article.builder().guid("a#2").title("Paywalled").build(), ArticleOutcome.EXCLUDED_PAYWALLED);
+        Metrics.recordNanos(Stage.FEED_FETCH, TimeUnit.MILLISECONDS.toNanos(100));
+        Metrics.recordBytes(Stage.FEED_FETCH, 2048);
+        Metrics.increment(Counter.RETRIES);
+        Metrics.recordCacheLookup(Cache.ARCHIVE, true);
+        Metrics.recordCacheLookup(Cache.ARCHIVE, false);
+        final File reportFile = File.createTempFile("tmpReport", ".json");
+        reportFile.deleteOnExit();
+        // when
+        reporter.write(reportFile);
+        // then
+        final JsonObject report = JsonUtils.getGson().fromJson(Files.readString(reportFile.toPath()), JsonObject.class);
+        assertEquals(RunReporter.SUCCESS, report.get("status").getAsString(), "Status should be reported.");
+        assertEquals(10, report.get("itemsReceived").getAsInt(), "Received item count should be reported.");
+        assertEquals(2048, report.get("bytesTransferred").getAsLong(), "Transferred bytes should be reported.");
+        assertEquals(1, report.getAsJsonObject("stages").getAsJsonObject("feed_fetch").get("count").getAsLong(),
+                "Stage timings should be reported.");
+        assertEquals(1, report.getAsJsonObject("counters").get("feedreader_retries_total").getAsLong(),
+                "Retry count should be reported.");
+        assertEquals(0.5, report.getAsJsonObject("cacheHitRatios").get("archive").getAsDouble(),
+                "Cache hit ratio should be reported.");
+        assertEquals(2, report.getAsJsonArray("articles").size(), "All article outcomes should be reported.");
+        assertEquals("POSTED", report.getAsJsonArray("articles").get(0).getAsJsonObject().get("outcome").getAsString(),
+                "Article outcome should be reported.");
+        assertTrue(report.get("timeToFirstPostSeconds").getAsDouble() > 0, "Time from JVM start to the first post should be reported.");
+    }
+
+    @Test
+    void shouldNotReportTimeToFirstPostWithoutPosts() {
+        // given
+        final RunReporter reporter = new RunReporter();
+        reporter.recordArticle(Article.builder().guid("a#1").build(), ArticleOutcome.EXCLUDED_PAYWALLED);
+        // when
+        final RunReport report = reporter.build();
+        // then
+        assertNull(report.getTimeToFirstPostSeconds(), "There is no first post to report.");
+    }
+}
@@ -0,0 +1,77 @@
+package dev.dobicinaitis.feedreader.services;
+
+import dev.dobicinaitis.feedreader.dto.SyncSettings;
+import dev.dobicinaitis.feedreader.helpers.FakeTelegramBotApi;
+import dev.dobicinaitis.feedreader.helpers.SyntheticFeedServer;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Records the HTTP traffic of a sync against local stand-ins of apollo.lv and the Telegram Bot API, which the
+ * aotCache task replays as the training run of the JDK AOT cache.
+ * <p>
+ * Excluded from the regular test run, it is started by the aotTrainingRecording task.
+ */
+@Tag("aot-training")
+class AotTrainingRecordingTest {
+
+    private static final int ITEM_COUNT = 20;
+    private static final File RECORDING_DIRECTORY = new File(System.getProperty("aotTraining.recordingDir", "build/aot/training"));
+
+    @Test
+    void shouldRecordTrainingSync() throws IOException {
+        // given
+        final SyntheticFeedServer feedServer = new SyntheticFeedServer(ITEM_COUNT, 0, 0);
+        final FakeTelegramBotApi telegramApi = new FakeTelegramBotApi(0, 0);
+        final File statusFile = File.createTempFile("tmpStatus", ".json");
+        Files.delete(statusFile.toPath());
+        TelegramService.setMessagesPerMinute(60_000);
+        Metrics.reset();
+        try {
+            // when
+            new SyncService(SyncSettings.builder()
+                    .rssUrl(feedServer.getFeedUrl())
+                    .telegramBotToken("bot-token")
+                    .telegramChannelId("channel-id")
+                    .telegramApiUrl(telegramApi.getBaseUrl())
+                    .statusFile(statusFile)
+                    .recordDirectory(RECORDING_DIRECTORY)
+                    .build()).sync();
+            writeTrainingProperties(feedServer.getFeedUrl(), telegramApi.getBaseUrl());
+        } finally {
+            TelegramService.setMessagesPerMinute(TelegramService.MESSAGES_PER_MINUTE);
+            Files.deleteIfExists(statusFile.toPath());
+            feedServer.stop();
+            telegramApi.stop();
+        }
+        // then
+        assertEquals(ITEM_COUNT, Metrics.getCount(Counter.ARTICLES_POSTED), "Training run should post every article.");
+    }
+
+    /**
+     * Saves the URLs the recording was made with, a replay only serves requests to the same URLs.
+     *
+     * @param rssUrl         RSS feed URL
+     * @param telegramApiUrl Bot API base URL
+     * @throws IOException if the file could not be written
+     */
+    private static void writeTrainingProperties(final String rssUrl, final String telegramApiUrl) throws IOException {
+        final Properties properties = new Properties();
+        properties.setProperty("rssUrl", rssUrl);
+        properties.setProperty("telegramApiUrl", telegramApiUrl);
+        try (Writer writer = Files.newBufferedWriter(RECORDING_DIRECTORY.toPath().resolve("training.properties"), StandardCharsets.UTF_8)) {
+            properties.store(writer, "URLs of the recorded training sync");
+        }
+    }
+}
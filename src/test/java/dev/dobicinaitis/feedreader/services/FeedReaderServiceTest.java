@@ -1,7 +1,10 @@
 package dev.dobicinaitis.feedreader.services;
 
 import com.apptasticsoftware.rssreader.RssReader;
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.FeedFetchSample;
 import dev.dobicinaitis.feedreader.exceptions.FeedReaderRuntimeException;
+import dev.dobicinaitis.feedreader.helpers.SyntheticFeedServer;
 import dev.dobicinaitis.feedreader.helpers.TestFeedServer;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
@@ -9,7 +12,11 @@ import org.junit.jupiter.api.Timeout;
 
 import java.io.IOException;
 import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
+import static dev.dobicinaitis.feedreader.helpers.FaultInjection.status;
 import static org.junit.jupiter.api.Assertions.*;
 
 class FeedReaderServiceTest {
@@ -36,6 +43,21 @@ class FeedReaderServiceTest {
                 "Should return correct publication date");
     }
 
+    @Test
+    void shouldReturnArticlesParsedWithStax() {
+        // given
+        final FeedReaderService feedReader = new FeedReaderService(feedServer.getFeedUrl());
+        // when
+        final List<Article> articles = feedReader.getArticles();
+        // then
+        assertEquals(2, articles.size(), "Should return 2 articles");
+        assertTrue(articles.get(0).getTitle().startsWith("VIDEO ⟩"), "Should return the raw title");
+        assertEquals("https://t.ly/nSXIV", articles.get(0).getLink(), "Should return correct link");
+        assertEquals("1970-01-01T00:00+03:00", articles.get(0).getPublicationDate().toString(),
+                "Should return correct publication date");
+        assertEquals(List.of("Apollo.lv", "Sports", "Basketbols"), articles.get(1).getCategories(), "Should return all categories");
+    }
+
     @Test
     void shouldThrowFeedReaderRuntimeExceptionWhenFeedIsUnavailable() {
         final String feedUrl = "http://localhost/invalid";
@@ -43,6 +65,59 @@ class FeedReaderServiceTest {
         assertThrows(FeedReaderRuntimeException.class, feedReader::getItems, "Should throw FeedReaderRuntimeException");
     }
 
+    @Test
+    void shouldNotHedgeWithoutEnoughHistory() {
+        // given
+        final List<FeedFetchSample> history = samples(FeedReaderService.MIN_HEDGE_SAMPLES - 1, 200);
+        // when, then
+        assertNull(FeedReaderService.calculateHedgeDelay(history), "Should not hedge before enough fetches were seen.");
+    }
+
+    @Test
+    void shouldHedgeAtLatencyPercentileOfRecentFetches() {
+        // given
+        final List<FeedFetchSample> history = new ArrayList<>();
+        for (int i = 1; i <= 100; i++) {
+            history.add(new FeedFetchSample(i * 10L, false));
+        }
+        // when
+        final Duration hedgeDelay = FeedReaderService.calculateHedgeDelay(history);
+        // then
+        assertEquals(Duration.ofMillis(950), hedgeDelay, "Should hedge at the 95th percentile latency.");
+    }
+
+    @Test
+    void shouldStopHedgingWhenHedgeRateCapIsReached() {
+        // given
+        final List<FeedFetchSample> history = samples(18, 200);
+        history.add(new FeedFetchSample(5000, true));
+        history.add(new FeedFetchSample(5000, true));
+        // when, then
+        assertNull(FeedReaderService.calculateHedgeDelay(history), "Should not hedge more than 10% of fetches.");
+    }
+
+    @Test
+    void shouldUseTheFirstResponseWhenTheFeedIsSlow() {
+        // given
+        final SyntheticFeedServer slowFeedServer = new SyntheticFeedServer(3, 0, 0);
+        slowFeedServer.injectFaults("/rss", status(200).withFixedDelay(5_000));
+        final FeedReaderService feedReader = new FeedReaderService(slowFeedServer.getFeedUrl());
+        feedReader.setHedgeDelay(Duration.ofMillis(200));
+        try {
+            // when
+            final long startTime = System.nanoTime();
+            final int itemCount = feedReader.getItems().size();
+            final Duration elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+            // then
+            assertEquals(3, itemCount, "Should return the items from the hedged request.");
+            assertTrue(elapsed.compareTo(Duration.ofSeconds(3)) < 0, "Should not wait for the slow request, took " + elapsed.toMillis() + " ms.");
+            assertTrue(feedReader.getLastFetch().isHedged(), "Fetch should be recorded as hedged.");
+            assertEquals(2, slowFeedServer.countRequests("/rss"), "Exactly one hedged request should be sent.");
+        } finally {
+            slowFeedServer.stop();
+        }
+    }
+
     @Test
     @Timeout(3)
     void shouldRespectHttpRequestTimeoutSettings() {
@@ -55,5 +130,13 @@ class FeedReaderServiceTest {
         assertThrows(IOException.class, () -> rssReader.read(feedUrl), "Should throw IOException");
         // the exception should be thrown in ~1s, therefore if it takes longer then 3s, the test will fail
     }
+
+    private static List<FeedFetchSample> samples(final int count, final long latencyMillis) {
+        final List<FeedFetchSample> samples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            samples.add(new FeedFetchSample(latencyMillis, false));
+        }
+        return samples;
+    }
 }
 
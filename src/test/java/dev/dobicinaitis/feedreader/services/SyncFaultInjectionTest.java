@@ -0,0 +1,284 @@
+package dev.dobicinaitis.feedreader.services;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import dev.dobicinaitis.feedreader.dto.SyncSettings;
+import dev.dobicinaitis.feedreader.dto.SyncStatus;
+import dev.dobicinaitis.feedreader.helpers.FakeTelegramBotApi;
+import dev.dobicinaitis.feedreader.helpers.SyntheticFeedServer;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.dobicinaitis.feedreader.storage.StatusFormat;
+import dev.dobicinaitis.feedreader.storage.StatusStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+
+import static dev.dobicinaitis.feedreader.configuration.FailsafeConfiguration.DELAY_IN_SECONDS;
+import static dev.dobicinaitis.feedreader.configuration.FailsafeConfiguration.MAX_RETRY_COUNT;
+import static dev.dobicinaitis.feedreader.configuration.HttpConfiguration.READ_TIMEOUT;
+import static dev.dobicinaitis.feedreader.helpers.FaultInjection.connectionReset;
+import static dev.dobicinaitis.feedreader.helpers.FaultInjection.garbageThenClose;
+import static dev.dobicinaitis.feedreader.helpers.FaultInjection.partialBody;
+import static dev.dobicinaitis.feedreader.helpers.FaultInjection.status;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs a full sync against local stand-ins of apollo.lv and the Telegram Bot API while they misbehave, and checks
+ * that the run still posts every article exactly once within a predictable time.
+ */
+class SyncFaultInjectionTest {
+
+    private static final int ITEM_COUNT = 5;
+    // time the run needs without any faults, generously rounded up for slow CI machines
+    private static final Duration BASE_RUN_TIME = Duration.ofSeconds(10);
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(DELAY_IN_SECONDS);
+
+    private SyntheticFeedServer feedServer;
+    private FakeTelegramBotApi telegramApi;
+    private File statusFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        feedServer = new SyntheticFeedServer(ITEM_COUNT, 0, 0);
+        telegramApi = new FakeTelegramBotApi(0, 0);
+        // the rate limit isn't what is being tested, it would only make the runs slower
+        TelegramService.setMessagesPerMinute(60_000);
+        Metrics.reset();
+        statusFile = File.createTempFile("tmpStatus", ".json");
+        statusFile.deleteOnExit();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TelegramService.setMessagesPerMinute(TelegramService.MESSAGES_PER_MINUTE);
+        feedServer.stop();
+        telegramApi.stop();
+    }
+
+    @Test
+    void shouldRetryFeedDownloadDuringServerErrorBurst() {
+        // given
+        feedServer.injectFaults("/rss", status(503), status(502), status(500));
+        // when
+        final Duration elapsed = timedSync();
+        // then
+        assertEquals(MAX_RETRY_COUNT + 1, feedServer.countRequests("/rss"), "Feed should be downloaded after the last retry.");
+        assertEveryArticlePostedOnce();
+        assertWithin(elapsed, RETRY_DELAY.multipliedBy(MAX_RETRY_COUNT));
+    }
+
+    @Test
+    void shouldRetryFeedDownloadAfterBrokenConnections() {
+        // given
+        feedServer.injectFaults("/rss", connectionReset(), partialBody(), garbageThenClose());
+        // when
+        final Duration elapsed = timedSync();
+        // then
+        assertEveryArticlePostedOnce();
+        assertWithin(elapsed, RETRY_DELAY.multipliedBy(MAX_RETRY_COUNT));
+    }
+
+    @Test
+    void shouldTimeOutStalledFeedDownload() {
+        // given
+        final int stallMillis = (int) READ_TIMEOUT.plusSeconds(5).toMillis();
+        feedServer.injectFaults("/rss", status(200).withFixedDelay(stallMillis));
+        // when
+        final Duration elapsed = timedSync();
+        // then
+        assertEveryArticlePostedOnce();
+        assertWithin(elapsed, READ_TIMEOUT.plus(RETRY_DELAY));
+    }
+
+    @Test
+    void shouldPostArticlesWhenArticlePagesAreSlowOrBroken() {
+        // given
+        feedServer.injectFaults("/(a|articles)/[0-9]+",
+                status(200).withFixedDelay(2_000), connectionReset(), status(503), partialBody());
+        // when
+        final Duration elapsed = timedSync();
+        // then
+        assertEveryArticlePostedOnce();
+        assertWithin(elapsed, Duration.ofSeconds(2));
+    }
+
+    @Test
+    void shouldRetryImageDownloadAfterBrokenConnections() {
+        // given
+        feedServer.injectFaults("/images/[0-9]+\\.gif", connectionReset(), partialBody(), status(503));
+        // when
+        final Duration elapsed = timedSync();
+        // then
+        assertEveryArticlePostedOnce();
+        assertEquals(0, telegramApi.countRequests("sendMessage"), "Images should be sent after the retries.");
+        assertWithin(elapsed, RETRY_DELAY.multipliedBy(MAX_RETRY_COUNT));
+    }
+
+    @Test
+    void shouldFallBackToTextOnlyWhenImageIsUnavailable() {
+        // given
+        final int imageAttempts = MAX_RETRY_COUNT + 1;
+        feedServer.injectFaults("/images/0\\.gif", status(503), status(503), status(503), status(503));
+        // when
+        final Duration elapsed = timedSync();
+        // then
+        assertEquals(imageAttempts, feedServer.countRequests("/images/0\\.gif"), "Image should be retried.");
+        assertEquals(1, telegramApi.countRequests("sendMessage"), "Article should be posted as text-only.");
+        assertEveryArticlePostedOnce();
+        assertWithin(elapsed, RETRY_DELAY.multipliedBy(MAX_RETRY_COUNT));
+    }
+
+    @Test
+    void shouldNotPostDuplicatesWhenTelegramIsRateLimitingOrResetting() {
+        // given
+        telegramApi.injectFaults("(sendPhoto|sendMessage)", status(429), connectionReset(), status(502));
+        // when
+        final Duration elapsed = timedSync();
+        // then
+        assertEveryArticlePostedOnce();
+        assertTrue(Metrics.getCount(Counter.RETRIES) > 0, "Failed sends should be retried.");
+        assertWithin(elapsed, RETRY_DELAY.multipliedBy(MAX_RETRY_COUNT));
+    }
+
+    @Test
+    void shouldNotRepostMessageAcceptedByTelegramBeforeItStalled() {
+        // given
+        final int stallMillis = (int) READ_TIMEOUT.plusSeconds(5).toMillis();
+        telegramApi.injectFaults("sendPhoto", FakeTelegramBotApi.acceptedAfter(stallMillis));
+        // when
+        final Duration elapsed = timedSync();
+        timedSync();
+        // then
+        assertEquals(ITEM_COUNT, telegramApi.countRequests("sendPhoto"), "Stalled message should not be sent again.");
+        assertEveryArticlePostedOnce();
+        assertWithin(elapsed, READ_TIMEOUT);
+    }
+
+    @Test
+    void shouldNotRepostArticlesOnTheNextRunAfterFaults() {
+        // given
+        feedServer.injectFaults("/images/[0-9]+\\.gif", connectionReset(), status(503));
+        telegramApi.injectFaults("sendPhoto", status(429), connectionReset());
+        timedSync();
+        // when
+        timedSync();
+        // then
+        assertEquals(ITEM_COUNT, telegramApi.countAcceptedSends(), "Second run should not post anything.");
+    }
+
+    @Test
+    void shouldLearnFeedLatencyFromRunsWithNothingNew() throws IOException {
+        // given
+        timedSync();
+        // when
+        timedSync();
+        timedSync();
+        // then
+        assertEquals(3, StatusStore.create(statusFile, StatusFormat.JSON).read().getFeedFetchSamples().size(),
+                "Runs with nothing new should record their feed fetches too.");
+    }
+
+    @Test
+    void shouldFailFastOnceArticleHostIsDown() throws IOException {
+        // given
+        final ResponseDefinitionBuilder[] outage = new ResponseDefinitionBuilder[50];
+        Arrays.fill(outage, connectionReset());
+        feedServer.injectFaults("/(a|articles)/[0-9]+", outage);
+        // when
+        final Duration elapsed = timedSync();
+        // then
+        // link lookups trip the breaker, so the paywall checks never reach the host
+        assertTrue(feedServer.countRequests("/(a|articles)/[0-9]+") < 2 * ITEM_COUNT,
+                "Article host should not be called after its circuit breaker opens.");
+        assertTrue(Metrics.getCount(Counter.UPSTREAM_REJECTIONS) > 0, "Calls to the host should be rejected.");
+        assertEquals(ITEM_COUNT, Metrics.getCount(Counter.ARTICLES_POSTED), "Articles should be posted with default link and paywall flag.");
+        final SyncStatus syncStatus = StatusStore.create(statusFile, StatusFormat.JSON).read();
+        assertTrue(syncStatus.getTrippedHosts().containsKey(URI.create(feedServer.getBaseUrl()).getAuthority()),
+                "Tripped host should be saved for the next run.");
+        assertTrue(syncStatus.getItemHashes().isEmpty(), "Items whose lookups were rejected should be looked up again by the next run.");
+        assertWithin(elapsed, Duration.ZERO);
+    }
+
+    @Test
+    void shouldStopPostingWhenTimeBudgetIsUsedUpAndContinueOnTheNextRun() {
+        // given
+        telegramApi.stop();
+        telegramApi = new FakeTelegramBotApi(1_000, 0);
+        final Duration timeBudget = Duration.ofSeconds(2);
+        // when
+        final Duration elapsed = timedSync(timeBudget);
+        final long acceptedInFirstRun = telegramApi.countAcceptedSends();
+        timedSync(Duration.ZERO);
+        // then
+        assertTrue(acceptedInFirstRun > 0 && acceptedInFirstRun < ITEM_COUNT,
+                "Only some of the articles should fit in the time budget, posted " + acceptedInFirstRun);
+        assertEquals(ITEM_COUNT, telegramApi.countAcceptedSends(), "Next run should post the rest without duplicates.");
+        // the message being sent when the budget runs out is allowed to finish
+        assertTrue(elapsed.compareTo(timeBudget.plusSeconds(2)) < 0, "Run should stop soon after the budget, took " + elapsed.toMillis() + " ms.");
+    }
+
+    @Test
+    void shouldDeferArticleWhoseImageRunsOutOfTimeBudget() {
+        // given
+        final Duration timeBudget = Duration.ofSeconds(3);
+        final int stallMillis = (int) READ_TIMEOUT.toMillis();
+        feedServer.injectFaults("/images/[0-9]+\\.gif", status(200).withFixedDelay(stallMillis));
+        // when
+        final Duration elapsed = timedSync(timeBudget);
+        final long acceptedInFirstRun = telegramApi.countAcceptedSends();
+        timedSync(Duration.ZERO);
+        // then
+        assertTrue(acceptedInFirstRun < ITEM_COUNT, "Article with the stalled image should be left to the next run.");
+        assertEquals(0, telegramApi.countRequests("sendMessage"), "Article should not be posted without its image.");
+        assertEquals(ITEM_COUNT, telegramApi.countAcceptedSends(), "Next run should post the rest without duplicates.");
+        assertTrue(elapsed.compareTo(timeBudget.plusSeconds(2)) < 0, "Run should stop soon after the budget, took " + elapsed.toMillis() + " ms.");
+    }
+
+    private Duration timedSync() {
+        return timedSync(Duration.ZERO);
+    }
+
+    /**
+     * Syncs the synthetic feed to the fake Bot API.
+     *
+     * @param timeBudget time budget of the run, zero for no limit
+     * @return run time
+     */
+    private Duration timedSync(final Duration timeBudget) {
+        final SyncService syncService = new SyncService(SyncSettings.builder()
+                .rssUrl(feedServer.getFeedUrl())
+                .telegramBotToken("bot-token")
+                .telegramChannelId("channel-id")
+                .telegramApiUrl(telegramApi.getBaseUrl())
+                .statusFile(statusFile)
+                .timeBudget(timeBudget)
+                .build());
+        final long startTime = System.nanoTime();
+        syncService.sync();
+        return Duration.ofNanos(System.nanoTime() - startTime);
+    }
+
+    private void assertEveryArticlePostedOnce() {
+        assertEquals(ITEM_COUNT, Metrics.getCount(Counter.ARTICLES_POSTED), "Every article should be posted.");
+        assertEquals(ITEM_COUNT, telegramApi.countAcceptedSends(), "Every article should be accepted by the Bot API exactly once.");
+    }
+
+    /**
+     * Checks the run time against the time the injected faults are expected to cost.
+     *
+     * @param elapsed   run time
+     * @param faultCost expected extra time caused by the faults
+     */
+    private static void assertWithin(final Duration elapsed, final Duration faultCost) {
+        final Duration bound = BASE_RUN_TIME.plus(faultCost);
+        assertTrue(elapsed.compareTo(bound) < 0,
+                "Run should finish within " + bound.toMillis() + " ms, took " + elapsed.toMillis() + " ms.");
+    }
+}
@@ -0,0 +1,97 @@
+package dev.dobicinaitis.feedreader.services;
+
+import dev.dobicinaitis.feedreader.dto.SyncSettings;
+import dev.dobicinaitis.feedreader.helpers.FakeTelegramBotApi;
+import dev.dobicinaitis.feedreader.helpers.SyntheticFeedServer;
+import dev.dobicinaitis.feedreader.metrics.Counter;
+import dev.dobicinaitis.feedreader.metrics.Metrics;
+import dev.dobicinaitis.feedreader.metrics.Stage;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Times a full sync of a large backlog against local stand-ins of apollo.lv and the Telegram Bot API.
+ * <p>
+ * Excluded from the regular test run, start it with {@code ./gradlew loadTest}. The backlog size and the simulated
+ * conditions can be changed with the {@code loadTest.*} system properties, see the loadTest task.
+ */
+@Slf4j
+@Tag("load")
+class SyncLoadTest {
+
+    private static final int ITEM_COUNT = Integer.getInteger("loadTest.items", 500);
+    private static final int FEED_LATENCY_MILLIS = Integer.getInteger("loadTest.feedLatencyMillis", 50);
+    private static final int ERROR_RATE_PERCENT = Integer.getInteger("loadTest.errorRatePercent", 2);
+    private static final int TELEGRAM_LATENCY_MILLIS = Integer.getInteger("loadTest.telegramLatencyMillis", 30);
+    private static final int RATE_LIMITED_EVERY = Integer.getInteger("loadTest.rateLimitedEvery", 100);
+    // the local Bot API stand-in doesn't need the production rate limit, the load test is about our own overhead
+    private static final int MESSAGES_PER_MINUTE = Integer.getInteger("loadTest.messagesPerMinute", 60_000);
+    private static final File REPORT_DIRECTORY = new File(System.getProperty("loadTest.reportDir", "build/reports/load-test"));
+
+    private SyntheticFeedServer feedServer;
+    private FakeTelegramBotApi telegramApi;
+
+    @BeforeEach
+    void setUp() {
+        feedServer = new SyntheticFeedServer(ITEM_COUNT, FEED_LATENCY_MILLIS, ERROR_RATE_PERCENT);
+        telegramApi = new FakeTelegramBotApi(TELEGRAM_LATENCY_MILLIS, RATE_LIMITED_EVERY);
+        TelegramService.setMessagesPerMinute(MESSAGES_PER_MINUTE);
+        Metrics.reset();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TelegramService.setMessagesPerMinute(TelegramService.MESSAGES_PER_MINUTE);
+        feedServer.stop();
+        telegramApi.stop();
+    }
+
+    @Test
+    void shouldPostABacklogOfArticles() throws IOException {
+        // given
+        final File statusFile = File.createTempFile("tmpStatus", ".json");
+        statusFile.deleteOnExit();
+        REPORT_DIRECTORY.mkdirs();
+        final SyncService syncService = new SyncService(SyncSettings.builder()
+                .rssUrl(feedServer.getFeedUrl())
+                .telegramBotToken("bot-token")
+                .telegramChannelId("channel-id")
+                .telegramApiUrl(telegramApi.getBaseUrl())
+                .statusFile(statusFile)
+                .reportFile(new File(REPORT_DIRECTORY, "report.json"))
+                .metricsFile(new File(REPORT_DIRECTORY, "metrics.prom"))
+                .build());
+        // when
+        final long startTime = System.nanoTime();
+        syncService.sync();
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - startTime);
+        // then
+        final long posted = Metrics.getCount(Counter.ARTICLES_POSTED);
+        log.info("Synced a backlog of {} items in {} ms ({} articles/s), posted {}, failed {}, retries {}, 429 responses {}.",
+                ITEM_COUNT, elapsed.toMillis(), "%.1f".formatted(posted / (elapsed.toNanos() / 1e9)), posted,
+                Metrics.getCount(Counter.ARTICLES_FAILED), Metrics.getCount(Counter.RETRIES), telegramApi.countResponses(429));
+        for (Stage stage : Stage.values()) {
+            final Metrics.StageTimer timer = Metrics.getTimer(stage);
+            log.info("{}: count {}, total {} s, p50 {} s, p99 {} s, max {} s", stage.getLabel(), timer.getCount(),
+                    timer.getTotalSeconds(), timer.getPercentileSeconds(50), timer.getPercentileSeconds(99), timer.getMaxSeconds());
+        }
+        log.info("Run report saved to {}", REPORT_DIRECTORY.getAbsolutePath());
+
+        assertEquals(ITEM_COUNT, posted, "Every article should be posted, articles with a broken image as text-only.");
+        assertEquals(ITEM_COUNT, telegramApi.countRequests("sendPhoto") + telegramApi.countRequests("sendMessage")
+                - telegramApi.countResponses(429), "Every article should be accepted by the Bot API exactly once.");
+        if (RATE_LIMITED_EVERY > 0 && ITEM_COUNT >= RATE_LIMITED_EVERY) {
+            assertTrue(Metrics.getCount(Counter.RETRIES) > 0, "Rate limited requests should be retried.");
+        }
+    }
+}
@@ -1,22 +1,33 @@
 package dev.dobicinaitis.feedreader.services;
 
 import com.apptasticsoftware.rssreader.Item;
+import dev.dobicinaitis.feedreader.diff.FeedDiff;
+import dev.dobicinaitis.feedreader.dto.ArchivedArticle;
 import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.PostedMessage;
 import dev.dobicinaitis.feedreader.dto.SyncSettings;
 import dev.dobicinaitis.feedreader.dto.SyncStatus;
 import dev.dobicinaitis.feedreader.helpers.TestFeedServer;
+import dev.dobicinaitis.feedreader.storage.PostedArticleArchive;
 import dev.dobicinaitis.feedreader.util.ItemWrapper;
 import dev.dobicinaitis.feedreader.util.JsonUtils;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static dev.dobicinaitis.feedreader.dto.TitleEmoji.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -157,6 +168,97 @@ class SyncServiceTest {
         assertEquals("new", articles.getFirst().getTitle(), "The newest article should be left.");
     }
 
+    @Test
+    void shouldRemovePostedArticlesWithANewerDate() {
+        // given
+        final ZonedDateTime cutOffDate = ZonedDateTime.now();
+        final List<Article> articles = new ArrayList<>();
+        articles.add(Article.builder().guid("new").publicationDate(cutOffDate.plusMinutes(1)).build());
+        articles.add(Article.builder().guid("posted").publicationDate(cutOffDate.plusMinutes(2)).build());
+        final SyncStatus syncStatus = SyncStatus.builder().publicationDateOfLastPostedArticle(cutOffDate).build();
+        syncStatus.getPostedMessages().put("posted", PostedMessage.builder().messageId(1).build());
+        // when
+        syncService.removeProcessedArticles(articles, syncStatus);
+        // then
+        assertEquals(1, articles.size(), "Only 1 article should be left.");
+        assertEquals("new", articles.getFirst().getGuid(), "Article that was posted before its date changed should be removed.");
+    }
+
+    @Test
+    void shouldProcessUnfinishedArticlesAgainOnTheNextRun() {
+        // given
+        final Article posted = Article.builder().guid("posted").title("Posted").link("https://www.apollo.lv/1").build();
+        final Article failed = Article.builder().guid("failed").title("Failed").link("https://www.apollo.lv/2").build();
+        final Article edited = Article.builder().guid("edited").title("Edited").titleEmoji(ARTICLE).description("")
+                .link("https://www.apollo.lv/3").build();
+        final Article notEdited = Article.builder().guid("not-edited").title("Not edited").titleEmoji(ARTICLE).description("")
+                .link("https://www.apollo.lv/4").build();
+        final Map<String, PostedMessage> postedMessages = new HashMap<>(Map.of(
+                "edited", PostedMessage.builder().messageId(3).contentHash(TelegramService.calculateContentHash(edited)).build(),
+                "not-edited", PostedMessage.builder().messageId(4).contentHash("old").build()));
+        final FeedDiff diff = new FeedDiff(Map.of("edited", 1L, "not-edited", 2L));
+        diff.offer("posted", 10L);
+        diff.offer("failed", 20L);
+        diff.offer("edited", 30L);
+        diff.offer("not-edited", 40L);
+        // when
+        syncService.retryUnfinishedArticles(diff, List.of(posted, failed), List.of(posted), List.of(edited, notEdited), postedMessages);
+        // then
+        assertEquals(Map.of("posted", 10L, "edited", 30L, "not-edited", 2L), diff.getSnapshot(),
+                "Article that failed to post should be left out and the failed edit should keep the previous hash.");
+    }
+
+    @Test
+    void shouldRecheckOnlyTheMostRecentlyPostedArticles() {
+        // given
+        final ZonedDateTime now = ZonedDateTime.parse("2024-01-02T12:00:00+02:00");
+        final Map<String, PostedMessage> postedMessages = new HashMap<>();
+        for (int i = 0; i <= SyncService.MAX_PAYWALL_RECHECKS; i++) {
+            postedMessages.put("recent-" + i, PostedMessage.builder().messageId(i).postedAt(now.minusMinutes(i)).build());
+        }
+        postedMessages.put("old", PostedMessage.builder().messageId(100)
+                .postedAt(now.minus(SyncService.PAYWALL_RECHECK_PERIOD).minusMinutes(1)).build());
+        postedMessages.put("unconfirmed", PostedMessage.builder().postedAt(now).build());
+        // when
+        final Set<String> rechecks = syncService.selectPaywallRechecks(postedMessages, now);
+        // then
+        assertEquals(SyncService.MAX_PAYWALL_RECHECKS, rechecks.size(), "Rechecks per run should be capped.");
+        assertTrue(rechecks.contains("recent-0"), "The most recently posted article should be checked.");
+        assertFalse(rechecks.contains("recent-" + SyncService.MAX_PAYWALL_RECHECKS), "The oldest one over the cap should wait.");
+        assertFalse(rechecks.contains("old"), "Articles posted before the recheck period should not be checked.");
+        assertFalse(rechecks.contains("unconfirmed"), "Messages without an ID can't be edited, so they should not be checked.");
+    }
+
+    @Test
+    void shouldFilterLeftOutItemsAgainOnTheNextRun() {
+        // given
+        final Article accepted = Article.builder().guid("accepted").build();
+        final Article filtered = Article.builder().guid("filtered").build();
+        final FeedDiff diff = new FeedDiff(Map.of("unchanged-filtered", 1L));
+        diff.offer("accepted", 10L);
+        diff.offer("filtered", 20L);
+        diff.offer("unchanged-filtered", 1L);
+        // when
+        syncService.retryFilteredItems(diff, List.of(accepted, filtered), List.of(accepted), Article::getGuid);
+        // then
+        assertEquals(Map.of("accepted", 10L, "unchanged-filtered", 1L), diff.getSnapshot(),
+                "Item left out by the filter rules should not be remembered as processed.");
+    }
+
+    @Test
+    void shouldSaveItemHashesOnlyWhenTheFeedChanged() {
+        // given
+        final SyncStatus syncStatus = SyncStatus.builder().itemHashes(new HashMap<>(Map.of("a", 1L))).build();
+        final FeedDiff unchanged = new FeedDiff(syncStatus.getItemHashes());
+        unchanged.offer("a", 1L);
+        final FeedDiff changed = new FeedDiff(syncStatus.getItemHashes());
+        changed.offer("a", 2L);
+        // when, then
+        assertFalse(syncService.updateItemHashes(syncStatus, unchanged), "Unchanged feed should not update the hashes.");
+        assertTrue(syncService.updateItemHashes(syncStatus, changed), "Changed feed should update the hashes.");
+        assertEquals(Map.of("a", 2L), syncStatus.getItemHashes(), "New hash should be saved.");
+    }
+
     @Test
     void shouldCheckForPresenceOfAPaywallLabel() {
         // given
@@ -178,13 +280,31 @@ class SyncServiceTest {
         ));
         syncSettings.setExcludedCategories(List.of("gossip", "pascal"));
         // when
-        syncService.removeExcludedCategories(rssItems);
+        syncService.removeFilteredItems(rssItems);
         // then
         assertEquals(2, rssItems.size(), "Only 2 articles should be left.");
         assertEquals("interesting 1", rssItems.get(0).getTitle().orElse(""), "The first article should be left.");
         assertEquals("interesting 2", rssItems.get(1).getTitle().orElse(""), "The second article should be left.");
     }
 
+    @Test
+    void shouldCompleteArticlesParsedWithStax() {
+        // given
+        final List<Article> articles = new ArrayList<>(List.of(
+                Article.builder().title("VIDEO ⟩ Luffy Gear 10 Revealed!").categories(List.of("news")).build(),
+                Article.builder().title("boring").categories(List.of("News", "Gossip")).build(),
+                Article.builder().categories(List.of("news")).build()
+        ));
+        syncSettings.setExcludedCategories(List.of("gossip"));
+        // when
+        syncService.removeFilteredArticles(articles);
+        syncService.completeParsedArticles(articles);
+        // then
+        assertEquals(1, articles.size(), "Excluded and untitled articles should be removed.");
+        assertEquals("Luffy Gear 10 Revealed!", articles.getFirst().getTitle(), "Tags should be removed from title.");
+        assertEquals(VIDEO, articles.getFirst().getTitleEmoji(), "Emoji should be picked based on title.");
+    }
+
     @Test
     void shouldExcludePaywalledArticles() {
         // given
@@ -199,6 +319,135 @@ class SyncServiceTest {
         assertEquals("free", articles.getFirst().getTitle(), "The free article should be left.");
     }
 
+    @Test
+    void shouldFindPreviouslyPostedArticles() {
+        // given
+        final List<Article> articles = List.of(
+                Article.builder().guid("posted").title("posted").build(),
+                Article.builder().guid("new").title("new").build()
+        );
+        final SyncStatus syncStatus = SyncStatus.builder().build();
+        syncStatus.getPostedMessages().put("posted", PostedMessage.builder().messageId(1).build());
+        // when
+        final List<Article> postedArticles = syncService.findPostedArticles(articles, syncStatus);
+        // then
+        assertEquals(1, postedArticles.size(), "Only 1 article should be found.");
+        assertEquals("posted", postedArticles.getFirst().getTitle(), "The posted article should be found.");
+    }
+
+    @Test
+    void shouldCompareEditsWithTheLastArchivedVersionOfAnArticle(@TempDir Path archiveDirectory) throws IOException {
+        // given
+        final List<Article> articles = List.of(
+                Article.builder().guid("edited").title("edited").build(),
+                Article.builder().guid("not-archived").title("not archived").build()
+        );
+        final Map<String, PostedMessage> postedMessages = new HashMap<>(Map.of(
+                "edited", PostedMessage.builder().messageId(1).contentHash("posted").build(),
+                "not-archived", PostedMessage.builder().messageId(2).contentHash("indexed").build()));
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            archive.append(ArchivedArticle.builder().guid("edited").postedAt(Instant.EPOCH).messageId(1).contentHash("posted").build());
+            archive.append(ArchivedArticle.builder().guid("edited").postedAt(Instant.EPOCH).editedAt(Instant.ofEpochSecond(60))
+                    .messageId(1).photo(true).contentHash("edited").build());
+            // when
+            final Map<String, PostedMessage> lastPostedMessages = syncService.findLastPostedMessages(articles, postedMessages, archive);
+            // then
+            assertEquals("edited", lastPostedMessages.get("edited").getContentHash(), "Last archived edit should be compared with.");
+            assertTrue(lastPostedMessages.get("edited").isPhoto(), "Message type should be taken from the archive.");
+            assertEquals("indexed", lastPostedMessages.get("not-archived").getContentHash(),
+                    "Article missing from the archive should be compared with the posted message index.");
+        }
+    }
+
+    @Test
+    void shouldPrunePostedMessagesThatAreNoLongerInTheFeed() {
+        // given
+        final SyncStatus syncStatus = SyncStatus.builder().build();
+        syncStatus.getPostedMessages().put("in-feed", PostedMessage.builder().messageId(1).build());
+        syncStatus.getPostedMessages().put("gone", PostedMessage.builder().messageId(2).build());
+        // when
+        final boolean pruned = syncService.prunePostedMessages(syncStatus, Set.of("in-feed"));
+        // then
+        assertTrue(pruned, "Stale entries should be pruned.");
+        assertEquals(Set.of("in-feed"), syncStatus.getPostedMessages().keySet(), "Only articles still in the feed should be kept.");
+    }
+
+    @Test
+    void shouldCalculateFreshnessLagOfPostedArticles() {
+        // given
+        final ZonedDateTime publicationDate = ZonedDateTime.parse("2024-01-01T12:00:00+02:00");
+        final List<Article> postedArticles = List.of(
+                Article.builder().guid("late").publicationDate(publicationDate).build(),
+                Article.builder().guid("from-the-future").publicationDate(publicationDate.plusHours(1)).build(),
+                Article.builder().guid("not-indexed").publicationDate(publicationDate).build()
+        );
+        final Map<String, PostedMessage> postedMessages = Map.of(
+                "late", PostedMessage.builder().postedAt(publicationDate.plusMinutes(5)).build(),
+                "from-the-future", PostedMessage.builder().postedAt(publicationDate).build()
+        );
+        // when
+        final List<Long> lagSeconds = syncService.calculateFreshnessLag(postedArticles, postedMessages);
+        // then
+        assertEquals(List.of(300L, 0L), lagSeconds, "Lag should be measured from publication to posting and never be negative.");
+    }
+
+    @Test
+    void shouldKeepOnlyTheMostRecentFreshnessLagSamples() {
+        // given
+        final SyncStatus syncStatus = SyncStatus.builder().build();
+        final List<Long> previousSamples = new ArrayList<>();
+        for (long i = 0; i < SyncService.MAX_FRESHNESS_LAG_SAMPLES; i++) {
+            previousSamples.add(i);
+        }
+        syncStatus.setFreshnessLagSeconds(previousSamples);
+        // when
+        syncService.addFreshnessLagSamples(syncStatus, List.of(1000L, 2000L));
+        // then
+        final List<Long> samples = syncStatus.getFreshnessLagSeconds();
+        assertEquals(SyncService.MAX_FRESHNESS_LAG_SAMPLES, samples.size(), "Sample count should be capped.");
+        assertEquals(2L, samples.getFirst(), "The oldest samples should be dropped.");
+        assertEquals(2000L, samples.getLast(), "The newest sample should be kept last.");
+    }
+
+    @Test
+    void shouldRememberOriginsOfCalledHosts() {
+        // given
+        final SyncStatus syncStatus = SyncStatus.builder().knownOrigins(new ArrayList<>(List.of("https://old.example.com"))).build();
+        final List<String> calledUrls = Arrays.asList("https://go.apollo.lv/abc", "https://www.apollo.lv/123",
+                "https://WWW.apollo.lv/456", "https://i.apollo.lv/image.jpg", null, "not a url");
+        // when
+        syncService.updateKnownOrigins(syncStatus, calledUrls);
+        // then
+        assertEquals(List.of("https://go.apollo.lv", "https://www.apollo.lv", "https://i.apollo.lv", "https://old.example.com"),
+                syncStatus.getKnownOrigins(), "Distinct origins of this run should come before the previous ones.");
+    }
+
+    @Test
+    void shouldKeepTheMostRecentlyUsedOrigins() {
+        // given
+        final List<String> previousOrigins = new ArrayList<>();
+        for (int i = 0; i < SyncService.MAX_KNOWN_ORIGINS; i++) {
+            previousOrigins.add("https://host" + i + ".example.com");
+        }
+        final SyncStatus syncStatus = SyncStatus.builder().knownOrigins(previousOrigins).build();
+        // when
+        syncService.updateKnownOrigins(syncStatus, List.of("https://zzz.example.com/1", "https://host5.example.com/2"));
+        // then
+        final List<String> knownOrigins = syncStatus.getKnownOrigins();
+        assertEquals(SyncService.MAX_KNOWN_ORIGINS, knownOrigins.size(), "Known origins should be capped.");
+        assertEquals(List.of("https://zzz.example.com", "https://host5.example.com"), knownOrigins.subList(0, 2),
+                "Origins called by this run should be kept, however they sort.");
+        assertFalse(knownOrigins.contains("https://host9.example.com"), "The least recently used origin should drop out.");
+    }
+
+    @Test
+    void shouldNotPrewarmHostsWithoutStatus() {
+        // when
+        final List<String> origins = syncService.getPrewarmOrigins(null);
+        // then
+        assertTrue(origins.isEmpty(), "Nothing is known about the hosts without a status file.");
+    }
+
     /**
      * Prepares a temporary status file with the given title and publication date.
      *
@@ -1,11 +1,18 @@
 package dev.dobicinaitis.feedreader.services;
 
+import dev.dobicinaitis.feedreader.dto.Article;
+import dev.dobicinaitis.feedreader.dto.TitleEmoji;
 import dev.dobicinaitis.feedreader.helpers.TestFeedServer;
+import dev.dobicinaitis.feedreader.http.HttpTraffic;
+import dev.dobicinaitis.feedreader.http.ReplaySpeed;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.telegram.telegrambots.meta.api.objects.InputFile;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,6 +47,46 @@ class TelegramServiceTest {
         assertEquals("\\|", TelegramService.escapeSpecialCharacters("|"), "Pipe should be escaped.");
     }
 
+    @Test
+    void shouldChangeContentHashWhenVisibleContentChanges() {
+        // given
+        final Article article = Article.builder()
+                .title("Scientists discover a parallel universe!")
+                .titleEmoji(TitleEmoji.ARTICLE)
+                .description("Details inside.")
+                .link("https://www.example.com")
+                .build();
+        final String originalHash = TelegramService.calculateContentHash(article);
+        // when, then
+        assertEquals(originalHash, TelegramService.calculateContentHash(article), "Hash should be stable.");
+        article.setPaywalled(true);
+        final String paywalledHash = TelegramService.calculateContentHash(article);
+        assertNotEquals(originalHash, paywalledHash, "Hash should change when the paywall status changes.");
+        article.setTitle("Scientists discover two parallel universes!");
+        assertNotEquals(paywalledHash, TelegramService.calculateContentHash(article), "Hash should change when the title changes.");
+    }
+
+    @Test
+    void shouldKeepTheCaptionUntilTheContentChanges() {
+        // given
+        final Article article = Article.builder()
+                .title("Scientists discover a parallel universe!")
+                .titleEmoji(TitleEmoji.ARTICLE)
+                .description("Details inside.")
+                .link("https://www.example.com")
+                .build();
+        TelegramService.calculateContentHash(article);
+        final String caption = article.getCaption();
+        // when
+        TelegramService.calculateContentHash(article);
+        // then
+        assertSame(caption, article.getCaption(), "Caption should be prepared only once.");
+        article.setDescription("More details inside.");
+        assertNull(article.getCaption(), "Caption should be dropped when the description changes.");
+        TelegramService.calculateContentHash(article);
+        assertTrue(article.getCaption().contains("More details inside"), "Caption should be prepared again from the new content.");
+    }
+
     @Test
     void shouldPrepareImagesUsingRandomFilenames() throws IOException {
         // given
@@ -65,4 +112,24 @@ class TelegramServiceTest {
         assertThrows(IOException.class, () -> TelegramService.prepareImage(imageUrl), "Should throw IOException.");
     }
 
+    @Test
+    void shouldRecordImageResponsesAsTheyWere(@TempDir Path recordingDirectory) throws IOException {
+        // given
+        final String imageUrl = feedServer.getBaseUrl() + "/" + TestFeedServer.IMAGE_FILE_RC_200;
+        final String unavailableImageUrl = feedServer.getBaseUrl() + "/" + TestFeedServer.IMAGE_FILE_RC_503;
+        // when
+        try (HttpTraffic ignored = HttpTraffic.record(recordingDirectory)) {
+            TelegramService.prepareImage(imageUrl);
+            assertThrows(IOException.class, () -> TelegramService.prepareImage(unavailableImageUrl), "Should throw IOException.");
+        }
+        // then
+        final String index = Files.readString(recordingDirectory.resolve("exchanges.jsonl"));
+        assertTrue(index.contains("image/gif"), "Response headers should be recorded.");
+        assertTrue(index.contains("\"statusCode\":503"), "Error status should be recorded.");
+        try (HttpTraffic ignored = HttpTraffic.replay(recordingDirectory, ReplaySpeed.FULL)) {
+            assertNotNull(TelegramService.prepareImage(imageUrl), "Recorded image should be replayed.");
+            assertThrows(IOException.class, () -> TelegramService.prepareImage(unavailableImageUrl), "Recorded error should be replayed.");
+        }
+    }
+
 }
\ No newline at end of file
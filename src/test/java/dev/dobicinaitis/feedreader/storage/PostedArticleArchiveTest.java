@@ -0,0 +1,173 @@
+package dev.dobicinaitis.feedreader.storage;
+
+import dev.dobicinaitis.feedreader.dto.ArchivedArticle;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PostedArticleArchiveTest {
+
+    private static final String LONG_TITLE_SUFFIX = "!".repeat(2000);
+
+    @TempDir
+    Path archiveDirectory;
+
+    @Test
+    void shouldFindArchivedArticlesByGuidAndLink() throws IOException {
+        // given
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            archive.append(createArticle(1));
+            archive.append(createArticle(2));
+        }
+        // when
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            // then
+            assertEquals(createArticle(1), archive.find("pm#1").orElseThrow(), "Article should be found by GUID.");
+            assertEquals(createArticle(2), archive.find("https://www.example.com/2").orElseThrow(), "Article should be found by link.");
+            assertTrue(archive.find("pm#3").isEmpty(), "Unknown article should not be found.");
+        }
+    }
+
+    @Test
+    void shouldFindArticlesAppendedAfterTheKeyIndexWasLoaded() throws IOException {
+        // given
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            archive.append(createArticle(1));
+            assertTrue(archive.contains("pm#1"), "Article appended before the first lookup should be found.");
+            // when
+            archive.append(createArticle(2));
+            // then
+            assertTrue(archive.contains("pm#2"), "Article appended after the first lookup should be found.");
+        }
+    }
+
+    @Test
+    void shouldNotOpenAnArchiveOpenedByAnotherRun() throws IOException {
+        // given
+        try (PostedArticleArchive ignored = PostedArticleArchive.open(archiveDirectory)) {
+            // when, then
+            assertNull(PostedArticleArchive.open(archiveDirectory, Duration.ZERO), "Locked archive should not be opened.");
+            assertThrows(IOException.class, () -> PostedArticleArchive.open(archiveDirectory), "Should throw IOException.");
+        }
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory, Duration.ZERO)) {
+            assertNotNull(archive, "Closed archive should be opened again.");
+        }
+    }
+
+    @Test
+    void shouldScanPostingTimeRangesAcrossSegments() throws IOException {
+        // given
+        final int articleCount = 2000;
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            for (int i = 0; i < articleCount; i++) {
+                final ArchivedArticle article = createArticle(i);
+                article.setTitle(article.getTitle() + LONG_TITLE_SUFFIX);
+                archive.append(article);
+            }
+            // when
+            final List<ArchivedArticle> articles = archive.findPostedBetween(Instant.ofEpochSecond(500), Instant.ofEpochSecond(1499));
+            // then
+            assertTrue(countSegments() > 1, "Archive should be split into multiple segments.");
+            assertEquals(1000, articles.size(), "All articles in the range should be returned.");
+            assertEquals("pm#500", articles.getFirst().getGuid(), "The first article in the range should be returned first.");
+            assertEquals("pm#1499", articles.getLast().getGuid(), "The last article in the range should be returned last.");
+        }
+    }
+
+    @Test
+    void shouldScanSegmentsWhoseTimeIndexIsMissing() throws IOException {
+        // given
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            for (int i = 0; i < 2000; i++) {
+                final ArchivedArticle article = createArticle(i);
+                article.setTitle(article.getTitle() + LONG_TITLE_SUFFIX);
+                archive.append(article);
+            }
+        }
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            final Path firstTimeIndex = files.filter(file -> file.toString().endsWith(".idx") && !file.endsWith("keys.idx"))
+                    .sorted().findFirst().orElseThrow();
+            Files.delete(firstTimeIndex);
+        }
+        // when
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            final List<ArchivedArticle> articles = archive.findPostedBetween(Instant.EPOCH, Instant.ofEpochSecond(1999));
+            // then
+            assertEquals(2000, articles.size(), "Segment without a time index should not hide the segments after it.");
+            assertEquals("pm#0", articles.getFirst().getGuid(), "Records of the segment without a time index should be found.");
+        }
+    }
+
+    @Test
+    void shouldFindTheLastEditOfAnArticle() throws IOException {
+        // given
+        final ArchivedArticle posted = createArticle(1);
+        final ArchivedArticle edited = createArticle(1);
+        edited.setTitle("Edited article 1");
+        edited.setEditedAt(Instant.ofEpochSecond(10));
+        edited.setContentHash("edited");
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            archive.append(posted);
+            archive.append(createArticle(2));
+            archive.append(edited);
+        }
+        // when
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            // then
+            assertEquals(edited, archive.find("pm#1").orElseThrow(), "Last edit of the article should be found.");
+            assertEquals(List.of(posted, createArticle(2)), archive.findPostedBetween(Instant.EPOCH, Instant.ofEpochSecond(10)),
+                    "Time range scans should return the postings only.");
+        }
+    }
+
+    @Test
+    void shouldDiscardPartiallyWrittenRecords() throws IOException {
+        // given
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            archive.append(createArticle(1));
+        }
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            final Path segment = files.filter(file -> file.toString().endsWith(".log")).findFirst().orElseThrow();
+            Files.write(segment, new byte[]{0, 0, 1, 0, 42}, StandardOpenOption.APPEND);
+        }
+        // when
+        try (PostedArticleArchive archive = PostedArticleArchive.open(archiveDirectory)) {
+            archive.append(createArticle(2));
+            // then
+            assertEquals(2, archive.findPostedBetween(Instant.EPOCH, Instant.ofEpochSecond(10)).size(),
+                    "Only complete records should be kept.");
+            assertTrue(archive.contains("pm#2"), "Article appended after recovery should be found.");
+        }
+    }
+
+    private ArchivedArticle createArticle(int number) {
+        return ArchivedArticle.builder()
+                .guid("pm#" + number)
+                .link("https://www.example.com/" + number)
+                .title("Article " + number)
+                .categories(List.of("Ziņas"))
+                .publishedAt(Instant.ofEpochSecond(number - 1L))
+                .postedAt(Instant.ofEpochSecond(number))
+                .messageId(number)
+                .paywalled(number % 2 == 0)
+                .photo(number % 3 == 0)
+                .contentHash("hash#" + number)
+                .build();
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(archiveDirectory)) {
+            return files.filter(file -> file.toString().endsWith(".log")).count();
+        }
+    }
+}
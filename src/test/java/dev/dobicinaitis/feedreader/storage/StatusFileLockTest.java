@@ -0,0 +1,50 @@
+package dev.dobicinaitis.feedreader.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusFileLockTest {
+
+    @Test
+    void shouldNotAcquireALockThatIsAlreadyHeld() throws IOException {
+        // given
+        final File statusFile = createTempStatusFile();
+        // when, then
+        try (StatusFileLock lock = StatusFileLock.acquire(statusFile, Duration.ZERO)) {
+            assertNotNull(lock, "The first lock should be acquired.");
+            assertNull(StatusFileLock.acquire(statusFile, Duration.ZERO), "The second lock should not be acquired.");
+        }
+        try (StatusFileLock lock = StatusFileLock.acquire(statusFile, Duration.ZERO)) {
+            assertNotNull(lock, "The lock should be acquired after it was released.");
+        }
+    }
+
+    @Test
+    @Timeout(5)
+    void shouldWaitForTheLockUntilTheTimeoutExpires() throws IOException {
+        // given
+        final File statusFile = createTempStatusFile();
+        final Duration timeout = Duration.ofSeconds(1);
+        try (StatusFileLock ignored = StatusFileLock.acquire(statusFile, Duration.ZERO)) {
+            final long startTime = System.currentTimeMillis();
+            // when
+            final StatusFileLock lock = StatusFileLock.acquire(statusFile, timeout);
+            // then
+            assertNull(lock, "The lock should not be acquired.");
+            assertTrue(System.currentTimeMillis() - startTime >= timeout.toMillis(), "Should wait for the lock until the timeout expires.");
+        }
+    }
+
+    private File createTempStatusFile() throws IOException {
+        final File statusFile = File.createTempFile("tmpStatus", ".json");
+        statusFile.deleteOnExit();
+        StatusFileLock.getLockFile(statusFile).toFile().deleteOnExit();
+        return statusFile;
+    }
+}
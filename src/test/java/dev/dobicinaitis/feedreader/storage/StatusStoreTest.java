@@ -0,0 +1,128 @@
+package dev.dobicinaitis.feedreader.storage;
+
+import dev.dobicinaitis.feedreader.dto.FeedFetchSample;
+import dev.dobicinaitis.feedreader.dto.PostedMessage;
+import dev.dobicinaitis.feedreader.dto.SyncStatus;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatusStoreTest {
+
+    @Test
+    void shouldReadWhatWasWrittenInJsonFormat() throws IOException {
+        assertRoundTrip(StatusFormat.JSON);
+    }
+
+    @Test
+    void shouldReadWhatWasWrittenInBinaryFormat() throws IOException {
+        assertRoundTrip(StatusFormat.BINARY);
+    }
+
+    @Test
+    void shouldReturnANewSyncStatusObjectIfFileIsEmpty() throws IOException {
+        for (StatusFormat format : StatusFormat.values()) {
+            // given
+            final File statusFile = createTempStatusFile();
+            // when
+            final SyncStatus syncStatus = StatusStore.create(statusFile, format).read();
+            // then
+            assertNotNull(syncStatus, "Sync status should not be null.");
+            assertNull(syncStatus.getPublicationDateOfLastPostedArticle(), "Publication date should be null.");
+        }
+    }
+
+    @Test
+    void shouldRejectBinaryFilesOfANewerVersion() throws IOException {
+        // given
+        final File statusFile = createTempStatusFile();
+        final byte[] content = {'A', 'L', 'T', 'S', BinaryStatusStore.FORMAT_VERSION + 1};
+        Files.write(statusFile.toPath(), content);
+        final StatusStore store = StatusStore.create(statusFile, StatusFormat.BINARY);
+        // when, then
+        assertThrows(IOException.class, store::read, "Should throw IOException.");
+    }
+
+    @Test
+    void shouldSkipFieldsAppendedToAKnownSection() throws IOException {
+        // given
+        final File statusFile = createTempStatusFile();
+        final ByteArrayOutputStream content = new ByteArrayOutputStream();
+        final DataOutputStream out = new DataOutputStream(content);
+        out.write(BinaryStatusStore.MAGIC);
+        out.writeByte(BinaryStatusStore.FORMAT_VERSION);
+        // known origins section with a field appended by a later version
+        final ByteArrayOutputStream origins = new ByteArrayOutputStream();
+        final DataOutputStream originsOut = new DataOutputStream(origins);
+        originsOut.writeInt(1);
+        originsOut.writeUTF("https://www.apollo.lv");
+        originsOut.writeLong(Long.MAX_VALUE);
+        out.writeByte(6);
+        out.writeInt(origins.size());
+        origins.writeTo(out);
+        // freshness lag section
+        out.writeByte(3);
+        out.writeInt(12);
+        out.writeInt(1);
+        out.writeLong(60L);
+        Files.write(statusFile.toPath(), content.toByteArray());
+        // when
+        final SyncStatus syncStatus = StatusStore.create(statusFile, StatusFormat.BINARY).read();
+        // then
+        assertEquals(List.of("https://www.apollo.lv"), syncStatus.getKnownOrigins(), "Known fields should be read.");
+        assertEquals(List.of(60L), syncStatus.getFreshnessLagSeconds(), "Next section should be read from its own start.");
+    }
+
+    @Test
+    void shouldRejectJsonFilesInBinaryMode() throws IOException {
+        // given
+        final File statusFile = createTempStatusFile();
+        Files.writeString(statusFile.toPath(), "{}");
+        final StatusStore store = StatusStore.create(statusFile, StatusFormat.BINARY);
+        // when, then
+        assertThrows(IOException.class, store::read, "Should throw IOException.");
+    }
+
+    private void assertRoundTrip(StatusFormat format) throws IOException {
+        // given
+        final File statusFile = createTempStatusFile();
+        final StatusStore store = StatusStore.create(statusFile, format);
+        final SyncStatus syncStatus = SyncStatus.builder()
+                .titleOfLastPostedArticle("Robots develop their own language!")
+                .publicationDateOfLastPostedArticle(ZonedDateTime.parse("2024-01-01T12:00:00+02:00"))
+                .freshnessLagSeconds(new ArrayList<>(List.of(60L, 90L, 3600L)))
+                .trippedHosts(new HashMap<>(Map.of("www.apollo.lv", 1704103200000L)))
+                .feedFetchSamples(new ArrayList<>(List.of(new FeedFetchSample(120, false), new FeedFetchSample(2500, true))))
+                .knownOrigins(new ArrayList<>(List.of("https://www.apollo.lv", "https://apollo.tv.lv")))
+                .itemHashes(new HashMap<>(Map.of("pm#1", -7046029254386353131L, "pm#2", 42L)))
+                .build();
+        syncStatus.getPostedMessages().put("pm#1", PostedMessage.builder()
+                .messageId(42)
+                .contentHash("hash")
+                .photo(true)
+                .postedAt(ZonedDateTime.parse("2024-01-01T12:01:00+02:00"))
+                .build());
+        // when
+        store.write(syncStatus);
+        final SyncStatus readStatus = store.read();
+        // then
+        assertEquals(syncStatus, readStatus, "Read status should match the written one.");
+    }
+
+    private File createTempStatusFile() throws IOException {
+        final File statusFile = File.createTempFile("tmpStatus", ".dat");
+        statusFile.deleteOnExit();
+        return statusFile;
+    }
+}